@@ -0,0 +1,165 @@
+import org.neo4j.driver.Session;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Builds the record generation paths of the data generator threads with the database I/O stubbed out, for
+ * benchmarks.DataGenerationBenchmark.
+ *
+ * JMH only accepts benchmarks in a named package, and a named package cannot refer to the classes of the benchmark
+ * program in the default package. That is why this class is in the default package and hands every path over as an
+ * IntFunction taking the index of the record.
+ *
+ * The JDBC statements and the Neo4j session are dynamic proxies that do nothing, but every call to them still
+ * allocates its argument array.
+ */
+public class GeneratorHotPaths {
+
+    public static final String SET_INDEXES = "setIndexes"; // Customer name and address lookup
+    public static final String GET_WORK_INDEXES = "getWorkIndexes"; // Works of a target or an invoice
+    public static final String GET_ITEM_INDEXES = "getItemIndexes"; // Items of a work
+    public static final String INSERT_CUSTOMER = "insertCustomer"; // Customer with its invoices, targets and links
+    public static final String INSERT_WORK = "insertWork"; // Work with its used items and work hours
+
+    private static final int BATCH_EXECUTE_VALUE = 10;
+
+    /**
+     * Create the record generation path.
+     * @param path one of the path names above
+     * @param invoiceFactor invoices per customer
+     * @param targetFactor targets per customer
+     * @param workFactor works per target and per invoice
+     * @param workCount works in the database, the generator shuffles all of them for every target and invoice
+     * @param itemFactor items per work
+     * @param itemCount items in the database
+     * @param workTypeFactor work types per work
+     * @param workTypeCount work types in the database
+     * @return function generating the record of the given index and returning the generator or the generated indexes
+     */
+    public static IntFunction<Object> create(String path, int invoiceFactor, int targetFactor, int workFactor,
+                                             int workCount, int itemFactor, int itemCount, int workTypeFactor,
+                                             int workTypeCount) throws IOException {
+        Session session = stub(Session.class);
+        List<HashMap> preparedStatementsList = new ArrayList<HashMap>();
+        HashMap<String, PreparedStatement> preparedStatements = new HashMap<String, PreparedStatement>();
+        for (String table : new String[]{"customer", "invoice", "target", "workinvoice", "worktarget", "work",
+                "useditem", "workhours"}) {
+            preparedStatements.put(table, stub(PreparedStatement.class));
+        }
+        preparedStatementsList.add(preparedStatements);
+
+        List<String> firstnames = readColumn("/firstnames.csv", 0);
+        List<String> surnames = readColumn("/surnames.csv", 0);
+        List<HashMap<String, String>> addresses = readAddresses();
+        DataGeneratorThreadCustomer customer = new DataGeneratorThreadCustomer(0, Integer.MAX_VALUE,
+                BATCH_EXECUTE_VALUE, new HashMap<String, String[]>(), new HashMap<String, String>(), null,
+                invoiceFactor, targetFactor, workFactor, 0, firstnames, surnames, addresses, 0, 0, 0, workCount);
+        DataGeneratorThreadWork work = new DataGeneratorThreadWork(0, Integer.MAX_VALUE, BATCH_EXECUTE_VALUE,
+                new HashMap<String, String[]>(), new HashMap<String, String>(), null, 0, itemFactor, itemCount,
+                workTypeFactor, workTypeCount);
+
+        if (path.equals(SET_INDEXES)) {
+            return index -> {
+                customer.setIndexes(index);
+                return customer;
+            };
+        } else if (path.equals(GET_WORK_INDEXES)) {
+            return customer::getWorkIndexes;
+        } else if (path.equals(GET_ITEM_INDEXES)) {
+            return work::getItemIndexes;
+        } else if (path.equals(INSERT_CUSTOMER)) {
+            return index -> {
+                try {
+                    customer.insertCustomer(index, BATCH_EXECUTE_VALUE, session, preparedStatementsList);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+                return customer;
+            };
+        } else if (path.equals(INSERT_WORK)) {
+            return index -> {
+                try {
+                    work.insertWork(index, BATCH_EXECUTE_VALUE, session, preparedStatementsList);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+                return work;
+            };
+        }
+        throw new IllegalArgumentException("Unknown record generation path: " + path);
+    }
+
+    /**
+     * Create an implementation of the interface whose methods do nothing and return 0, false, null or an empty
+     * array.
+     */
+    private static <T> T stub(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Class<?> returnType = method.getReturnType();
+                    if (returnType.isArray()) {
+                        return Array.newInstance(returnType.getComponentType(), 0);
+                    }
+                    if (returnType.isPrimitive() && returnType != void.class) {
+                        return Array.get(Array.newInstance(returnType, 1), 0);
+                    }
+                    return null;
+                }));
+    }
+
+    /**
+     * Read a column of a sample data file, without the header line.
+     */
+    private static List<String> readColumn(String resource, int column) throws IOException {
+        List<String> values = new ArrayList<String>();
+        BufferedReader br = new BufferedReader(new InputStreamReader(
+                GeneratorHotPaths.class.getResourceAsStream(resource), StandardCharsets.UTF_8));
+        try {
+            br.readLine();
+            String line;
+            while ((line = br.readLine()) != null) {
+                values.add(line.split(",")[column]);
+            }
+        } finally {
+            br.close();
+        }
+        return values;
+    }
+
+    /**
+     * Read the addresses of the sample data file like DataGenerator loads them into the "addresses" table.
+     */
+    private static List<HashMap<String, String>> readAddresses() throws IOException {
+        List<HashMap<String, String>> addresses = new ArrayList<HashMap<String, String>>();
+        BufferedReader br = new BufferedReader(new InputStreamReader(
+                GeneratorHotPaths.class.getResourceAsStream("/city_of_houston.csv"), StandardCharsets.UTF_8));
+        try {
+            br.readLine();
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] addressInArray = line.split(",");
+                HashMap<String, String> address = new HashMap<String, String>();
+                address.put("street", addressInArray[3]);
+                address.put("city", addressInArray[5]);
+                address.put("district", addressInArray[6]);
+                address.put("region", addressInArray[7]);
+                address.put("postcode", addressInArray[8]);
+                addresses.add(address);
+            }
+        } finally {
+            br.close();
+        }
+        return addresses;
+    }
+}
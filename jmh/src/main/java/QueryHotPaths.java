@@ -0,0 +1,99 @@
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Session;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Connects to the PostgreSQL and Neo4j instances of compose.yaml and builds the benchmark queries of
+ * {@link QueryCatalog} for benchmarks.QueryBenchmark, executed by a {@link QueryClient} like in the load tests.
+ * Like {@link GeneratorHotPaths}, this class is in the default package so that the JMH benchmarks can reach the
+ * benchmark program through JDK and driver types only.
+ *
+ * The databases are found through the same environment variables as Main reads: POSTGRES_HOST, POSTGRES_PASSWORD,
+ * NEO4J_HOST and NEO4J_AUTH. The "warehouse" database must already hold the generated data, e.g. from a previous run
+ * of the benchmark program.
+ */
+public class QueryHotPaths {
+
+    /**
+     * Open a JDBC connection to the "warehouse" database.
+     */
+    public static Connection openConnection() throws SQLException {
+        String db_url = sqlUrl();
+        String[] db_settings = sqlDatabases().get(db_url);
+        return DriverManager.getConnection(db_url + "warehouse", db_settings[1], db_settings[2]);
+    }
+
+    /**
+     * Open a Neo4j driver, thread-safe and shared by every benchmark thread.
+     */
+    public static Driver openDriver() {
+        HashMap<String, String> neo4j_settings = neo4jSettings();
+        return GraphDatabase.driver(neo4j_settings.get("NEO4J_DB_URL"), AuthTokens.basic(
+                neo4j_settings.get("NEO4J_USERNAME"), neo4j_settings.get("NEO4J_PASSWORD")));
+    }
+
+    /**
+     * Create or drop the indexes of both databases. Indexes left over from an aborted run are dropped first, which
+     * prints an error for every index that does not exist.
+     */
+    public static void setIndexes(boolean indexes) {
+        DataGenerator dataGenerator = new DataGenerator(sqlDatabases(), neo4jSettings(), sqlUrl());
+        dataGenerator.deleteIndexes();
+        if (indexes) {
+            dataGenerator.createIndexes();
+        }
+    }
+
+    /**
+     * Create the query of the family for the engine.
+     * @param family query family of {@link QueryCatalog#standardQueries()}, e.g. "invoice-price"
+     * @param engine "SQL" or "CYPHER"
+     * @param keys key distribution as described in {@link KeyDistribution}, over the generated id ranges
+     * @param seed seed of the keys
+     * @return function executing the query once and returning its measurement after reading every row
+     */
+    public static Supplier<Object> create(Connection connection, Session session, String family, String engine,
+                                          String keys, long seed) throws SQLException {
+        BenchmarkQuery query = QueryCatalog.getQuery(family, BenchmarkQuery.Engine.valueOf(engine));
+        DataGenerator dataGenerator = new DataGenerator(sqlDatabases(), neo4jSettings(), sqlUrl());
+        KeySpace keySpace = new KeySpace(keys);
+        keySpace.setRange(QueryCatalog.INVOICE_ID, 0, dataGenerator.getLastInvoiceId());
+        keySpace.setRange(QueryCatalog.CUSTOMER_ID, 0, dataGenerator.getLastCustomerId());
+        QueryClient client = new QueryClient(connection, session, keySpace, new Random(seed));
+        return () -> {
+            try {
+                return client.execute(query);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static String sqlUrl() {
+        return "jdbc:postgresql://" + System.getenv("POSTGRES_HOST") + ":5432/";
+    }
+
+    private static HashMap<String, String[]> sqlDatabases() {
+        HashMap<String, String[]> sql_databases = new HashMap<String, String[]>();
+        sql_databases.put(sqlUrl(), new String[]{"org.postgresql.Driver", "postgres",
+                System.getenv("POSTGRES_PASSWORD")});
+        return sql_databases;
+    }
+
+    private static HashMap<String, String> neo4jSettings() {
+        HashMap<String, String> neo4j_settings = new HashMap<String, String>();
+        String neo4j_auth = System.getenv("NEO4J_AUTH");
+        neo4j_settings.put("NEO4J_DB_URL", "bolt://" + System.getenv("NEO4J_HOST") + ":7687");
+        neo4j_settings.put("NEO4J_USERNAME", neo4j_auth.substring(0, neo4j_auth.lastIndexOf("/")));
+        neo4j_settings.put("NEO4J_PASSWORD", neo4j_auth.substring(neo4j_auth.lastIndexOf("/") + 1));
+        return neo4j_settings;
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Client-side cost of generating the test data, without the database: the name and address lookup of setIndexes,
+ * the shuffles of getWorkIndexes and getItemIndexes, and whole customer and work records with their statement
+ * parameters and Cypher strings. One operation is one record, so with the GC profiler gc.alloc.rate.norm is the
+ * allocation per record:
+ *
+ *     java -jar jmh/target/benchmarks.jar DataGenerationBenchmark -prof gc
+ *
+ * The factors and counts default to the full-size data set generated by Main, 10000 works and 100000 items and work
+ * types, override them with e.g. -p workCount=100.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DataGenerationBenchmark {
+
+    @Param({"setIndexes", "getWorkIndexes", "getItemIndexes", "insertCustomer", "insertWork"})
+    public String path;
+
+    @Param("10")
+    public int invoiceFactor;
+
+    @Param("10")
+    public int targetFactor;
+
+    @Param("10")
+    public int workFactor;
+
+    @Param("10000")
+    public int workCount;
+
+    @Param("10")
+    public int itemFactor;
+
+    @Param("100000")
+    public int itemCount;
+
+    @Param("10")
+    public int workTypeFactor;
+
+    @Param("100000")
+    public int workTypeCount;
+
+    private IntFunction<Object> hotPath;
+    private int index;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        // GeneratorHotPaths is in the default package, see there
+        Method create = Class.forName("GeneratorHotPaths").getMethod("create", String.class, int.class, int.class,
+                int.class, int.class, int.class, int.class, int.class, int.class);
+        hotPath = (IntFunction<Object>) create.invoke(null, path, invoiceFactor, targetFactor, workFactor, workCount,
+                itemFactor, itemCount, workTypeFactor, workTypeCount);
+        index = 0;
+    }
+
+    @Benchmark
+    public Object generateRecord() {
+        return hotPath.apply(index++);
+    }
+}
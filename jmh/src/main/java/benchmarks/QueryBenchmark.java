@@ -0,0 +1,114 @@
+package benchmarks;
+
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * End-to-end latency of the benchmark queries against the PostgreSQL and Neo4j instances of compose.yaml, with the
+ * same SQL and Cypher texts as QueryTester and every row of the result read. Average time gives the mean latency,
+ * sample time its distribution:
+ *
+ *     java -jar jmh/target/benchmarks.jar QueryBenchmark -p family=invoice-price -p keys=uniform
+ *
+ * The databases must already hold the generated data and are found through the environment variables of .env, see
+ * QueryHotPaths. Every index state drops or creates the indexes of both databases before its measurements. Run with
+ * -t N for N concurrent clients, each with its own JDBC connection and Neo4j session over the shared driver.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+    /**
+     * Neo4j driver and index state shared by every benchmark thread.
+     */
+    @State(Scope.Benchmark)
+    public static class Databases {
+
+        @Param({"false", "true"})
+        public boolean indexes;
+
+        Driver driver;
+
+        @Setup(Level.Trial)
+        public void open() throws Exception {
+            driver = (Driver) hotPaths("openDriver").invoke(null);
+            hotPaths("setIndexes", boolean.class).invoke(null, indexes);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            driver.close();
+        }
+    }
+
+    /**
+     * JDBC connection, Neo4j session and query of one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+
+        @Param({"work-price-short", "work-price-long", "work-of-invoice", "invoice-price",
+                "invoice-prices-for-customer"})
+        public String family;
+
+        @Param({"SQL", "CYPHER"})
+        public String engine;
+
+        @Param({"fixed", "uniform", "zipfian"})
+        public String keys;
+
+        Connection connection;
+        Session session;
+        Supplier<Object> query;
+
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void open(Databases databases, ThreadParams threadParams) throws Exception {
+            connection = (Connection) hotPaths("openConnection").invoke(null);
+            session = databases.driver.session();
+            query = (Supplier<Object>) hotPaths("create", Connection.class, Session.class, String.class,
+                    String.class, String.class, long.class).invoke(null, connection, session, family, engine, keys,
+                    (long) threadParams.getThreadIndex());
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws Exception {
+            session.close();
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public Object query(Client client) {
+        return client.query.get();
+    }
+
+    /**
+     * Get a method of QueryHotPaths, which is in the default package.
+     */
+    private static Method hotPaths(String name, Class<?>... parameterTypes) throws Exception {
+        return Class.forName("QueryHotPaths").getMethod(name, parameterTypes);
+    }
+}
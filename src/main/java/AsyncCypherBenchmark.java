@@ -0,0 +1,335 @@
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Config;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.async.AsyncSession;
+import org.neo4j.driver.async.ResultCursor;
+import org.neo4j.driver.reactive.RxSession;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the blocking, async and reactive Cypher APIs of the Neo4j driver with the same number of Bolt connections.
+ *
+ * The blocking path runs one thread per connection, each sending its next query only after the previous result has
+ * been read. The async and reactive paths keep several queries in flight per connection without any client threads:
+ * Bolt executes one query per connection at a time, so the extra queries wait in the connection pool and a
+ * connection starts its next query as soon as the previous one has been consumed, with no client round trip in
+ * between. The reactive path streams records with backpressure, requesting one fetch size of records at a time, so
+ * that large results never have to be held in client memory.
+ */
+public class AsyncCypherBenchmark {
+
+    public enum Mode {
+        BLOCKING, // Session, one thread per connection
+        ASYNC, // AsyncSession, records consumed with forEachAsync
+        REACTIVE // RxSession, records requested in batches of the fetch size
+    }
+
+    private final HashMap<String, String> neo4j_settings;
+    private final List<String> rows = new ArrayList<String>();
+    private KeySpace keySpace = new KeySpace(); // Keys of the parameterized queries
+
+    public AsyncCypherBenchmark(HashMap<String, String> neo4j_settings) {
+        this.neo4j_settings = neo4j_settings;
+    }
+
+    /**
+     * Set the key space the keys of the parameterized queries are drawn from.
+     */
+    public void setKeySpace(KeySpace keySpace) {
+        this.keySpace = keySpace;
+    }
+
+    /**
+     * Run every Cypher query with every mode in turn.
+     * @param queries queries to run, SQL queries are skipped
+     * @param connectionCount number of Bolt connections of the pool
+     * @param inFlightPerConnection number of async or reactive queries in flight per connection
+     * @param fetchSize number of records the driver pulls from the server at a time
+     * @param durationMillis measured duration of every run
+     * @param warmupMillis duration at the start of every run whose latencies are discarded
+     * @param label description of the database state used in reports, e.g. "NO INDEXES"
+     */
+    public void runAll(List<BenchmarkQuery> queries, int connectionCount, int inFlightPerConnection, long fetchSize,
+                       long durationMillis, long warmupMillis, String label) {
+        for (BenchmarkQuery query : queries) {
+            if (query.getEngine() != BenchmarkQuery.Engine.CYPHER) {
+                continue;
+            }
+            for (Mode mode : Mode.values()) {
+                run(mode, query, connectionCount, inFlightPerConnection, fetchSize, durationMillis, warmupMillis,
+                        label);
+            }
+        }
+    }
+
+    /**
+     * Run a query back to back with the given mode.
+     * @param mode Neo4j driver API the query is run with
+     * @param query Cypher query to run
+     * @param connectionCount number of Bolt connections of the pool
+     * @param inFlightPerConnection number of async or reactive queries in flight per connection, ignored by the
+     *                              blocking mode
+     * @param fetchSize number of records the driver pulls from the server at a time
+     * @param durationMillis measured duration of the run
+     * @param warmupMillis duration at the start of the run whose latencies are discarded
+     * @param label description of the database state used in reports, e.g. "NO INDEXES"
+     */
+    public LoadResult run(Mode mode, BenchmarkQuery query, int connectionCount, int inFlightPerConnection,
+                          long fetchSize, long durationMillis, long warmupMillis, String label) {
+        String neo4j_db_url = neo4j_settings.get("NEO4J_DB_URL");
+        String neo4j_username = neo4j_settings.get("NEO4J_USERNAME");
+        String neo4j_password = neo4j_settings.get("NEO4J_PASSWORD");
+        // Queued queries wait for a connection as long as the run lasts instead of failing
+        Config config = Config.builder()
+                .withMaxConnectionPoolSize(connectionCount)
+                .withConnectionAcquisitionTimeout(durationMillis + warmupMillis, TimeUnit.MILLISECONDS)
+                .withFetchSize(fetchSize)
+                .build();
+        org.neo4j.driver.Driver driver = GraphDatabase.driver(neo4j_db_url,
+                AuthTokens.basic(neo4j_username, neo4j_password), config);
+        int inFlight = (mode == Mode.BLOCKING) ? connectionCount : connectionCount * inFlightPerConnection;
+        LoadResult loadResult = new LoadResult(label + ", " + mode + ", " + query,
+                TimeUnit.MILLISECONDS.toNanos(durationMillis));
+        AtomicLong rowCount = new AtomicLong();
+
+        System.out.println("Running " + query + " with the " + mode + " API, " + connectionCount + " connections and " +
+                inFlight + " queries in flight for " + durationMillis + " ms after " + warmupMillis + " ms warmup (" +
+                label + ").");
+        System.gc();
+        HeapSampler heapSampler = new HeapSampler();
+        heapSampler.start();
+        long[] window = new long[2];
+        window[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+        window[1] = window[0] + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        try {
+            if (mode == Mode.BLOCKING) {
+                runBlocking(driver, query, inFlight, window, loadResult, rowCount);
+            } else {
+                CountDownLatch done = new CountDownLatch(inFlight);
+                for (int i = 0; i < inFlight; i++) {
+                    new Slot(mode, driver, query, keySpace, fetchSize, window, loadResult, rowCount, done).next();
+                }
+                done.await();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            driver.close();
+        }
+        long peakHeap = heapSampler.stopSampling();
+        loadResult.print(System.out);
+
+        LatencyHistogram histogram = loadResult.getCombinedHistogram();
+        rows.add(String.format("%s, %s, %s, %d, %d, %.1f, %.1f, %.1f, %.3f, %.3f, %d, %.1f", label, query, mode,
+                connectionCount, inFlight, loadResult.getThroughput(), loadResult.getThroughput() / connectionCount,
+                rowCount.get() * 1e9 / loadResult.getDurationNanos(), histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, loadResult.getErrorCount(), peakHeap / 1048576.0));
+        return loadResult;
+    }
+
+    /**
+     * Print one row per query and mode that has been run.
+     */
+    public void printReport() {
+        System.out.println("Blocking versus async versus reactive Cypher execution:");
+        System.out.println("state, query, mode, connections, in flight, throughput (queries/s), " +
+                "throughput per connection (queries/s), rows/s, p50 (ms), p99 (ms), errors, peak heap (MB)");
+        for (String row : rows) {
+            System.out.println(row);
+        }
+        System.out.println();
+    }
+
+    private void runBlocking(org.neo4j.driver.Driver driver, BenchmarkQuery query, int threadCount, long[] window,
+                             LoadResult loadResult, AtomicLong rowCount) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<LoadResult>> futures = new ArrayList<Future<LoadResult>>();
+        try {
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(() -> {
+                    LoadResult threadResult = new LoadResult("", 0);
+                    Session session = driver.session();
+                    QueryClient client = new QueryClient(null, session, keySpace, ThreadLocalRandom.current());
+                    try {
+                        while (true) {
+                            long startTime = System.nanoTime();
+                            if (startTime >= window[1]) {
+                                break;
+                            }
+                            try {
+                                QueryMeasurement measurement = client.execute(query);
+                                if (startTime >= window[0]) {
+                                    threadResult.recordLatency(query, measurement.getTimeToLastRowNanos());
+                                    rowCount.addAndGet(measurement.getRowCount());
+                                }
+                            } catch (Exception e) {
+                                if (startTime >= window[0]) {
+                                    threadResult.recordError(query);
+                                }
+                                if (threadResult.getErrorCount() == 1) {
+                                    e.printStackTrace();
+                                }
+                            }
+                        }
+                    } finally {
+                        client.close();
+                        session.close();
+                    }
+                    return threadResult;
+                }));
+            }
+            for (Future<LoadResult> future : futures) {
+                loadResult.add(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * One in-flight query of the async or reactive mode. When a query completes the slot sends the next one, until
+     * the end of the run.
+     */
+    private static class Slot {
+
+        private final Mode mode;
+        private final org.neo4j.driver.Driver driver;
+        private final BenchmarkQuery query;
+        private final KeySpace keySpace;
+        private final long fetchSize;
+        private final SessionConfig sessionConfig;
+        private final long[] window;
+        private final LoadResult loadResult; // Shared by all slots, recording is synchronized on it
+        private final AtomicLong rowCount;
+        private final CountDownLatch done;
+
+        Slot(Mode mode, org.neo4j.driver.Driver driver, BenchmarkQuery query, KeySpace keySpace, long fetchSize,
+             long[] window, LoadResult loadResult, AtomicLong rowCount, CountDownLatch done) {
+            this.mode = mode;
+            this.driver = driver;
+            this.query = query;
+            this.keySpace = keySpace;
+            this.fetchSize = fetchSize;
+            this.sessionConfig = SessionConfig.builder().withFetchSize(fetchSize).build();
+            this.window = window;
+            this.loadResult = loadResult;
+            this.rowCount = rowCount;
+            this.done = done;
+        }
+
+        void next() {
+            long startTime = System.nanoTime();
+            if (startTime >= window[1]) {
+                done.countDown();
+                return;
+            }
+            if (mode == Mode.ASYNC) {
+                runAsync(startTime);
+            } else {
+                runReactive(startTime);
+            }
+        }
+
+        private void runAsync(long startTime) {
+            AsyncSession session = driver.asyncSession(sessionConfig);
+            long[] rows = new long[1];
+            session.runAsync(query.getText(),
+                    QueryClient.cypherParameters(query, keySpace, ThreadLocalRandom.current()))
+                    .thenCompose((ResultCursor cursor) -> cursor.forEachAsync(record -> rows[0]++))
+                    .whenComplete((summary, error) -> {
+                        complete(startTime, rows[0], error);
+                        // Continue on another thread so that failures completing synchronously cannot recurse
+                        session.closeAsync().whenCompleteAsync((ignored, closeError) -> next());
+                    });
+        }
+
+        private void runReactive(long startTime) {
+            RxSession session = driver.rxSession(sessionConfig);
+            session.run(query.getText(),
+                    QueryClient.cypherParameters(query, keySpace, ThreadLocalRandom.current())).records().subscribe(new Subscriber<Record>() {
+                private Subscription subscription;
+                private long rows = 0;
+                private long remainingInBatch = 0;
+
+                public void onSubscribe(Subscription subscription) {
+                    this.subscription = subscription;
+                    remainingInBatch = fetchSize;
+                    subscription.request(fetchSize);
+                }
+
+                public void onNext(Record record) {
+                    rows++;
+                    remainingInBatch--;
+                    if (remainingInBatch == 0) {
+                        // Ask for the next batch only after the current one has been consumed
+                        remainingInBatch = fetchSize;
+                        subscription.request(fetchSize);
+                    }
+                }
+
+                public void onError(Throwable error) {
+                    complete(startTime, rows, error);
+                    close(session);
+                }
+
+                public void onComplete() {
+                    complete(startTime, rows, null);
+                    close(session);
+                }
+            });
+        }
+
+        private void close(RxSession session) {
+            session.<Void>close().subscribe(new Subscriber<Void>() {
+                public void onSubscribe(Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                public void onNext(Void ignored) {
+                }
+
+                public void onError(Throwable error) {
+                    ForkJoinPool.commonPool().execute(Slot.this::next);
+                }
+
+                public void onComplete() {
+                    ForkJoinPool.commonPool().execute(Slot.this::next);
+                }
+            });
+        }
+
+        private void complete(long startTime, long rows, Throwable error) {
+            long endTime = System.nanoTime();
+            if (startTime < window[0]) {
+                return;
+            }
+            synchronized (loadResult) {
+                if (error == null) {
+                    loadResult.recordLatency(query, endTime - startTime);
+                    rowCount.addAndGet(rows);
+                } else {
+                    loadResult.recordError(query);
+                    if (loadResult.getErrorCount() == 1) {
+                        error.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+}
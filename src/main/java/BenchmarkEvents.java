@@ -0,0 +1,156 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import org.neo4j.driver.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * JDK Flight Recorder events of the benchmark, so that query latencies and data generation can be lined up with GC
+ * pauses, lock contention and I/O of the benchmark JVM in one recording. Record with e.g.
+ * -XX:StartFlightRecording=filename=benchmark.jfr,settings=profile and open the recording in JDK Mission Control,
+ * the events are in the "Benchmark" category.
+ *
+ * Fields are only filled in if the event is recorded, without a recording an event costs about as much as a
+ * System.nanoTime() call.
+ */
+public class BenchmarkEvents {
+
+    /**
+     * Flush the batch of a data generator statement, recorded as a {@link BatchExecuteEvent} and counted in
+     * {@link IngestProgress}.
+     * @param table table the statement inserts into
+     */
+    public static int[] executeBatch(String table, PreparedStatement statement) throws SQLException {
+        BatchExecuteEvent event = new BatchExecuteEvent();
+        event.begin();
+        int[] updateCounts = statement.executeBatch();
+        event.end();
+        IngestProgress.getInstance().addRows(IngestProgress.Sink.SQL, table, updateCounts.length);
+        if (event.shouldCommit()) {
+            event.set(table, updateCounts.length);
+            event.commit();
+        }
+        return updateCounts;
+    }
+
+    /**
+     * Run a Cypher write of a data generator in a write transaction, recorded as a {@link Neo4jWriteEvent} and
+     * counted in {@link IngestProgress}.
+     * @param label label of the created node or type of the created relationship
+     */
+    public static void writeToNeo4j(Session session, String label, String cypherQuery) {
+        Neo4jWriteEvent event = new Neo4jWriteEvent();
+        event.begin();
+        session.writeTransaction(tx -> tx.run(cypherQuery));
+        event.end();
+        IngestProgress.getInstance().addRows(IngestProgress.Sink.NEO4J, label, 1);
+        if (event.shouldCommit()) {
+            event.set(cypherQuery);
+            event.commit();
+        }
+    }
+
+    /**
+     * One timed execution of a query by {@link QueryTester}.
+     */
+    @Name("benchmark.QueryIteration")
+    @Label("Query Iteration")
+    @Category("Benchmark")
+    @Description("One timed execution of a benchmark query")
+    public static class QueryIterationEvent extends Event {
+        @Label("Query")
+        String queryId;
+
+        @Label("Engine")
+        String engine;
+
+        @Label("Server")
+        String server;
+
+        @Label("Stage")
+        @Description("warmup, steady-state or measured")
+        String stage;
+
+        @Label("Rows")
+        long rowCount;
+
+        @Label("Latency")
+        @Description("Latency measured by the query tester")
+        @Timespan(Timespan.MICROSECONDS)
+        long latency;
+
+        public void set(BenchmarkQuery query, String server, String stage, long rowCount, long latencyMicros) {
+            this.queryId = query.getId();
+            this.engine = query.getEngine().name();
+            this.server = server;
+            this.stage = stage;
+            this.rowCount = rowCount;
+            this.latency = latencyMicros;
+        }
+    }
+
+    /**
+     * One executeBatch flush of a data generator thread.
+     */
+    @Name("benchmark.BatchExecute")
+    @Label("Batch Execute")
+    @Category("Benchmark")
+    @Description("One JDBC batch of inserts flushed by a data generator thread")
+    public static class BatchExecuteEvent extends Event {
+        @Label("Table")
+        String table;
+
+        @Label("Statements")
+        int statementCount;
+
+        public void set(String table, int statementCount) {
+            this.table = table;
+            this.statementCount = statementCount;
+        }
+    }
+
+    /**
+     * One Neo4j write transaction of a data generator thread.
+     */
+    @Name("benchmark.Neo4jWrite")
+    @Label("Neo4j Write")
+    @Category("Benchmark")
+    @Description("One Cypher write transaction of a data generator thread")
+    public static class Neo4jWriteEvent extends Event {
+        @Label("Statement")
+        String statement;
+
+        public void set(String statement) {
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * One insert phase of {@link DataGenerator}, from starting the generator threads until all of them finished.
+     */
+    @Name("benchmark.GeneratorPhase")
+    @Label("Generator Phase")
+    @Category("Benchmark")
+    @Description("One data generation phase, e.g. insertCustomerData")
+    public static class GeneratorPhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Threads")
+        int threadCount;
+
+        @Label("Iterations per Thread")
+        int iterationsPerThread;
+
+        public void set(String phase, int threadCount, int iterationsPerThread) {
+            this.phase = phase;
+            this.threadCount = threadCount;
+            this.iterationsPerThread = iterationsPerThread;
+        }
+    }
+}
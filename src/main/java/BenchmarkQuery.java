@@ -0,0 +1,82 @@
+/**
+ * A benchmarked query: one SQL or Cypher variant of a query family. Queries of the same family return the same
+ * result in both engines, e.g. the "invoice-price" family has a SQL variant and two Cypher variants.
+ */
+public class BenchmarkQuery {
+
+    public enum Engine {
+        SQL,
+        CYPHER
+    }
+
+    private final String id; // Unique within the engine
+    private final String family;
+    private final Engine engine;
+    private final String text;
+    private final String keyParameter; // Name of the key parameter, null if the query takes no parameters
+
+    public BenchmarkQuery(String id, String family, Engine engine, String text) {
+        this(id, family, engine, text, null);
+    }
+
+    /**
+     * @param keyParameter name of the key the query takes, e.g. "invoiceId". SQL texts bind it as their only "?"
+     *                     parameter, Cypher texts as "$" followed by the name.
+     */
+    public BenchmarkQuery(String id, String family, Engine engine, String text, String keyParameter) {
+        this.id = id;
+        this.family = family;
+        this.engine = engine;
+        this.text = text;
+        this.keyParameter = keyParameter;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFamily() {
+        return family;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getKeyParameter() {
+        return keyParameter;
+    }
+
+    public boolean isParameterized() {
+        return keyParameter != null;
+    }
+
+    /**
+     * Get the text with the key written in as a literal, for executors that cannot bind parameters.
+     */
+    public String getTextWithKey(long key) {
+        if (keyParameter == null) {
+            return text;
+        }
+        if (engine == Engine.SQL) {
+            return text.replace("?", Long.toString(key));
+        }
+        return text.replace("$" + keyParameter, Long.toString(key));
+    }
+
+    /**
+     * Get name of the query that is unique across engines, e.g. "CYPHER invoice-price-call".
+     */
+    public String getName() {
+        return engine + " " + id;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
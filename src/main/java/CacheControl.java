@@ -0,0 +1,186 @@
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puts the caches of the DBMSs into a {@link CacheState} before queries are measured.
+ *
+ * Warm: pg_prewarm reads every table and index of the warehouse database into shared_buffers, the extension is
+ * created when needed. Neo4j scans every node and relationship with their properties, which pulls the node,
+ * relationship and property stores into the page cache.
+ *
+ * Cold: a client cannot evict shared_buffers, the Neo4j page cache or the page cache of the operating system, only
+ * a restart can. If an evict command is set it is run before every cold iteration, e.g. "docker compose restart
+ * postgresql neo4j && sync && echo 3 > /proc/sys/vm/drop_caches", with BENCHMARK_ENGINE set to SQL or CYPHER so
+ * it can restart only the DBMS of the query, and the DBMS is waited for until it accepts connections again. Without
+ * a command only what is per connection is cold: the query runs on a fresh connection after DISCARD ALL, so the
+ * catalog caches and prepared plans of the backend are empty, and Neo4j clears its query caches.
+ */
+public class CacheControl {
+
+    private static final long RESTART_TIMEOUT_MILLIS = 120000; // Time a DBMS gets to come back after the command
+
+    private static final String PREWARM_SQL = "SELECT COALESCE(SUM(pg_prewarm(c.oid::regclass)), 0) AS blocks " +
+            "FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "WHERE n.nspname = 'public' AND c.relkind IN ('r', 'i')";
+    private static final String SCAN_NODES_CYPHER = "MATCH (n) WITH n, properties(n) AS p " +
+            "RETURN count(n) AS entities, sum(size(keys(p))) AS properties";
+    private static final String SCAN_RELATIONSHIPS_CYPHER = "MATCH ()-[r]->() WITH r, properties(r) AS p " +
+            "RETURN count(r) AS entities, sum(size(keys(p))) AS properties";
+
+    private final String evictCommand;
+    private boolean warned = false;
+
+    /**
+     * @param evictCommand shell command that evicts the caches before every cold iteration, null for none
+     */
+    public CacheControl(String evictCommand) {
+        this.evictCommand = evictCommand;
+    }
+
+    /**
+     * @return whether cold iterations run the evict command, which may restart the DBMS and close every connection
+     *         opened before
+     */
+    public boolean hasEvictCommand() {
+        return evictCommand != null;
+    }
+
+    /**
+     * Evict the caches of a PostgreSQL DBMS and open the connection a cold iteration runs on.
+     * @param db_url SQL connection URL without database name
+     * @param db_settings SQL settings array containing SQL driver name, username and password
+     * @return fresh connection to the "warehouse" database
+     */
+    public Connection coldConnectionSQL(String db_url, String[] db_settings) throws Exception {
+        Class.forName(db_settings[0]);
+        if (evictCommand != null) {
+            runEvictCommand(BenchmarkQuery.Engine.SQL);
+            long deadline = System.currentTimeMillis() + RESTART_TIMEOUT_MILLIS;
+            while (true) {
+                try {
+                    return DriverManager.getConnection(db_url + "warehouse", db_settings[1], db_settings[2]);
+                } catch (SQLException e) {
+                    if (System.currentTimeMillis() > deadline) {
+                        throw e;
+                    }
+                    Thread.sleep(500);
+                }
+            }
+        }
+        warnOnce();
+        Connection connection = DriverManager.getConnection(db_url + "warehouse", db_settings[1], db_settings[2]);
+        Statement stmt = connection.createStatement();
+        stmt.execute("DISCARD ALL");
+        stmt.close();
+        return connection;
+    }
+
+    /**
+     * Evict the caches of Neo4j and open the driver a cold iteration runs on.
+     * @return fresh driver, the caller closes it
+     */
+    public org.neo4j.driver.Driver coldDriverCypher(HashMap<String, String> neo4j_settings) throws Exception {
+        String neo4j_db_url = neo4j_settings.get("NEO4J_DB_URL");
+        String neo4j_username = neo4j_settings.get("NEO4J_USERNAME");
+        String neo4j_password = neo4j_settings.get("NEO4J_PASSWORD");
+        if (evictCommand != null) {
+            runEvictCommand(BenchmarkQuery.Engine.CYPHER);
+        } else {
+            warnOnce();
+        }
+        long deadline = System.currentTimeMillis() + RESTART_TIMEOUT_MILLIS;
+        while (true) {
+            org.neo4j.driver.Driver driver = GraphDatabase.driver(neo4j_db_url,
+                    AuthTokens.basic(neo4j_username, neo4j_password));
+            try {
+                driver.verifyConnectivity();
+                if (evictCommand == null) {
+                    Session session = driver.session();
+                    session.run("CALL db.clearQueryCaches()").consume();
+                    session.close();
+                }
+                return driver;
+            } catch (Exception e) {
+                driver.close();
+                if (evictCommand == null || System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(500);
+            }
+        }
+    }
+
+    /**
+     * Read every table and index of the "warehouse" database into shared_buffers.
+     */
+    public void warmSQL(Connection connection) {
+        try {
+            Statement stmt = connection.createStatement();
+            stmt.execute("CREATE EXTENSION IF NOT EXISTS pg_prewarm");
+            long startTime = System.nanoTime();
+            ResultSet resultSet = stmt.executeQuery(PREWARM_SQL);
+            resultSet.next();
+            long blocks = resultSet.getLong("blocks");
+            resultSet.close();
+            stmt.close();
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+            System.out.println("Prewarmed " + blocks + " blocks of the warehouse tables and indexes in " +
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms.");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Read every node and relationship with its properties into the page cache.
+     */
+    public void warmCypher(Session session) {
+        long startTime = System.nanoTime();
+        Record nodes = session.run(SCAN_NODES_CYPHER).single();
+        Record relationships = session.run(SCAN_RELATIONSHIPS_CYPHER).single();
+        System.out.println("Prewarmed " + nodes.get("entities").asLong() + " nodes and " +
+                relationships.get("entities").asLong() + " relationships with " +
+                (nodes.get("properties").asLong() + relationships.get("properties").asLong()) + " properties in " +
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms.");
+    }
+
+    private void runEvictCommand(BenchmarkQuery.Engine engine) throws Exception {
+        ProcessBuilder builder = new ProcessBuilder("/bin/sh", "-c", evictCommand).redirectErrorStream(true);
+        builder.environment().put("BENCHMARK_ENGINE", engine.name());
+        Process process = builder.start();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            System.out.println(line);
+        }
+        reader.close();
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new Exception("Cache evict command exited with " + exitCode + ": " + evictCommand);
+        }
+    }
+
+    private void warnOnce() {
+        if (!warned) {
+            System.out.println("No cache evict command set, cold iterations only start on a fresh connection. " +
+                    "shared_buffers, the Neo4j page cache and the OS page cache stay as they are.");
+            warned = true;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * State of the buffer caches of the DBMSs when a query is measured, see {@link CacheControl}.
+ */
+public enum CacheState {
+    AS_IS, // Whatever the data generation and the previous queries left in the caches
+    COLD, // Every measured iteration runs on a fresh connection after the caches were evicted
+    WARM; // The warehouse tables and indexes and the whole Neo4j graph were read into the caches before
+
+    /**
+     * @return label appended to the DBMS name in reports, empty for AS_IS
+     */
+    public String getLabel() {
+        return (this == AS_IS) ? "" : ", " + name().toLowerCase() + " caches";
+    }
+
+    /**
+     * Parse "cold", "warm" or "both" (cold, then warm).
+     */
+    public static CacheState[] parse(String states) {
+        if (states.equalsIgnoreCase("both")) {
+            return new CacheState[] {COLD, WARM};
+        }
+        return new CacheState[] {valueOf(states.toUpperCase())};
+    }
+}
@@ -0,0 +1,155 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Searches for the highest request rate at which a query keeps its p99 latency under a latency objective.
+ *
+ * Every probe holds a constant open-loop rate for a fixed window. The rate is doubled until a probe fails, then the
+ * range between the last passing and the first failing rate is bisected until it is narrower than the tolerance.
+ * A probe fails if its p99 latency, measured from the intended send times, exceeds the objective or if any request
+ * fails or misses the drain deadline.
+ */
+public class CapacitySearch {
+
+    private static final double INITIAL_RATE = 1; // Requests per second of the first probe
+    private static final double MAX_RATE = 100000;
+    private static final double TOLERANCE = 0.05; // Stop bisecting when the range is narrower than 5 %
+    private static final int MAX_PROBES = 20;
+
+    private final OpenLoopLoadGenerator generator;
+    private final long sloMicros; // p99 latency objective
+    private final long probeMillis;
+    private final long warmupMillis;
+    private final int workerCount;
+
+    // Capacity rows of the report, in the order they were searched
+    private final List<String[]> capacities = new ArrayList<String[]>();
+
+    /**
+     * @param generator open-loop generator the probes are run with
+     * @param sloMicros p99 latency objective in microseconds
+     * @param probeMillis measured duration of every probe
+     * @param warmupMillis duration at the start of every probe whose latencies are discarded
+     * @param workerCount number of open-loop workers, i.e. the maximum number of requests in flight
+     */
+    public CapacitySearch(OpenLoopLoadGenerator generator, long sloMicros, long probeMillis, long warmupMillis,
+                          int workerCount) {
+        this.generator = generator;
+        this.sloMicros = sloMicros;
+        this.probeMillis = probeMillis;
+        this.warmupMillis = warmupMillis;
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Find the capacity of every query family in both engines. The capacity of an engine is that of its fastest
+     * variant of the family.
+     * @param queries queries to search, grouped into families by {@link BenchmarkQuery#getFamily()}
+     * @param indexState description of the index state used in reports, e.g. "NO INDEXES"
+     */
+    public void searchFamilies(List<BenchmarkQuery> queries, String indexState) {
+        LinkedHashMap<String, List<BenchmarkQuery>> families = new LinkedHashMap<String, List<BenchmarkQuery>>();
+        for (BenchmarkQuery query : queries) {
+            if (!families.containsKey(query.getFamily())) {
+                families.put(query.getFamily(), new ArrayList<BenchmarkQuery>());
+            }
+            families.get(query.getFamily()).add(query);
+        }
+        for (Map.Entry<String, List<BenchmarkQuery>> family : families.entrySet()) {
+            for (BenchmarkQuery.Engine engine : BenchmarkQuery.Engine.values()) {
+                double bestCapacity = -1;
+                BenchmarkQuery bestQuery = null;
+                for (BenchmarkQuery query : family.getValue()) {
+                    if (query.getEngine() != engine) {
+                        continue;
+                    }
+                    double capacity = findCapacity(query, indexState);
+                    if (capacity > bestCapacity) {
+                        bestCapacity = capacity;
+                        bestQuery = query;
+                    }
+                }
+                if (bestQuery != null) {
+                    capacities.add(new String[]{family.getKey(), indexState, engine.toString(),
+                            (bestCapacity > 0) ? String.format("%.1f", bestCapacity) :
+                                    String.format("below %.1f", INITIAL_RATE), bestQuery.getId()});
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the highest rate at which the query keeps its p99 latency under the objective.
+     * @param query query to send
+     * @param indexState description of the index state used in reports, e.g. "NO INDEXES"
+     * @return capacity in requests per second, 0 if even the initial rate misses the objective. The search stops
+     *     then, lower rates are not probed.
+     */
+    public double findCapacity(BenchmarkQuery query, String indexState) {
+        QueryMix mix = new QueryMix().add(query, 1);
+        double passingRate = 0;
+        double failingRate = -1;
+        double rate = INITIAL_RATE;
+        int probes = 0;
+
+        System.out.println("Searching capacity of " + query + " (" + indexState + ") with p99 objective " +
+                sloMicros / 1000.0 + " ms.");
+        while (probes < MAX_PROBES) {
+            probes++;
+            boolean passed = probe(mix, query, rate, indexState);
+            if (passed) {
+                passingRate = rate;
+            } else {
+                failingRate = rate;
+            }
+            if (!passed && rate <= INITIAL_RATE) {
+                // Bisecting below the minimum rate cannot find a passing rate, every probe would fail the same way
+                System.out.println(String.format("Capacity of %s (%s): below the minimum rate of %.1f requests/s.",
+                        query, indexState, INITIAL_RATE));
+                System.out.println();
+                return 0;
+            }
+            if (failingRate < 0) {
+                // No failing rate yet, keep doubling
+                if (rate >= MAX_RATE) {
+                    break;
+                }
+                rate = Math.min(rate * 2, MAX_RATE);
+            } else {
+                if (failingRate - passingRate <= TOLERANCE * Math.max(passingRate, INITIAL_RATE)) {
+                    break;
+                }
+                rate = (passingRate + failingRate) / 2;
+            }
+        }
+        System.out.println(String.format("Capacity of %s (%s): %.1f requests/s after %d probes.", query,
+                indexState, passingRate, probes));
+        System.out.println();
+        return passingRate;
+    }
+
+    private boolean probe(QueryMix mix, BenchmarkQuery query, double rate, String indexState) {
+        LoadResult result = generator.run(mix, RateSchedule.constant(rate), OpenLoopLoadGenerator.ArrivalProcess.POISSON,
+                workerCount, probeMillis, warmupMillis, indexState);
+        LatencyHistogram histogram = result.getQueryHistogram(query.getName());
+        long p99 = histogram.getValueAtPercentile(99);
+        boolean passed = histogram.getTotalCount() > 0 && result.getErrorCount() == 0 && p99 <= sloMicros;
+        System.out.println(String.format("Probe at %.1f requests/s: p99 %.3f ms, %d completed, %d errors, %s.",
+                rate, p99 / 1000.0, histogram.getTotalCount(), result.getErrorCount(), passed ? "passed" : "failed"));
+        return passed;
+    }
+
+    /**
+     * Print the capacity of every query family, index state and engine that has been searched.
+     */
+    public void printReport() {
+        System.out.println("Max sustainable throughput with p99 <= " + sloMicros / 1000.0 + " ms:");
+        System.out.println("family, index state, engine, capacity (requests/s), fastest variant");
+        for (String[] capacity : capacities) {
+            System.out.println(String.join(", ", capacity));
+        }
+        System.out.println();
+    }
+}
@@ -0,0 +1,214 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Resources the benchmark JVM itself used while running a query, to separate client overhead such as result
+ * deserialization in the driver from time spent in the server. Measures CPU time and allocated bytes of the calling
+ * thread and of the whole JVM, which includes the I/O threads of the Neo4j driver that decode the records, plus
+ * garbage collections and peak heap usage.
+ *
+ * Start it right before the measured iterations on the thread that runs them and stop it right after. Allocation
+ * counts of threads that start or end in between are lost. Work that is not part of a query execution, such as
+ * printing progress or opening a new connection for a cold cache iteration, is left out between {@link #pause} and
+ * {@link #resume}. Garbage collections and peak heap cover the whole time.
+ */
+public class ClientResourceUsage {
+
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private final long startThreadCpu;
+    private final long startJvmCpu;
+    private final long startThreadAllocated;
+    private final long startJvmAllocated;
+    private final long startGcCount;
+    private final long startGcTime;
+    private final HeapSampler heapSampler = new HeapSampler();
+
+    // Resources used while paused, subtracted at the end
+    private long pausedThreadCpu;
+    private long pausedJvmCpu;
+    private long pausedThreadAllocated;
+    private long pausedJvmAllocated;
+    private long[] pauseStart = null; // Counters at the start of the current pause, null if not paused
+    private boolean stopped = false;
+
+    private int iterations;
+    private long threadCpuNanos;
+    private long jvmCpuNanos;
+    private long threadAllocatedBytes;
+    private long jvmAllocatedBytes;
+    private long gcCount;
+    private long gcTimeMillis;
+    private long peakHeapBytes;
+
+    private ClientResourceUsage() {
+        heapSampler.start();
+        startGcCount = gcCount();
+        startGcTime = gcTime();
+        startJvmAllocated = jvmAllocatedBytes();
+        startThreadAllocated = threadAllocatedBytes();
+        startJvmCpu = jvmCpuTime();
+        startThreadCpu = threadCpuTime();
+    }
+
+    /**
+     * Start measuring on the calling thread.
+     */
+    public static ClientResourceUsage start() {
+        return new ClientResourceUsage();
+    }
+
+    /**
+     * Stop counting CPU time and allocations until {@link #resume}, on the thread that started measuring.
+     */
+    public void pause() {
+        if (stopped || pauseStart != null) {
+            return;
+        }
+        pauseStart = new long[] {threadCpuTime(), jvmCpuTime(), threadAllocatedBytes(), jvmAllocatedBytes()};
+    }
+
+    /**
+     * Count CPU time and allocations again after {@link #pause}.
+     */
+    public void resume() {
+        if (stopped || pauseStart == null) {
+            return;
+        }
+        pausedJvmAllocated += difference(pauseStart[3], jvmAllocatedBytes());
+        pausedThreadAllocated += difference(pauseStart[2], threadAllocatedBytes());
+        pausedJvmCpu += difference(pauseStart[1], jvmCpuTime());
+        pausedThreadCpu += difference(pauseStart[0], threadCpuTime());
+        pauseStart = null;
+    }
+
+    /**
+     * Stop measuring, on the thread that started it.
+     * @param iterations number of query executions measured, for the per iteration figures
+     */
+    public void stop(int iterations) {
+        resume();
+        stopped = true;
+        this.threadCpuNanos = unpaused(difference(startThreadCpu, threadCpuTime()), pausedThreadCpu);
+        this.jvmCpuNanos = unpaused(difference(startJvmCpu, jvmCpuTime()), pausedJvmCpu);
+        this.threadAllocatedBytes = unpaused(difference(startThreadAllocated, threadAllocatedBytes()),
+                pausedThreadAllocated);
+        this.jvmAllocatedBytes = unpaused(difference(startJvmAllocated, jvmAllocatedBytes()), pausedJvmAllocated);
+        this.gcCount = gcCount() - startGcCount;
+        this.gcTimeMillis = gcTime() - startGcTime;
+        this.peakHeapBytes = heapSampler.stopSampling();
+        this.iterations = iterations;
+    }
+
+    /**
+     * @return CPU time of the calling thread in nanoseconds, -1 if the JVM does not measure it
+     */
+    public long getThreadCpuNanos() {
+        return threadCpuNanos;
+    }
+
+    /**
+     * @return CPU time of every thread of the JVM in nanoseconds, -1 if the JVM does not measure it
+     */
+    public long getJvmCpuNanos() {
+        return jvmCpuNanos;
+    }
+
+    /**
+     * @return bytes allocated by the calling thread, -1 if the JVM does not measure it
+     */
+    public long getThreadAllocatedBytes() {
+        return threadAllocatedBytes;
+    }
+
+    /**
+     * @return bytes allocated by every live thread of the JVM, -1 if the JVM does not measure it
+     */
+    public long getJvmAllocatedBytes() {
+        return jvmAllocatedBytes;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    public long getGcTimeMillis() {
+        return gcTimeMillis;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public String toString() {
+        int n = Math.max(1, iterations);
+        return String.format("client CPU %.3f ms/iteration (calling thread %.3f ms), allocated %.1f KB/iteration " +
+                        "(calling thread %.1f KB), %d GCs taking %d ms, peak heap %.1f MB",
+                jvmCpuNanos / 1e6 / n, threadCpuNanos / 1e6 / n, jvmAllocatedBytes / 1024.0 / n,
+                threadAllocatedBytes / 1024.0 / n, gcCount, gcTimeMillis, peakHeapBytes / (1024.0 * 1024.0));
+    }
+
+    private static long difference(long start, long end) {
+        return (start < 0 || end < 0) ? -1 : end - start;
+    }
+
+    private static long unpaused(long total, long paused) {
+        return (total < 0 || paused < 0) ? -1 : Math.max(0, total - paused);
+    }
+
+    private static long threadCpuTime() {
+        return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long jvmCpuTime() {
+        java.lang.management.OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+        if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    private static long threadAllocatedBytes() {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static long jvmAllocatedBytes() {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            long sum = 0;
+            for (long allocated : ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(
+                    threadBean.getAllThreadIds())) {
+                if (allocated > 0) {
+                    sum += allocated;
+                }
+            }
+            return sum;
+        }
+        return -1;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gcBean.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gcBean.getCollectionTime());
+        }
+        return time;
+    }
+}
@@ -0,0 +1,235 @@
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Config;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Session;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop load generator. Every client owns its own JDBC connection and Neo4j session and sends the next query
+ * of the mix as soon as the previous one has returned all of its rows, so the offered load depends on how fast the
+ * databases answer. Running the same mix at several client counts gives throughput versus latency curves.
+ */
+public class ClosedLoopLoadDriver {
+
+    private final String db_url; // SQL connection URL of the DBMS, this URL contains no database name.
+    private final String[] db_settings;
+    private final HashMap<String, String> neo4j_settings;
+
+    private ThreadMode threadMode = ThreadMode.PLATFORM; // Kind of threads the clients run on
+    private KeySpace keySpace = new KeySpace(); // Keys of the parameterized queries
+
+    public ClosedLoopLoadDriver(String db_url, String[] db_settings, HashMap<String, String> neo4j_settings) {
+        this.db_url = db_url;
+        this.db_settings = db_settings;
+        this.neo4j_settings = neo4j_settings;
+    }
+
+    public void setThreadMode(ThreadMode threadMode) {
+        this.threadMode = threadMode;
+    }
+
+    /**
+     * Set the key space the keys of the parameterized queries are drawn from.
+     */
+    public void setKeySpace(KeySpace keySpace) {
+        this.keySpace = keySpace;
+    }
+
+    /**
+     * Run the query mix with every client count in turn and print a throughput versus latency table at the end.
+     * @param mix queries the clients pick from
+     * @param clientCounts numbers of concurrent clients
+     * @param durationMillis measured duration of every run
+     * @param warmupMillis duration at the start of every run whose latencies are discarded
+     * @param label description of the database state used in reports, e.g. "NO INDEXES"
+     * @return result of every run in the order of the client counts
+     */
+    public List<LoadResult> runConcurrencyLevels(QueryMix mix, int[] clientCounts, long durationMillis,
+                                                 long warmupMillis, String label) {
+        List<LoadResult> loadResults = new ArrayList<LoadResult>();
+        for (int clientCount : clientCounts) {
+            LoadResult loadResult = run(mix, clientCount, durationMillis, warmupMillis, label);
+            loadResult.print(System.out);
+            loadResults.add(loadResult);
+        }
+        printCurves(loadResults, mix, label);
+        return loadResults;
+    }
+
+    /**
+     * Run the query mix with the given number of concurrent clients.
+     * @param mix queries the clients pick from
+     * @param clientCount number of concurrent clients
+     * @param durationMillis measured duration of the run
+     * @param warmupMillis duration at the start of the run whose latencies are discarded
+     * @param label description of the database state used in reports, e.g. "NO INDEXES"
+     */
+    public LoadResult run(QueryMix mix, int clientCount, long durationMillis, long warmupMillis, String label) {
+        String neo4j_db_url = neo4j_settings.get("NEO4J_DB_URL");
+        String neo4j_username = neo4j_settings.get("NEO4J_USERNAME");
+        String neo4j_password = neo4j_settings.get("NEO4J_PASSWORD");
+        // Every client holds a session for the whole run, the pool must not make them queue for connections
+        Config config = Config.builder().withMaxConnectionPoolSize(Math.max(clientCount, 100)).build();
+        org.neo4j.driver.Driver driver = GraphDatabase.driver(neo4j_db_url,
+                AuthTokens.basic(neo4j_username, neo4j_password), config);
+        LoadResult loadResult = new LoadResult(label + ", " + clientCount + " clients",
+                TimeUnit.MILLISECONDS.toNanos(durationMillis));
+        ExecutorService executor = threadMode.newExecutor(clientCount);
+        CountDownLatch ready = new CountDownLatch(clientCount);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] window = new long[2]; // Start and end of the measured part of the run, set before start opens
+        List<Future<LoadResult>> futures = new ArrayList<Future<LoadResult>>();
+
+        System.out.println("Running closed-loop load with " + clientCount + " clients for " + durationMillis +
+                " ms after " + warmupMillis + " ms warmup (" + label + ").");
+        try {
+            for (int i = 0; i < clientCount; i++) {
+                futures.add(executor.submit(new Client(i, mix, driver, ready, start, window)));
+            }
+            ready.await();
+            window[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+            window[1] = window[0] + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+            start.countDown();
+            for (Future<LoadResult> future : futures) {
+                try {
+                    loadResult.add(future.get());
+                } catch (ExecutionException e) {
+                    // A client that could not connect fails as a whole, keep the results of the others
+                    loadResult.recordFailedClient();
+                    if (loadResult.getFailedClientCount() == 1) {
+                        e.getCause().printStackTrace();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            executor.shutdownNow();
+            driver.close();
+        }
+        return loadResult;
+    }
+
+    /**
+     * Print throughput and latency percentiles of every run, overall and per query.
+     */
+    public static void printCurves(List<LoadResult> loadResults, QueryMix mix, String label) {
+        System.out.println("Throughput versus latency (" + label + "):");
+        System.out.println("run, throughput (queries/s), p50 (ms), p99 (ms), p99.9 (ms), errors, failed clients");
+        for (LoadResult loadResult : loadResults) {
+            LatencyHistogram combined = loadResult.getCombinedHistogram();
+            System.out.println(String.format("%s, %.1f, %.3f, %.3f, %.3f, %d, %d", loadResult.getLabel(),
+                    loadResult.getThroughput(), combined.getValueAtPercentile(50) / 1000.0,
+                    combined.getValueAtPercentile(99) / 1000.0, combined.getValueAtPercentile(99.9) / 1000.0,
+                    loadResult.getErrorCount(), loadResult.getFailedClientCount()));
+        }
+        for (BenchmarkQuery query : mix.getQueries()) {
+            System.out.println(query.getName() + ":");
+            for (LoadResult loadResult : loadResults) {
+                LatencyHistogram histogram = loadResult.getQueryHistogram(query.getName());
+                System.out.println(String.format("%s, %.1f, %.3f, %.3f, %.3f", loadResult.getLabel(),
+                        loadResult.getQueryThroughput(query.getName()), histogram.getValueAtPercentile(50) / 1000.0,
+                        histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0));
+            }
+        }
+        System.out.println();
+    }
+
+    /**
+     * One client of the closed loop, sends queries back to back until the end of the run.
+     */
+    private class Client implements Callable<LoadResult> {
+
+        private final int clientIndex;
+        private final QueryMix mix;
+        private final org.neo4j.driver.Driver driver;
+        private final CountDownLatch ready;
+        private final CountDownLatch start;
+        private final long[] window;
+
+        Client(int clientIndex, QueryMix mix, org.neo4j.driver.Driver driver, CountDownLatch ready,
+               CountDownLatch start, long[] window) {
+            this.clientIndex = clientIndex;
+            this.mix = mix;
+            this.driver = driver;
+            this.ready = ready;
+            this.start = start;
+            this.window = window;
+        }
+
+        public LoadResult call() throws Exception {
+            LoadResult clientResult = new LoadResult("client " + clientIndex, 0);
+            Random random = new Random(clientIndex);
+            Connection connection = null;
+            Session session = null;
+            QueryClient client = null;
+            try {
+                if (mix.containsEngine(BenchmarkQuery.Engine.SQL)) {
+                    Class.forName(db_settings[0]);
+                    connection = DriverManager.getConnection(db_url + "warehouse", db_settings[1], db_settings[2]);
+                }
+                if (mix.containsEngine(BenchmarkQuery.Engine.CYPHER)) {
+                    session = driver.session();
+                }
+                client = new QueryClient(connection, session, keySpace, random);
+            } finally {
+                // Count down even if connecting failed, otherwise the other clients would wait forever
+                ready.countDown();
+            }
+            start.await();
+            try {
+                while (true) {
+                    BenchmarkQuery query = mix.next(random);
+                    long startTime = System.nanoTime();
+                    if (startTime >= window[1]) {
+                        break;
+                    }
+                    try {
+                        client.execute(query);
+                        long endTime = System.nanoTime();
+                        // Queries started during warmup are discarded. Queries still running at the end of the run
+                        // are kept, dropping them would hide exactly the slowest executions.
+                        if (startTime >= window[0]) {
+                            clientResult.recordLatency(query, endTime - startTime);
+                        }
+                    } catch (Exception e) {
+                        if (startTime >= window[0]) {
+                            clientResult.recordError(query);
+                        }
+                        if (clientResult.getErrorCount() == 1) {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            } finally {
+                if (client != null) {
+                    client.close();
+                }
+                if (session != null) {
+                    session.close();
+                }
+                if (connection != null) {
+                    try {
+                        connection.close();
+                    } catch (SQLException se) {
+                        se.printStackTrace();
+                    }
+                }
+            }
+            return clientResult;
+        }
+    }
+}
@@ -9,9 +9,9 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class DataGenerator {
@@ -27,12 +27,96 @@ public class DataGenerator {
     private List<HashMap<String, String>> addresses; // List of addresses in the "testdata" database, 
                                                      // addresses are stored in the HashMap like <column_name, value>.
 
+    private ThreadMode threadMode = ThreadMode.PLATFORM; // Kind of threads the insertion workers run on
+    private long progressIntervalMillis = 10000; // Time between two progress reports of an insertion phase
+    private boolean sampleServerStatistics = false; // Report the server counter deltas of every insertion phase
+
+    private static final int WRITER_ID_RANGE = 1000000; // Customers a writer of the mixed workload can insert
+
     public DataGenerator(HashMap<String, String[]> sql_databases, HashMap<String, String> neo4j_settings, String default_db_url) {
         this.sql_databases = sql_databases;
         this.neo4j_settings = neo4j_settings;
         this.default_db_url = default_db_url;
     }
 
+    public void setThreadMode(ThreadMode threadMode) {
+        this.threadMode = threadMode;
+    }
+
+    /**
+     * @param progressIntervalMillis time between two progress reports of an insertion phase, 0 for none
+     */
+    public void setProgressInterval(long progressIntervalMillis) {
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+
+    /**
+     * Snapshot the counters of every DBMS before and after every insertion phase and print the deltas, see
+     * {@link ServerStatistics}.
+     */
+    public void setSampleServerStatistics(boolean sampleServerStatistics) {
+        this.sampleServerStatistics = sampleServerStatistics;
+    }
+
+    /**
+     * Snapshot the counters of every SQL DBMS and Neo4j before an insertion phase.
+     * @return snapshot of every DBMS, null if server statistics are not sampled
+     */
+    private LinkedHashMap<ServerStatistics, LinkedHashMap<String, Long>> snapshotServerStatistics() {
+        if (!sampleServerStatistics) {
+            return null;
+        }
+        LinkedHashMap<ServerStatistics, LinkedHashMap<String, Long>> snapshots =
+                new LinkedHashMap<ServerStatistics, LinkedHashMap<String, Long>>();
+        for (String db_url : sql_databases.keySet()) {
+            // The generator threads close their connections, which flushes their statistics
+            ServerStatistics statistics = ServerStatistics.forSQL(db_url, sql_databases.get(db_url), null);
+            snapshots.put(statistics, statistics.snapshot());
+        }
+        ServerStatistics statistics = ServerStatistics.forNeo4j(neo4j_settings);
+        snapshots.put(statistics, statistics.snapshot());
+        return snapshots;
+    }
+
+    /**
+     * Print the deltas of the counters of every DBMS since the snapshots taken before an insertion phase.
+     * @param snapshots snapshots taken before the phase, null if server statistics are not sampled
+     */
+    private void printServerStatistics(String phase,
+                                       LinkedHashMap<ServerStatistics, LinkedHashMap<String, Long>> snapshots) {
+        if (snapshots == null) {
+            return;
+        }
+        for (ServerStatistics statistics : snapshots.keySet()) {
+            LinkedHashMap<String, Long> delta = ServerStatistics.delta(snapshots.get(statistics), statistics.snapshot());
+            System.out.println(phase + " server statistics of " + statistics.getName() + ": " +
+                    ServerStatistics.format(delta));
+            statistics.close();
+        }
+    }
+
+    /**
+     * Reset the ingest progress counters for an insertion phase and start reporting its progress.
+     */
+    private IngestProgressReporter startProgress(String phase, long expectedRecords) {
+        IngestProgress progress = IngestProgress.getInstance();
+        progress.startPhase(phase, expectedRecords);
+        IngestProgressReporter reporter = new IngestProgressReporter(progress, progressIntervalMillis);
+        reporter.start();
+        return reporter;
+    }
+
+    /**
+     * Stop reporting the progress of a phase that did not reach its end, e.g. because it threw, so that the reporter
+     * does not keep printing.
+     */
+    private void stopProgress(IngestProgressReporter reporter) {
+        if (reporter != null && reporter.isAlive()) {
+            IngestProgress.getInstance().finishPhase();
+            reporter.stopReporting();
+        }
+    }
+
     /**
      * Executes SQL update (insert, delete, update etc.) query in the database.
      * @param sqlQuery query to run
@@ -546,6 +630,66 @@ public class DataGenerator {
         }
     }
 
+    /**
+     * Delete every customer, invoice and target with an id above the given ones together with their work links,
+     * e.g. those inserted by the writers of {@link MixedWorkload}. Deletes in the order that does not violate foreign
+     * key constraints and vacuums the SQL tables afterwards, so that the dead rows do not slow down later queries.
+     */
+    public void cleanCustomersAfter(int lastCustomerId, int lastInvoiceId, int lastTargetId) {
+        String neo4j_db_url = neo4j_settings.get("NEO4J_DB_URL");
+        String neo4j_username = neo4j_settings.get("NEO4J_USERNAME");
+        String neo4j_password = neo4j_settings.get("NEO4J_PASSWORD");
+        org.neo4j.driver.Driver driver = GraphDatabase.driver(neo4j_db_url, AuthTokens.basic(neo4j_username, neo4j_password));
+        Session session = driver.session();
+        session.run("MATCH (i:invoice) WHERE i.invoiceId > " + lastInvoiceId + 
+                " CALL { WITH i DETACH DELETE i } IN TRANSACTIONS OF 10000 ROWS").consume();
+        session.run("MATCH (t:target) WHERE t.targetId > " + lastTargetId + 
+                " CALL { WITH t DETACH DELETE t } IN TRANSACTIONS OF 10000 ROWS").consume();
+        session.run("MATCH (c:customer) WHERE c.customerId > " + lastCustomerId + 
+                " CALL { WITH c DETACH DELETE c } IN TRANSACTIONS OF 10000 ROWS").consume();
+        session.close();
+        driver.close();
+        for (String db_url : sql_databases.keySet()) {
+            String[] db_settings = sql_databases.get(db_url);
+            executeSQLUpdate("DELETE FROM workinvoice WHERE invoiceId > " + lastInvoiceId, db_url + "warehouse", 
+                    db_settings);
+            executeSQLUpdate("DELETE FROM worktarget WHERE targetId > " + lastTargetId, db_url + "warehouse", 
+                    db_settings);
+            executeSQLUpdate("DELETE FROM invoice WHERE id > " + lastInvoiceId, db_url + "warehouse", db_settings);
+            executeSQLUpdate("DELETE FROM target WHERE id > " + lastTargetId, db_url + "warehouse", db_settings);
+            executeSQLUpdate("DELETE FROM customer WHERE id > " + lastCustomerId, db_url + "warehouse", db_settings);
+            executeSQLUpdate("VACUUM ANALYZE", db_url + "warehouse", db_settings);
+        }
+    }
+
+    /**
+     * Create a thread that inserts customers with their invoices, targets and work links like
+     * {@link #insertCustomerData} until it is stopped with {@link DataGeneratorThreadCustomer#stopAt(long)}. Every
+     * writer inserts into its own id range above the current ids.
+     * @param engine DBMS the thread writes to, SQL for every SQL DBMS
+     * @param writerIndex index of the writer, selects its id range
+     */
+    public DataGeneratorThreadCustomer newCustomerWriter(BenchmarkQuery.Engine engine, int writerIndex) 
+            throws Exception {
+        if (firstnames == null) {
+            getSampleData();
+        }
+        int workCount = getWorkCount();
+        if (workCount < 1) {
+            throw new Exception("Work count is smaller than 1!");
+        }
+        int customerIndex = getLastCustomerId() + 1 + writerIndex * WRITER_ID_RANGE;
+        int invoiceIndex = getLastInvoiceId() + 1 + writerIndex * WRITER_ID_RANGE * ScaleFactor.INVOICE_FACTOR;
+        int targetIndex = getLastTargetId() + 1 + writerIndex * WRITER_ID_RANGE * ScaleFactor.TARGET_FACTOR;
+        DataGeneratorThreadCustomer thread = new DataGeneratorThreadCustomer(writerIndex, WRITER_ID_RANGE, 
+                ScaleFactor.BATCH_SIZE, (engine == BenchmarkQuery.Engine.SQL) ? sql_databases : 
+                new HashMap<String, String[]>(), neo4j_settings, new ReentrantLock(), ScaleFactor.INVOICE_FACTOR, 
+                ScaleFactor.TARGET_FACTOR, ScaleFactor.WORK_FACTOR, 0, firstnames, surnames, addresses, 
+                customerIndex, invoiceIndex, targetIndex, workCount);
+        thread.setWriteNeo4j(engine == BenchmarkQuery.Engine.CYPHER);
+        return thread;
+    }
+
     /**
      * Create indexes for both SQL DBMSs and Neo4j database.
      */
@@ -892,6 +1036,7 @@ public class DataGenerator {
      */
     public void insertCustomerData(int threadCount, int iterationsPerThread, int batchExecuteValue, int invoiceFactor, 
                                    int sequentialInvoices, int targetFactor, int workFactor) {
+        IngestProgressReporter reporter = null;
         try {
             int customerIndex;
             if (getCustomerCount() == 0) {
@@ -916,7 +1061,11 @@ public class DataGenerator {
                 throw new Exception("Work count is smaller than 1!");
             }
             getSampleData();
-            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            LinkedHashMap<ServerStatistics, LinkedHashMap<String, Long>> serverSnapshots = snapshotServerStatistics();
+            BenchmarkEvents.GeneratorPhaseEvent phaseEvent = new BenchmarkEvents.GeneratorPhaseEvent();
+            phaseEvent.begin();
+            reporter = startProgress("insertCustomerData", (long) threadCount * iterationsPerThread);
+            ExecutorService executor = threadMode.newExecutor(threadCount);
             long startTimeInMilliseconds = System.currentTimeMillis();
             Timestamp startTime = new Timestamp(startTimeInMilliseconds);
             ReentrantLock lock = new ReentrantLock();
@@ -934,14 +1083,21 @@ public class DataGenerator {
             executor.shutdown();
             while (!executor.isTerminated()) {
             }
+            IngestProgress.getInstance().finishPhase();
+            reporter.stopReporting();
             long endTimeInMilliseconds = System.currentTimeMillis();
             Timestamp endTime = new Timestamp(endTimeInMilliseconds);
             long elapsedTimeMilliseconds = endTimeInMilliseconds - startTimeInMilliseconds;
             String elapsedTime = (new SimpleDateFormat("mm:ss")).format(new Date(elapsedTimeMilliseconds));
             System.out.println("Insertion of Customer related data finished at: " + endTime.toString());
             System.out.println("Time elapsed: " + elapsedTime);
+            phaseEvent.set("insertCustomerData", threadCount, iterationsPerThread);
+            phaseEvent.commit();
+            printServerStatistics("insertCustomerData", serverSnapshots);
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            stopProgress(reporter);
         }
     }
 
@@ -951,13 +1107,18 @@ public class DataGenerator {
     public HashMap<String, Integer> insertSequentialInvoices(int threadCount, int batchExecuteValue, int sequentialInvoices) {
         int firstInvoiceIndex = 0;
         HashMap<String, Integer> customerInvoice = new HashMap<String, Integer>();
+        IngestProgressReporter reporter = null;
         try {
             int customerIndex = getLastCustomerId() + 1;
             int invoiceIndex = getLastInvoiceId() + 1;
             customerInvoice.put("customerIndex", customerIndex);
             customerInvoice.put("invoiceIndex", invoiceIndex);
             getSampleData();
-            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            LinkedHashMap<ServerStatistics, LinkedHashMap<String, Long>> serverSnapshots = snapshotServerStatistics();
+            BenchmarkEvents.GeneratorPhaseEvent phaseEvent = new BenchmarkEvents.GeneratorPhaseEvent();
+            phaseEvent.begin();
+            reporter = startProgress("insertSequentialInvoices", (long) threadCount * sequentialInvoices);
+            ExecutorService executor = threadMode.newExecutor(threadCount);
             long startTimeInMilliseconds = System.currentTimeMillis();
             Timestamp startTime = new Timestamp(startTimeInMilliseconds);
             ReentrantLock lock = new ReentrantLock();
@@ -1003,14 +1164,21 @@ public class DataGenerator {
             executor.shutdown();
             while (!executor.isTerminated()) {
             }
+            IngestProgress.getInstance().finishPhase();
+            reporter.stopReporting();
             long endTimeInMilliseconds = System.currentTimeMillis();
             Timestamp endTime = new Timestamp(endTimeInMilliseconds);
             long elapsedTimeMilliseconds = endTimeInMilliseconds - startTimeInMilliseconds;
             String elapsedTime = (new SimpleDateFormat("mm:ss")).format(new Date(elapsedTimeMilliseconds));
             System.out.println("Insertion of sequential invoices finished at: " + endTime.toString());
             System.out.println("Time elapsed: " + elapsedTime);
+            phaseEvent.set("insertSequentialInvoices", threadCount, sequentialInvoices);
+            phaseEvent.commit();
+            printServerStatistics("insertSequentialInvoices", serverSnapshots);
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            stopProgress(reporter);
         }
         return customerInvoice;
     }
@@ -1020,6 +1188,7 @@ public class DataGenerator {
      */
     public void insertWorkData(int threadCount, int iterationsPerThread, int batchExecuteValue, int workTypeFactor, 
                                int itemFactor) {
+        IngestProgressReporter reporter = null;
         try {
             int workIndex;
             if (getWorkCount() == 0) {
@@ -1029,7 +1198,11 @@ public class DataGenerator {
             }
             int itemCount = getItemCount();
             int workTypeCount = getWorkTypeCount();
-            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            LinkedHashMap<ServerStatistics, LinkedHashMap<String, Long>> serverSnapshots = snapshotServerStatistics();
+            BenchmarkEvents.GeneratorPhaseEvent phaseEvent = new BenchmarkEvents.GeneratorPhaseEvent();
+            phaseEvent.begin();
+            reporter = startProgress("insertWorkData", (long) threadCount * iterationsPerThread);
+            ExecutorService executor = threadMode.newExecutor(threadCount);
             long startTimeInMilliseconds = System.currentTimeMillis();
             Timestamp startTime = new Timestamp(startTimeInMilliseconds);
             ReentrantLock lock = new ReentrantLock();
@@ -1044,14 +1217,21 @@ public class DataGenerator {
             executor.shutdown();
             while (!executor.isTerminated()) {
             }
+            IngestProgress.getInstance().finishPhase();
+            reporter.stopReporting();
             long endTimeInMilliseconds = System.currentTimeMillis();
             Timestamp endTime = new Timestamp(endTimeInMilliseconds);
             long elapsedTimeMilliseconds = endTimeInMilliseconds - startTimeInMilliseconds;
             String elapsedTime = (new SimpleDateFormat("mm:ss")).format(new Date(elapsedTimeMilliseconds));
             System.out.println("Insertion of Work related data finished at: " + endTime.toString());
             System.out.println("Time elapsed: " + elapsedTime);
+            phaseEvent.set("insertWorkData", threadCount, iterationsPerThread);
+            phaseEvent.commit();
+            printServerStatistics("insertWorkData", serverSnapshots);
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            stopProgress(reporter);
         }
     }
 
@@ -1059,6 +1239,7 @@ public class DataGenerator {
      * Generate and batch insert "item" and "worktype" data using the "testdata" table.
      */
     public void insertItemsAndWorkTypes(int threadCount, int batchExecuteValue, int itemCount, int workTypeCount) {
+        IngestProgressReporter reporter = null;
         try {
             int itemIndex;
             if (getItemCount() == 0) {
@@ -1072,7 +1253,11 @@ public class DataGenerator {
             } else {
                 workTypeIndex = getLastWorkTypeId() + 1;
             }
-            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            LinkedHashMap<ServerStatistics, LinkedHashMap<String, Long>> serverSnapshots = snapshotServerStatistics();
+            BenchmarkEvents.GeneratorPhaseEvent phaseEvent = new BenchmarkEvents.GeneratorPhaseEvent();
+            phaseEvent.begin();
+            reporter = startProgress("insertItemsAndWorkTypes", (long) threadCount * (itemCount + workTypeCount));
+            ExecutorService executor = threadMode.newExecutor(threadCount);
             long startTimeInMilliseconds = System.currentTimeMillis();
             Timestamp startTime = new Timestamp(startTimeInMilliseconds);
             ReentrantLock lock = new ReentrantLock();
@@ -1088,14 +1273,21 @@ public class DataGenerator {
             executor.shutdown();
             while (!executor.isTerminated()) {
             }
+            IngestProgress.getInstance().finishPhase();
+            reporter.stopReporting();
             long endTimeInMilliseconds = System.currentTimeMillis();
             Timestamp endTime = new Timestamp(endTimeInMilliseconds);
             long elapsedTimeMilliseconds = endTimeInMilliseconds - startTimeInMilliseconds;
             String elapsedTime = (new SimpleDateFormat("mm:ss")).format(new Date(elapsedTimeMilliseconds));
             System.out.println("Insertion of items and work types finished at: " + endTime.toString());
             System.out.println("Time elapsed: " + elapsedTime);
+            phaseEvent.set("insertItemsAndWorkTypes", threadCount, itemCount);
+            phaseEvent.commit();
+            printServerStatistics("insertItemsAndWorkTypes", serverSnapshots);
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            stopProgress(reporter);
         }
     }
 }
\ No newline at end of file
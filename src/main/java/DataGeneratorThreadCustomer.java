@@ -36,6 +36,10 @@ public class DataGeneratorThreadCustomer extends Thread {
     private List<String> surnames;
     private List<HashMap<String, String>> addresses;
 
+    private final IngestProgress progress = IngestProgress.getInstance(); // Live row counters
+    private boolean writeNeo4j = true; // False if only the SQL DBMSs are written
+    private volatile long deadlineNanos = 0; // System.nanoTime() at which the thread stops inserting, 0 for none
+
     public DataGeneratorThreadCustomer(int threadindex, int iterationCount, int batchExecuteValue, HashMap<String, String[]> sql_databases, HashMap<String, String> neo4j_settings, ReentrantLock lock, int invoiceFactor, int targetFactor, int workFactor, int sequentialInvoices, List<String> firstnames, List<String> surnames, List<HashMap<String, String>> addresses, int customerIndex, int invoiceIndex, int targetIndex, int workCount) {
         this.threadIndex = threadindex;
         this.iterationCount = iterationCount;
@@ -55,6 +59,23 @@ public class DataGeneratorThreadCustomer extends Thread {
         this.neo4j_settings = neo4j_settings;
     }
 
+    public void setWriteNeo4j(boolean writeNeo4j) {
+        this.writeNeo4j = writeNeo4j;
+    }
+
+    /**
+     * Stop inserting after the current customer once System.nanoTime() reaches the deadline, even if not all
+     * iterations are done. The customers inserted so far are flushed.
+     */
+    public void stopAt(long deadlineNanos) {
+        this.deadlineNanos = (deadlineNanos == 0) ? 1 : deadlineNanos;
+    }
+
+    private boolean isStopped() {
+        long deadline = deadlineNanos;
+        return deadline != 0 && System.nanoTime() - deadline >= 0;
+    }
+
     public void run() {
         try {
             String neo4j_db_url = neo4j_settings.get("NEO4J_DB_URL");
@@ -92,8 +113,19 @@ public class DataGeneratorThreadCustomer extends Thread {
                 preparedStatements.put("worktarget", workTarget);
                 preparedStatementsList.add(preparedStatements);
             }
-            for (int iterator = 0; iterator < iterationCount; iterator++) {
+            int iterator = 0;
+            while (iterator < iterationCount && !isStopped()) {
                 insertCustomer(iterator, batchExecuteValue, session, preparedStatementsList);
+                iterator++;
+            }
+            if (iterator < iterationCount) {
+                // Stopped early, the batches since the last flush are still pending
+                for (HashMap<String, PreparedStatement> preparedStatements : preparedStatementsList) {
+                    // Referenced tables first, as in insertCustomer
+                    for (String table : new String[] {"customer", "invoice", "target", "worktarget", "workinvoice"}) {
+                        BenchmarkEvents.executeBatch(table, preparedStatements.get(table));
+                    }
+                }
             }
             for (Connection connection : connectionList) {
                 connection.close();
@@ -114,8 +146,11 @@ public class DataGeneratorThreadCustomer extends Thread {
         addressindex = r.nextInt(addresses.size());
     }
 
-    public void writeToNeo4J(Session session, String cypherQuery) throws SQLException {
-        session.writeTransaction(tx -> tx.run(cypherQuery));
+    public void writeToNeo4J(Session session, String table, String cypherQuery) {
+        if (!writeNeo4j) {
+            return;
+        }
+        BenchmarkEvents.writeToNeo4j(session, table, cypherQuery);
     }
 
     public List<Integer> getWorkIndexes(int index) {
@@ -139,7 +174,6 @@ public class DataGeneratorThreadCustomer extends Thread {
         int i = 0;
         int j = 0;
         
-        System.out.println("Thread: " + threadIndex + " customerIndex: " + customerIndex);
         setIndexes(customerIndex);
         String name = firstnames.get(firstnameindex) + " " + surnames.get(surnameindex);
         String streetAddress = addresses.get(addressindex).get("street") + " " + addresses.get(addressindex).get("city") + " " + addresses.get(addressindex).get("district") + " " + addresses.get(addressindex).get("region") + " " + addresses.get(addressindex).get("postcode");
@@ -152,7 +186,7 @@ public class DataGeneratorThreadCustomer extends Thread {
             customer.addBatch();
         }
         String cypherCreate = "CREATE (a:customer {customerId: " + customerIndex + ", name:\"" + name + "\",address:\"" + streetAddress + "\"})";
-        writeToNeo4J(session, cypherCreate);
+        writeToNeo4J(session, "customer", cypherCreate);
         int invoiceIndexOriginal = invoiceIndex;
         int firstInvoice = invoiceIndex;
         Random r = new Random(invoiceIndex);
@@ -200,22 +234,22 @@ public class DataGeneratorThreadCustomer extends Thread {
             if (j < sequentialInvoices) {
                 if (invoiceIndex == firstInvoice) {
                     cypherCreate = "CREATE (l:invoice {invoiceId: " + invoiceIndex + ", customerId: " + customerIndex + ", state: " + state + ", duedate: \"date({ year:" + year + ", month:" + month + ", day:" + day + " })\", previousinvoice: " + invoiceIndex + "})";
-                    writeToNeo4J(session, cypherCreate);
+                    writeToNeo4J(session, "invoice", cypherCreate);
                     cypherCreate = "MATCH (a:customer),(l:invoice) WHERE a.customerId = " + customerIndex + " AND l.invoiceId = " + invoiceIndex + " CREATE (a)-[m:PAYS]->(l)";
-                    writeToNeo4J(session, cypherCreate);
+                    writeToNeo4J(session, "PAYS", cypherCreate);
                 } else {
                     cypherCreate = "CREATE (l:invoice {invoiceId: " + invoiceIndex + ", customerId: " + customerIndex + ", state: " + state + ", duedate: \"date({ year:" + year + ", month:" + month + ", day:" + day + " })\", previousinvoice: " + (invoiceIndex - 1) + "})";
-                    writeToNeo4J(session, cypherCreate);
+                    writeToNeo4J(session, "invoice", cypherCreate);
                     cypherCreate = "MATCH (a:customer),(l:invoice) WHERE a.customerId = " + customerIndex + " AND l.invoiceId = " + invoiceIndex + " CREATE (a)-[m:PAYS]->(l)";
-                    writeToNeo4J(session, cypherCreate);
+                    writeToNeo4J(session, "PAYS", cypherCreate);
                     cypherCreate = "MATCH (a:invoice),(b:invoice) WHERE a.invoiceId = " + (invoiceIndex - 1) + " AND b.invoiceId = " + invoiceIndex + " CREATE (a)-[m:PREVIOUS_INVOICE]->(b)";
-                    writeToNeo4J(session, cypherCreate);
+                    writeToNeo4J(session, "PREVIOUS_INVOICE", cypherCreate);
                 }
             } else {
                 cypherCreate = "CREATE (l:invoice {invoiceId: " + invoiceIndex + ", customerId: " + customerIndex + ", state: " + state + ", duedate: \"date({ year:" + year + ", month:" + month + ", day:" + day + " })\", previousinvoice: " + invoiceIndex + "})";
-                writeToNeo4J(session, cypherCreate);
+                writeToNeo4J(session, "invoice", cypherCreate);
                 cypherCreate = "MATCH (a:customer),(l:invoice) WHERE a.customerId = " + customerIndex + " AND l.invoiceId = " + invoiceIndex + " CREATE (a)-[m:PAYS]->(l)";
-                writeToNeo4J(session, cypherCreate);
+                writeToNeo4J(session, "PAYS", cypherCreate);
             }
             invoiceIndex++;
             j++;
@@ -236,9 +270,9 @@ public class DataGeneratorThreadCustomer extends Thread {
                 target.addBatch();
             }
             cypherCreate = "CREATE (t:target {targetId: " + targetIndex + ", name: \"" + name + "\", address: \"" + streetAddress + "\", customerid: " + customerIndex + " })";
-            writeToNeo4J(session, cypherCreate);
+            writeToNeo4J(session, "target", cypherCreate);
             cypherCreate = "MATCH (c:customer),(t:target) WHERE c.customerId = " + customerIndex + " AND t.targetId = " + targetIndex + " CREATE (c)-[ct:CUSTOMER_TARGET]->(t)";
-            writeToNeo4J(session, cypherCreate);
+            writeToNeo4J(session, "CUSTOMER_TARGET", cypherCreate);
             targetIndex++;
             j++;
         }
@@ -260,11 +294,11 @@ public class DataGeneratorThreadCustomer extends Thread {
                 }
                 cypherCreate = "MATCH (w:work),(t:target) WHERE w.workId = " + workIndex + "  AND t.targetId = " + targetIndex + " CREATE (w)-[wt:WORK_TARGET]->(t)";
                 //lock.lock();
-                writeToNeo4J(session, cypherCreate);
+                writeToNeo4J(session, "WORK_TARGET", cypherCreate);
                 //Thread.sleep(500);
                 //lock.unlock();
                 cypherCreate = "MATCH (t:target),(w:work) WHERE t.targetId = " + targetIndex + " AND w.workId = " + workIndex + " CREATE (t)-[wt:WORK_TARGET]->(w)";
-                writeToNeo4J(session, cypherCreate);
+                writeToNeo4J(session, "WORK_TARGET", cypherCreate);
                 j++;
             }
             targetIndex++;
@@ -288,9 +322,9 @@ public class DataGeneratorThreadCustomer extends Thread {
                     workInvoice.addBatch();
                 }
                 cypherCreate = "MATCH (w:work),(i:invoice) WHERE w.workId = " + workIndex + " AND i.invoiceId = " + invoiceIndex + " CREATE (w)-[wi:WORK_INVOICE]->(i)";
-                writeToNeo4J(session, cypherCreate);
+                writeToNeo4J(session, "WORK_INVOICE", cypherCreate);
                 cypherCreate = "MATCH (i:invoice),(w:work) WHERE i.invoiceId = " + invoiceIndex + " AND w.workId = " + workIndex + " CREATE (i)-[wi:WORK_INVOICE]->(w)";
-                writeToNeo4J(session, cypherCreate);
+                writeToNeo4J(session, "WORK_INVOICE", cypherCreate);
                 j++;
             }
             invoiceIndex++;
@@ -305,12 +339,13 @@ public class DataGeneratorThreadCustomer extends Thread {
                 target = preparedStatements.get("target");
                 workTarget = preparedStatements.get("worktarget");
                 workInvoice = preparedStatements.get("workinvoice");
-                customer.executeBatch();
-                invoice.executeBatch();
-                target.executeBatch();
-                workTarget.executeBatch();
-                workInvoice.executeBatch();
+                BenchmarkEvents.executeBatch("customer", customer);
+                BenchmarkEvents.executeBatch("invoice", invoice);
+                BenchmarkEvents.executeBatch("target", target);
+                BenchmarkEvents.executeBatch("worktarget", workTarget);
+                BenchmarkEvents.executeBatch("workinvoice", workInvoice);
             }
         }
+        progress.addRecord();
     }
 }
\ No newline at end of file
@@ -31,6 +31,8 @@ public class DataGeneratorThreadItemsAndWorkTypes extends Thread {
 
     private ReentrantLock lock;
 
+    private final IngestProgress progress = IngestProgress.getInstance(); // Live row counters
+
     public DataGeneratorThreadItemsAndWorkTypes(
             int threadIndex, int batchExecuteValue, HashMap<String, String[]> sql_databases, 
             HashMap<String, String> neo4j_settings, ReentrantLock lock, int itemIndex, int itemCount, 
@@ -98,14 +100,9 @@ public class DataGeneratorThreadItemsAndWorkTypes extends Thread {
         }
     }
 
-    public void writeToNeo4J(Session session, String cypherQuery) throws SQLException {
-        session.writeTransaction(tx -> tx.run(cypherQuery));
-    }
-
     public void insertItems(int iterator, int batchExecuteValue, Session session, List<HashMap> preparedStatementsList) 
             throws SQLException {
         PreparedStatement item;
-        System.out.println("threadIndex: " + threadIndex + " itemIndex: " + itemIndex);
         Random r = new Random(itemIndex);
         int balance = r.nextInt(100);
         
@@ -137,6 +134,7 @@ public class DataGeneratorThreadItemsAndWorkTypes extends Thread {
                 item.addBatch();
             }
             session.run("CREATE (v:item {itemId: " + itemIndex + ", name: \"" + itemName + "\", balance:" + balance + ", unit:\"m\", purchaseprice:" + purchaseprice + ", vat:" + vat + ", removed:" + removed + "})");
+            progress.addRows(IngestProgress.Sink.NEO4J, "item", 1);
         } else if (itemIndex % 3 == 0) {
             r.setSeed(itemIndex);
             int ground = r.nextInt(10);
@@ -153,6 +151,7 @@ public class DataGeneratorThreadItemsAndWorkTypes extends Thread {
                 item.addBatch();
             }
             session.run("CREATE (v:item {itemId: " + itemIndex + ", name:\"" + itemName + "\", balance:" + balance + ", unit:\"pcs\", purchaseprice:" + purchaseprice + ", vat:" + vat + ", removed:" + removed + "})");
+            progress.addRows(IngestProgress.Sink.NEO4J, "item", 1);
         } else if (itemIndex % 5 == 0) {
             r.setSeed(itemIndex);
             int spiral1 = r.nextInt(10);
@@ -173,6 +172,7 @@ public class DataGeneratorThreadItemsAndWorkTypes extends Thread {
                 item.addBatch();
             }
             session.run("CREATE (v:item {itemId: " + itemIndex + ", name:\"" + itemName + "\", balance:" + balance + ", unit:\"pcs\", purchaseprice:" + purchaseprice + ", vat:" + vat + ", removed:" + removed + "})");
+            progress.addRows(IngestProgress.Sink.NEO4J, "item", 1);
         } else {
             r.setSeed(itemIndex);
             int parts = r.nextInt(10);
@@ -189,13 +189,15 @@ public class DataGeneratorThreadItemsAndWorkTypes extends Thread {
                 item.addBatch();
             }
             session.run("CREATE (v:item {itemId: " + itemIndex + ", name:\"" + itemName + "\", balance:" + balance + ", unit:\"pcs\", purchaseprice:" + purchaseprice + ", vat:" + vat + ", removed:" + removed + "})");
+            progress.addRows(IngestProgress.Sink.NEO4J, "item", 1);
         }
         if (iterator % batchExecuteValue == 0 || iterator == itemCount - 1) {
             for (HashMap<String, PreparedStatement> preparedStatements : preparedStatementsList) {
                 item = preparedStatements.get("item");
-                item.executeBatch();
+                BenchmarkEvents.executeBatch("item", item);
             }
         }
+        progress.addRecord();
     }
 
     public void insertWorkTypes(int iterator, int batchExecuteValue, Session session, List<HashMap> preparedStatementsList) 
@@ -215,18 +217,21 @@ public class DataGeneratorThreadItemsAndWorkTypes extends Thread {
                 workType.setString(2, "design");
             }
             session.run("CREATE (wt:worktype {worktypeId: " + workTypeIndex + ", name:\"design\", price:" + price + "})");
+            progress.addRows(IngestProgress.Sink.NEO4J, "worktype", 1);
         } else if (workTypeIndex % 3 == 0) {
             for (HashMap<String, PreparedStatement> preparedStatements : preparedStatementsList) {
                 workType = preparedStatements.get("worktype");
                 workType.setString(2, "work");
             }
             session.run("CREATE (wt:worktype {worktypeId: " + workTypeIndex + ", name:\"work\", price:" + price + "})");
+            progress.addRows(IngestProgress.Sink.NEO4J, "worktype", 1);
         } else {
             for (HashMap<String, PreparedStatement> preparedStatements : preparedStatementsList) {
                 workType = preparedStatements.get("worktype");
                 workType.setString(2, "supporting work");
             }
             session.run("CREATE (wt:worktype {worktypeId: " + workTypeIndex + ", name:\"supporting work\", price:" + price + "})");
+            progress.addRows(IngestProgress.Sink.NEO4J, "worktype", 1);
         }
         for (HashMap<String, PreparedStatement> preparedStatements : preparedStatementsList) {
             workType = preparedStatements.get("worktype");
@@ -235,8 +240,9 @@ public class DataGeneratorThreadItemsAndWorkTypes extends Thread {
         if (iterator % batchExecuteValue == 0 || iterator == workTypeCount - 1) {
             for (HashMap<String, PreparedStatement> preparedStatements : preparedStatementsList) {
                 workType = preparedStatements.get("worktype");
-                workType.executeBatch();
+                BenchmarkEvents.executeBatch("worktype", workType);
             }
         }
+        progress.addRecord();
     }
 }
\ No newline at end of file
@@ -28,6 +28,8 @@ public class DataGeneratorThreadSequentialInvoices extends Thread {
 
     private ReentrantLock lock;
 
+    private final IngestProgress progress = IngestProgress.getInstance(); // Live row counters
+
     public DataGeneratorThreadSequentialInvoices(
             int threadindex, int batchExecuteValue, HashMap<String, String[]> sql_databases, 
             HashMap<String, String> neo4j_settings, ReentrantLock lock, int sequentialInvoiceCount, 
@@ -85,10 +87,6 @@ public class DataGeneratorThreadSequentialInvoices extends Thread {
         }
     }
 
-    public void writeToNeo4J(Session session, String cypherQuery) throws SQLException {
-        session.writeTransaction(tx -> tx.run(cypherQuery));
-    }
-
     public void insertSequentialInvoices(
             int iterator, int batchExecuteValue, Session session, List<HashMap> preparedStatementsList) throws SQLException {
         PreparedStatement invoice;
@@ -135,21 +133,21 @@ public class DataGeneratorThreadSequentialInvoices extends Thread {
             cypherCreate = "CREATE (l:invoice {invoiceId: " + invoiceIndex + ", customerId: " + customerIndex + 
                     ", state: " + state + ", duedate: \"date({ year:" + year + ", month:" + month + ", day:" + day +
                     " })\", previousinvoice: " + invoiceIndex + "})";
-            writeToNeo4J(session, cypherCreate);
+            BenchmarkEvents.writeToNeo4j(session, "invoice", cypherCreate);
             cypherCreate = "MATCH (a:customer),(l:invoice) WHERE a.customerId = " + customerIndex + 
                     " AND l.invoiceId = " + invoiceIndex + " CREATE (a)-[m:PAYS]->(l)";
-            writeToNeo4J(session, cypherCreate);
+            BenchmarkEvents.writeToNeo4j(session, "PAYS", cypherCreate);
         } else {
             cypherCreate = "CREATE (l:invoice {invoiceId: " + invoiceIndex + ", customerId: " + customerIndex + 
                     ", state: " + state + ", duedate: \"date({ year:" + year + ", month:" + month + ", day:" + day + 
                     " })\", previousinvoice: " + (invoiceIndex - 1) + "})";
-            writeToNeo4J(session, cypherCreate);
+            BenchmarkEvents.writeToNeo4j(session, "invoice", cypherCreate);
             cypherCreate = "MATCH (a:customer),(l:invoice) WHERE a.customerId = " + customerIndex + 
                     " AND l.invoiceId = " + invoiceIndex + " CREATE (a)-[m:PAYS]->(l)";
-            writeToNeo4J(session, cypherCreate);
+            BenchmarkEvents.writeToNeo4j(session, "PAYS", cypherCreate);
             cypherCreate = "MATCH (a:invoice),(b:invoice) WHERE a.invoiceId = " + (invoiceIndex - 1) + 
                     " AND b.invoiceId = " + invoiceIndex + " CREATE (a)-[m:PREVIOUS_INVOICE]->(b)";
-            writeToNeo4J(session, cypherCreate);
+            BenchmarkEvents.writeToNeo4j(session, "PREVIOUS_INVOICE", cypherCreate);
         }
         r.setSeed(invoiceIndex);
         int discountPercent = 1 + r.nextInt(101);
@@ -157,8 +155,9 @@ public class DataGeneratorThreadSequentialInvoices extends Thread {
         if (iterator % batchExecuteValue == 0 || iterator == (sequentialInvoiceCount - 1)) {
             for (HashMap<String, PreparedStatement> preparedStatements : preparedStatementsList) {
                 invoice = preparedStatements.get("invoice");
-                invoice.executeBatch();
+                BenchmarkEvents.executeBatch("invoice", invoice);
             }
         }
+        progress.addRecord();
     }
 }
\ No newline at end of file
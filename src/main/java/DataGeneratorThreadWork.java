@@ -25,6 +25,8 @@ public class DataGeneratorThreadWork extends Thread {
 
     private ReentrantLock lock;
 
+    private final IngestProgress progress = IngestProgress.getInstance(); // Live row counters
+
     public DataGeneratorThreadWork(
             int threadIndex, int iterationCount, int batchExecuteValue, HashMap<String, String[]> sql_databases, 
             HashMap<String, String> neo4j_settings, ReentrantLock lock, int workIndex, int itemFactor, int itemCount, 
@@ -89,17 +91,6 @@ public class DataGeneratorThreadWork extends Thread {
         }
     }
 
-    public void writeToNeo4J(Session session, String cypherQuery) throws SQLException {
-        //lock.lock();
-        session.writeTransaction(tx -> tx.run(cypherQuery));
-        //try {
-        //    Thread.sleep(500);
-        //} catch (InterruptedException e) {
-        //    e.printStackTrace();
-        //}
-        //lock.unlock();
-    }
-
     public List<Integer> getItemIndexes(int index) {
         List<Integer> allItemIndexes = new ArrayList<Integer>();
         
@@ -130,7 +121,6 @@ public class DataGeneratorThreadWork extends Thread {
         PreparedStatement usedItem;
         PreparedStatement workHours;
         
-        System.out.println("Thread: " + threadIndex + " workIndex: " + workIndex);
         int workIndexOriginal = workIndex;
         String workName = "Generic " + workIndex;
         String sqlInsert = "INSERT INTO work (id, name) VALUES (" + workIndex + ",'" + workName + "')";
@@ -142,7 +132,7 @@ public class DataGeneratorThreadWork extends Thread {
             work.addBatch();
         }
         String cypherCreate = "CREATE (s:work {workId: " + workIndex + ", name: \"" + workName + "\"})";
-        writeToNeo4J(session, cypherCreate);
+        BenchmarkEvents.writeToNeo4j(session, "work", cypherCreate);
         Random r = new Random(workIndex);
         int discountPercent = 1 + r.nextInt(101);
         double discount = (0.01 * discountPercent);
@@ -166,10 +156,10 @@ public class DataGeneratorThreadWork extends Thread {
             }
             cypherCreate = "MATCH (s:work),(v:item) WHERE s.workId=" + workIndex + " AND v.itemId=" + itemId + 
                     " CREATE (s)-[ui:USED_ITEM {amount:" + amount + ", discount:" + discount + "}]->(v) ";
-            writeToNeo4J(session, cypherCreate);
+            BenchmarkEvents.writeToNeo4j(session, "USED_ITEM", cypherCreate);
             cypherCreate = "MATCH (v:item),(s:work) WHERE v.itemId=" + itemId + " AND s.workId=" + workIndex + 
                     "   CREATE (v)-[ui:USED_ITEM {amount:" + amount + ", discount:" + discount + "}]->(s)";
-            writeToNeo4J(session, cypherCreate);
+            BenchmarkEvents.writeToNeo4j(session, "USED_ITEM", cypherCreate);
             i++;
         }
         List<Integer> workTypeIndexes = getWorkTypeIndexes(workIndex);
@@ -192,10 +182,10 @@ public class DataGeneratorThreadWork extends Thread {
             }
             cypherCreate = "MATCH (w:work),(wt:worktype) WHERE w.workId=" + workIndex + " AND wt.worktypeId=" + 
                     worktypeId + " CREATE (w)-[wh:WORKHOURS {hours:" + hours + ", discount:" + discount + "}]->(wt) ";
-            writeToNeo4J(session, cypherCreate);
+            BenchmarkEvents.writeToNeo4j(session, "WORKHOURS", cypherCreate);
             cypherCreate = "MATCH (wt:worktype),(w:work) WHERE wt.worktypeId=" + worktypeId + " AND w.workId=" + 
                     workIndex + " CREATE (wt)-[wh:WORKHOURS {hours:" + hours + ", discount:" + discount + "}]->(w)";
-            writeToNeo4J(session, cypherCreate);
+            BenchmarkEvents.writeToNeo4j(session, "WORKHOURS", cypherCreate);
             i++;
         }
         workIndex++;
@@ -204,10 +194,11 @@ public class DataGeneratorThreadWork extends Thread {
                 work = preparedStatements.get("work");
                 usedItem = preparedStatements.get("useditem");
                 workHours = preparedStatements.get("workhours");
-                work.executeBatch();
-                usedItem.executeBatch();
-                workHours.executeBatch();
+                BenchmarkEvents.executeBatch("work", work);
+                BenchmarkEvents.executeBatch("useditem", usedItem);
+                BenchmarkEvents.executeBatch("workhours", workHours);
             }
         }
+        progress.addRecord();
     }
 }
\ No newline at end of file
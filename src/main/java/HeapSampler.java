@@ -0,0 +1,48 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Samples used heap memory every 100 ms until it is interrupted and keeps the peak. Start it before a run and
+ * interrupt and join it afterwards.
+ */
+public class HeapSampler extends Thread {
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 100;
+
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private volatile long peakHeap = 0;
+
+    public HeapSampler() {
+        setDaemon(true);
+    }
+
+    public void run() {
+        while (!isInterrupted()) {
+            peakHeap = Math.max(peakHeap, memoryBean.getHeapMemoryUsage().getUsed());
+            try {
+                Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        peakHeap = Math.max(peakHeap, memoryBean.getHeapMemoryUsage().getUsed());
+    }
+
+    /**
+     * Interrupt the sampler and wait for its last sample.
+     * @return peak used heap in bytes
+     */
+    public long stopSampling() {
+        interrupt();
+        try {
+            join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        return peakHeap;
+    }
+
+    public long getPeakHeap() {
+        return peakHeap;
+    }
+}
@@ -0,0 +1,407 @@
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Session;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Explores which indexes pay off for the benchmark queries. For every engine it measures the queries without
+ * indexes, with every candidate index on its own, with the fixed set {@link DataGenerator#createIndexes()} creates
+ * and with all candidates that helped on their own together. Every set is ranked by the latency it saves over all
+ * queries of the engine against the time it took to build and the storage it takes, and the cheapest set that comes
+ * close to the largest saving is recommended.
+ *
+ * PostgreSQL candidates include composite, covering (INCLUDE) and partial indexes, storage is the size of the index
+ * relations. Neo4j has neither covering nor partial indexes, its candidates include range indexes on relationship
+ * properties; Neo4j does not report index sizes, so its storage is the number of indexed entities. Neo4j builds
+ * indexes in the background, the build time includes waiting for them to come online.
+ *
+ * Candidates left over from an aborted run are dropped first, every set is dropped again after it was measured.
+ */
+public class IndexExplorer {
+
+    private static final long KEY_SEED = 0; // Every index set gets the same sequence of keys
+    private static final double RECOMMENDATION_SHARE = 0.95; // Share of the largest saving a cheaper set must reach
+    private static final int INDEX_ONLINE_TIMEOUT_SECONDS = 600;
+
+    /**
+     * One index that can be created and dropped.
+     */
+    public static class IndexCandidate {
+        private final BenchmarkQuery.Engine engine;
+        private final String name;
+        private final String target; // Table of a SQL index, node or relationship pattern of a Cypher index
+        private final String definition; // Columns, INCLUDE and WHERE of a SQL index, properties of a Cypher index
+
+        IndexCandidate(BenchmarkQuery.Engine engine, String name, String target, String definition) {
+            this.engine = engine;
+            this.name = name;
+            this.target = target;
+            this.definition = definition;
+        }
+
+        public BenchmarkQuery.Engine getEngine() {
+            return engine;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getCreateStatement() {
+            if (engine == BenchmarkQuery.Engine.SQL) {
+                return "CREATE INDEX " + name + " ON " + target + " " + definition;
+            }
+            return "CREATE INDEX " + name + " IF NOT EXISTS FOR " + target + " ON " + definition;
+        }
+
+        public String getDropStatement() {
+            return (engine == BenchmarkQuery.Engine.SQL) ? "DROP INDEX IF EXISTS " + name :
+                    "DROP INDEX " + name + " IF EXISTS";
+        }
+
+        /**
+         * @return Cypher query counting the entities the index holds, i.e. those having every indexed property
+         */
+        String getEntryCountCypher() {
+            StringBuilder condition = new StringBuilder();
+            for (String property : definition.replaceAll("[()\\s]", "").split(",")) {
+                if (condition.length() > 0) {
+                    condition.append(" AND ");
+                }
+                condition.append(property).append(" IS NOT NULL");
+            }
+            // Undirected relationship patterns would count every relationship twice
+            return "MATCH " + target.replace("]-()", "]->()") + " WHERE " + condition + " RETURN count(*) AS entries";
+        }
+
+        @Override
+        public String toString() {
+            return getCreateStatement();
+        }
+    }
+
+    private static final List<IndexCandidate> CANDIDATES = Arrays.asList(
+            // PostgreSQL
+            new IndexCandidate(BenchmarkQuery.Engine.SQL, "ix_invoice_previousinvoice", "invoice",
+                    "(previousinvoice)"),
+            new IndexCandidate(BenchmarkQuery.Engine.SQL, "ix_invoice_previousinvoice_covering", "invoice",
+                    "(previousinvoice) INCLUDE (id, customerId, state, duedate)"),
+            new IndexCandidate(BenchmarkQuery.Engine.SQL, "ix_invoice_chain_partial", "invoice",
+                    "(previousinvoice) INCLUDE (id, customerId, state, duedate) WHERE previousinvoice <> id"),
+            new IndexCandidate(BenchmarkQuery.Engine.SQL, "ix_invoice_customerid", "invoice", "(customerId, id)"),
+            new IndexCandidate(BenchmarkQuery.Engine.SQL, "ix_workinvoice_invoiceid", "workinvoice",
+                    "(invoiceId, workId)"),
+            new IndexCandidate(BenchmarkQuery.Engine.SQL, "ix_workhours_covering", "workhours",
+                    "(workId) INCLUDE (worktypeId, hours, discount)"),
+            new IndexCandidate(BenchmarkQuery.Engine.SQL, "ix_useditem_covering", "useditem",
+                    "(workId) INCLUDE (itemId, amount, discount)"),
+            new IndexCandidate(BenchmarkQuery.Engine.SQL, "ix_workhours_hours_discount", "workhours",
+                    "(hours, discount)"),
+            new IndexCandidate(BenchmarkQuery.Engine.SQL, "ix_useditem_amount_discount", "useditem",
+                    "(amount, discount)"),
+            new IndexCandidate(BenchmarkQuery.Engine.SQL, "ix_worktype_price", "worktype", "(price)"),
+            new IndexCandidate(BenchmarkQuery.Engine.SQL, "ix_item_purchaseprice", "item", "(purchaseprice)"),
+            // Neo4j
+            new IndexCandidate(BenchmarkQuery.Engine.CYPHER, "ix_invoice_invoiceid", "(n:invoice)",
+                    "(n.invoiceId)"),
+            new IndexCandidate(BenchmarkQuery.Engine.CYPHER, "ix_invoice_invoiceid_previousinvoice", "(n:invoice)",
+                    "(n.invoiceId, n.previousinvoice)"),
+            new IndexCandidate(BenchmarkQuery.Engine.CYPHER, "ix_invoice_customerid", "(n:invoice)",
+                    "(n.customerId)"),
+            new IndexCandidate(BenchmarkQuery.Engine.CYPHER, "ix_customer_customerid", "(n:customer)",
+                    "(n.customerId)"),
+            new IndexCandidate(BenchmarkQuery.Engine.CYPHER, "ix_work_workid", "(n:work)", "(n.workId)"),
+            // The fixed set declares these as node label indexes, no node has the labels of the relationships
+            new IndexCandidate(BenchmarkQuery.Engine.CYPHER, "ix_workhours_hours_discount", "(n:WORKHOURS)",
+                    "(n.hours, n.discount)"),
+            new IndexCandidate(BenchmarkQuery.Engine.CYPHER, "ix_useditem_amount_discount", "(n:USED_ITEM)",
+                    "(n.amount, n.discount)"),
+            new IndexCandidate(BenchmarkQuery.Engine.CYPHER, "ix_workhours_rel_hours_discount",
+                    "()-[n:WORKHOURS]-()", "(n.hours, n.discount)"),
+            new IndexCandidate(BenchmarkQuery.Engine.CYPHER, "ix_useditem_rel_amount_discount",
+                    "()-[n:USED_ITEM]-()", "(n.amount, n.discount)"),
+            new IndexCandidate(BenchmarkQuery.Engine.CYPHER, "ix_worktype_price", "(n:worktype)", "(n.price)"),
+            new IndexCandidate(BenchmarkQuery.Engine.CYPHER, "ix_item_purchaseprice", "(n:item)",
+                    "(n.purchaseprice)"));
+
+    /**
+     * Candidates equal to the indexes {@link DataGenerator#createIndexes()} creates.
+     */
+    private static final List<String> CURRENT_INDEXES = Arrays.asList("ix_invoice_previousinvoice",
+            "ix_worktype_price", "ix_workhours_hours_discount", "ix_useditem_amount_discount", "ix_item_purchaseprice",
+            "ix_invoice_invoiceid_previousinvoice", "ix_customer_customerid");
+
+    /**
+     * Measurements of the queries of one engine with one index set.
+     */
+    private static class IndexSetResult {
+        final String name;
+        final List<IndexCandidate> indexes;
+        final LinkedHashMap<String, Double> meanMillis = new LinkedHashMap<String, Double>(); // Keyed by query id
+        long buildMillis;
+        long storage; // Bytes of the PostgreSQL indexes, indexed entities of the Neo4j indexes
+        double totalMillis;
+
+        IndexSetResult(String name, List<IndexCandidate> indexes) {
+            this.name = name;
+            this.indexes = indexes;
+        }
+    }
+
+    private final String db_url; // SQL connection URL of the DBMS, this URL contains no database name.
+    private final String[] db_settings;
+    private final HashMap<String, String> neo4j_settings;
+    private final LinkedHashMap<BenchmarkQuery.Engine, List<IndexSetResult>> results =
+            new LinkedHashMap<BenchmarkQuery.Engine, List<IndexSetResult>>();
+
+    private KeySpace keySpace = new KeySpace(); // Keys of the parameterized queries
+    private Connection connection;
+    private Session session;
+
+    public IndexExplorer(String db_url, String[] db_settings, HashMap<String, String> neo4j_settings) {
+        this.db_url = db_url;
+        this.db_settings = db_settings;
+        this.neo4j_settings = neo4j_settings;
+    }
+
+    public void setKeySpace(KeySpace keySpace) {
+        this.keySpace = keySpace;
+    }
+
+    /**
+     * Explore the index sets of every engine the queries use.
+     * @param iterations number of measured executions per query and index set
+     * @param warmupIterations executions before the measured ones, their latencies are discarded
+     */
+    public void exploreAll(List<BenchmarkQuery> queries, int iterations, int warmupIterations) {
+        String neo4j_db_url = neo4j_settings.get("NEO4J_DB_URL");
+        String neo4j_username = neo4j_settings.get("NEO4J_USERNAME");
+        String neo4j_password = neo4j_settings.get("NEO4J_PASSWORD");
+        org.neo4j.driver.Driver driver = GraphDatabase.driver(neo4j_db_url, AuthTokens.basic(neo4j_username, neo4j_password));
+        try {
+            Class.forName(db_settings[0]);
+            connection = DriverManager.getConnection(db_url + "warehouse", db_settings[1], db_settings[2]);
+            session = driver.session();
+            for (BenchmarkQuery.Engine engine : BenchmarkQuery.Engine.values()) {
+                List<BenchmarkQuery> engineQueries = new ArrayList<BenchmarkQuery>();
+                for (BenchmarkQuery query : queries) {
+                    if (query.getEngine() == engine) {
+                        engineQueries.add(query);
+                    }
+                }
+                if (!engineQueries.isEmpty()) {
+                    results.put(engine, explore(engine, engineQueries, iterations, warmupIterations));
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            if (session != null) {
+                session.close();
+            }
+            driver.close();
+            try {
+                if (connection != null) {
+                    connection.close();
+                }
+            } catch (SQLException se) {
+                se.printStackTrace();
+            }
+        }
+    }
+
+    private List<IndexSetResult> explore(BenchmarkQuery.Engine engine, List<BenchmarkQuery> queries, int iterations,
+                                         int warmupIterations) throws Exception {
+        List<IndexCandidate> candidates = new ArrayList<IndexCandidate>();
+        List<IndexCandidate> current = new ArrayList<IndexCandidate>();
+        for (IndexCandidate candidate : CANDIDATES) {
+            if (candidate.getEngine() == engine) {
+                candidates.add(candidate);
+                if (CURRENT_INDEXES.contains(candidate.getName())) {
+                    current.add(candidate);
+                }
+            }
+        }
+        for (IndexCandidate candidate : candidates) {
+            execute(engine, candidate.getDropStatement());
+        }
+        List<IndexSetResult> setResults = new ArrayList<IndexSetResult>();
+        IndexSetResult baseline = measure(engine, "none", new ArrayList<IndexCandidate>(), queries, iterations,
+                warmupIterations);
+        setResults.add(baseline);
+        List<IndexCandidate> beneficial = new ArrayList<IndexCandidate>();
+        for (IndexCandidate candidate : candidates) {
+            IndexSetResult single = measure(engine, candidate.getName(), Arrays.asList(candidate), queries,
+                    iterations, warmupIterations);
+            setResults.add(single);
+            if (single.totalMillis < baseline.totalMillis) {
+                beneficial.add(candidate);
+            }
+        }
+        setResults.add(measure(engine, "current", current, queries, iterations, warmupIterations));
+        if (beneficial.size() > 1) {
+            setResults.add(measure(engine, "all beneficial", beneficial, queries, iterations, warmupIterations));
+        }
+        return setResults;
+    }
+
+    /**
+     * Create the index set, measure every query and drop the set again.
+     */
+    private IndexSetResult measure(BenchmarkQuery.Engine engine, String name, List<IndexCandidate> indexes,
+                                   List<BenchmarkQuery> queries, int iterations, int warmupIterations)
+            throws Exception {
+        IndexSetResult result = new IndexSetResult(name, indexes);
+        System.out.println("Measuring " + engine + " index set " + name + ": " + indexes);
+        long startTime = System.nanoTime();
+        for (IndexCandidate index : indexes) {
+            execute(engine, index.getCreateStatement());
+        }
+        if (engine == BenchmarkQuery.Engine.CYPHER) {
+            session.run("CALL db.awaitIndexes(" + INDEX_ONLINE_TIMEOUT_SECONDS + ")").consume();
+        }
+        result.buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        for (IndexCandidate index : indexes) {
+            result.storage += storage(index);
+        }
+        // Fresh statistics and no plans cached from the previous set
+        if (engine == BenchmarkQuery.Engine.SQL) {
+            execute(engine, "ANALYZE");
+        } else {
+            session.run("CALL db.clearQueryCaches()").consume();
+        }
+
+        QueryClient client = new QueryClient((engine == BenchmarkQuery.Engine.SQL) ? connection : null,
+                (engine == BenchmarkQuery.Engine.CYPHER) ? session : null, keySpace, new Random(KEY_SEED));
+        try {
+            for (BenchmarkQuery query : queries) {
+                for (int i = 0; i < warmupIterations; i++) {
+                    client.execute(query);
+                }
+                LatencyHistogram histogram = new LatencyHistogram();
+                for (int i = 0; i < iterations; i++) {
+                    histogram.recordNanos(client.execute(query).getTimeToLastRowNanos());
+                }
+                double meanMillis = histogram.getMean() / 1000.0;
+                result.meanMillis.put(query.getId(), meanMillis);
+                result.totalMillis += meanMillis;
+            }
+        } finally {
+            client.close();
+        }
+        System.out.println(String.format("Built in %d ms, %s, queries take %.3f ms in total: %s",
+                result.buildMillis, formatStorage(engine, result.storage), result.totalMillis,
+                formatMeans(result.meanMillis)));
+
+        for (IndexCandidate index : indexes) {
+            execute(engine, index.getDropStatement());
+        }
+        return result;
+    }
+
+    private void execute(BenchmarkQuery.Engine engine, String statement) throws SQLException {
+        if (engine == BenchmarkQuery.Engine.SQL) {
+            Statement stmt = connection.createStatement();
+            stmt.execute(statement);
+            stmt.close();
+        } else {
+            session.run(statement).consume();
+        }
+    }
+
+    /**
+     * @return bytes of a PostgreSQL index, indexed entities of a Neo4j index
+     */
+    private long storage(IndexCandidate index) throws SQLException {
+        if (index.getEngine() == BenchmarkQuery.Engine.SQL) {
+            PreparedStatement stmt = connection.prepareStatement(
+                    "SELECT pg_relation_size(c.oid) FROM pg_class c WHERE c.relname = ?");
+            stmt.setString(1, index.getName());
+            ResultSet resultSet = stmt.executeQuery();
+            long size = resultSet.next() ? resultSet.getLong(1) : 0;
+            resultSet.close();
+            stmt.close();
+            return size;
+        }
+        return session.run(index.getEntryCountCypher()).single().get("entries").asLong();
+    }
+
+    /**
+     * Print every index set of every engine ranked by the latency it saves, and the recommended set. The recommended
+     * set is the one with the smallest storage, then build time, among those saving at least 95% of the largest
+     * saving.
+     */
+    public void printReport() {
+        for (BenchmarkQuery.Engine engine : results.keySet()) {
+            List<IndexSetResult> setResults = new ArrayList<IndexSetResult>(results.get(engine));
+            IndexSetResult baseline = setResults.get(0);
+            setResults.sort((a, b) -> Double.compare(a.totalMillis, b.totalMillis));
+            double bestGain = baseline.totalMillis - setResults.get(0).totalMillis;
+
+            System.out.println(engine + " index sets by latency saved, baseline without indexes " +
+                    String.format("%.3f ms", baseline.totalMillis) + ":");
+            System.out.println(String.format("%-40s %12s %10s %14s %12s %16s", "index set", "saved ms", "saved %",
+                    "build ms", engine == BenchmarkQuery.Engine.SQL ? "size MB" : "entries", "saved ms/build s"));
+            IndexSetResult recommended = null;
+            for (IndexSetResult result : setResults) {
+                double gain = baseline.totalMillis - result.totalMillis;
+                System.out.println(String.format("%-40s %12.3f %9.1f%% %14d %12s %16s", result.name, gain,
+                        (baseline.totalMillis > 0) ? 100 * gain / baseline.totalMillis : 0, result.buildMillis,
+                        (engine == BenchmarkQuery.Engine.SQL) ?
+                                String.format("%.2f", result.storage / (1024.0 * 1024.0)) :
+                                Long.toString(result.storage),
+                        (result.buildMillis > 0) ? String.format("%.3f", gain / (result.buildMillis / 1000.0)) :
+                                "-"));
+                if (bestGain > 0 && gain >= RECOMMENDATION_SHARE * bestGain && (recommended == null ||
+                        result.storage < recommended.storage || (result.storage == recommended.storage &&
+                        result.buildMillis < recommended.buildMillis))) {
+                    recommended = result;
+                }
+            }
+            System.out.println("Latency per query and index set (ms):");
+            for (IndexSetResult result : setResults) {
+                System.out.println(result.name + ": " + formatMeans(result.meanMillis));
+            }
+            if (recommended == null) {
+                System.out.println("Recommended " + engine + " indexes: none, no index set saved latency.");
+            } else {
+                System.out.println("Recommended " + engine + " index set: " + recommended.name + String.format(
+                        ", saves %.3f ms of %.3f ms", baseline.totalMillis - recommended.totalMillis,
+                        baseline.totalMillis));
+                for (IndexCandidate index : recommended.indexes) {
+                    System.out.println("  " + index.getCreateStatement());
+                }
+            }
+            System.out.println();
+        }
+    }
+
+    private static String formatStorage(BenchmarkQuery.Engine engine, long storage) {
+        return (engine == BenchmarkQuery.Engine.SQL) ? String.format("%.2f MB", storage / (1024.0 * 1024.0)) :
+                storage + " entries";
+    }
+
+    private static String formatMeans(LinkedHashMap<String, Double> meanMillis) {
+        StringBuilder text = new StringBuilder();
+        for (String queryId : meanMillis.keySet()) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(queryId).append(String.format(" %.3f", meanMillis.get(queryId)));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,169 @@
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+
+/**
+ * Counts the records and rows written by the data generator threads. The counters are LongAdders, so that many
+ * generator threads can count every row without contending on one memory location. One instance is shared by the
+ * whole JVM and registered as an MXBean, see {@link IngestProgressMXBean}.
+ */
+public class IngestProgress implements IngestProgressMXBean {
+
+    public static final String OBJECT_NAME = "InvoicingDBTestBench:type=IngestProgress";
+
+    /**
+     * Database the rows are written to.
+     */
+    public enum Sink {
+        SQL,
+        NEO4J
+    }
+
+    private static IngestProgress instance;
+
+    private final EnumMap<Sink, ConcurrentHashMap<String, LongAdder>> rows =
+            new EnumMap<Sink, ConcurrentHashMap<String, LongAdder>>(Sink.class);
+    private final LongAdder records = new LongAdder();
+    private volatile String phase = "";
+    private volatile long expectedRecords = 0;
+    private volatile long startNanos = System.nanoTime();
+    private volatile long endNanos = 0; // 0 while the phase is running
+
+    private IngestProgress() {
+        for (Sink sink : Sink.values()) {
+            rows.put(sink, new ConcurrentHashMap<String, LongAdder>());
+        }
+    }
+
+    /**
+     * Get the instance of the JVM, registered as MXBean on first use.
+     */
+    public static synchronized IngestProgress getInstance() {
+        if (instance == null) {
+            instance = new IngestProgress();
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(OBJECT_NAME));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Reset the counters for a new data generation phase.
+     * @param expectedRecords records the phase will generate, used for the estimated time remaining
+     */
+    public void startPhase(String phase, long expectedRecords) {
+        for (ConcurrentHashMap<String, LongAdder> tables : rows.values()) {
+            tables.clear();
+        }
+        records.reset();
+        this.phase = phase;
+        this.expectedRecords = expectedRecords;
+        this.endNanos = 0;
+        this.startNanos = System.nanoTime();
+    }
+
+    public void finishPhase() {
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * Count rows written to a table, or nodes or relationships of a label or type in Neo4j.
+     */
+    public void addRows(Sink sink, String table, long count) {
+        ConcurrentHashMap<String, LongAdder> tables = rows.get(sink);
+        LongAdder counter = tables.get(table);
+        if (counter == null) {
+            counter = tables.computeIfAbsent(table, name -> new LongAdder());
+        }
+        counter.add(count);
+    }
+
+    /**
+     * Count one generated record.
+     */
+    public void addRecord() {
+        records.increment();
+    }
+
+    @Override
+    public String getPhase() {
+        return phase;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return endNanos == 0;
+    }
+
+    @Override
+    public long getRecords() {
+        return records.sum();
+    }
+
+    @Override
+    public long getExpectedRecords() {
+        return expectedRecords;
+    }
+
+    @Override
+    public Map<String, Long> getRowCounts() {
+        TreeMap<String, Long> rowCounts = new TreeMap<String, Long>();
+        for (Map.Entry<Sink, ConcurrentHashMap<String, LongAdder>> sink : rows.entrySet()) {
+            for (Map.Entry<String, LongAdder> table : sink.getValue().entrySet()) {
+                rowCounts.put(sink.getKey() + " " + table.getKey(), table.getValue().sum());
+            }
+        }
+        return rowCounts;
+    }
+
+    /**
+     * @return rows written in the phase to the sink
+     */
+    public long getRows(Sink sink) {
+        long sum = 0;
+        for (LongAdder counter : rows.get(sink).values()) {
+            sum += counter.sum();
+        }
+        return sum;
+    }
+
+    @Override
+    public long getTotalRows() {
+        long sum = 0;
+        for (Sink sink : Sink.values()) {
+            sum += getRows(sink);
+        }
+        return sum;
+    }
+
+    /**
+     * @return seconds since the start of the phase, until its end if it finished
+     */
+    public double getElapsedSeconds() {
+        long end = (endNanos == 0) ? System.nanoTime() : endNanos;
+        return (end - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    @Override
+    public double getRowsPerSecond() {
+        double elapsedSeconds = getElapsedSeconds();
+        return (elapsedSeconds > 0) ? getTotalRows() / elapsedSeconds : 0;
+    }
+
+    @Override
+    public long getEstimatedSecondsRemaining() {
+        long done = getRecords();
+        if (done == 0 || expectedRecords == 0) {
+            return -1;
+        }
+        return Math.max(0, Math.round((expectedRecords - done) * getElapsedSeconds() / done));
+    }
+}
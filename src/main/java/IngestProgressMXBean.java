@@ -0,0 +1,36 @@
+import java.util.Map;
+
+/**
+ * Live counters of the data generation, registered as InvoicingDBTestBench:type=IngestProgress so that long loads
+ * can be watched with JConsole, VisualVM or any other JMX client.
+ */
+public interface IngestProgressMXBean {
+
+    /**
+     * @return name of the running or last data generation phase, e.g. "insertCustomerData"
+     */
+    String getPhase();
+
+    boolean isRunning();
+
+    /**
+     * @return records generated in the phase, e.g. customers with their invoices, targets and links
+     */
+    long getRecords();
+
+    long getExpectedRecords();
+
+    /**
+     * @return rows written in the phase keyed by "SINK table", e.g. "SQL invoice" or "NEO4J PAYS"
+     */
+    Map<String, Long> getRowCounts();
+
+    long getTotalRows();
+
+    double getRowsPerSecond();
+
+    /**
+     * @return estimated seconds until every expected record is generated, -1 if not known yet
+     */
+    long getEstimatedSecondsRemaining();
+}
@@ -0,0 +1,61 @@
+/**
+ * Prints the progress of a data generation phase at a fixed interval until it is interrupted: records generated,
+ * rows written to each sink, rows/sec since the previous report and the estimated time remaining. Start it with the
+ * generator threads and stop it when they have finished, it then prints the totals of the phase.
+ */
+public class IngestProgressReporter extends Thread {
+
+    private final IngestProgress progress;
+    private final long intervalMillis;
+    private long lastRows = 0;
+    private double lastSeconds = 0;
+
+    /**
+     * @param intervalMillis time between two reports, 0 to only print the totals at the end
+     */
+    public IngestProgressReporter(IngestProgress progress, long intervalMillis) {
+        this.progress = progress;
+        this.intervalMillis = intervalMillis;
+        setDaemon(true);
+    }
+
+    public void run() {
+        while (!isInterrupted()) {
+            try {
+                Thread.sleep((intervalMillis > 0) ? intervalMillis : Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                break;
+            }
+            report();
+        }
+    }
+
+    /**
+     * Interrupt the reporter, wait for it and print the totals of the phase.
+     */
+    public void stopReporting() {
+        interrupt();
+        try {
+            join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        System.out.println(String.format("%s: %d records, %d rows in %.1f s (%.0f rows/sec). Rows: %s",
+                progress.getPhase(), progress.getRecords(), progress.getTotalRows(), progress.getElapsedSeconds(),
+                progress.getRowsPerSecond(), progress.getRowCounts()));
+    }
+
+    private void report() {
+        long rows = progress.getTotalRows();
+        double seconds = progress.getElapsedSeconds();
+        double rowsPerSecond = (seconds > lastSeconds) ? (rows - lastRows) / (seconds - lastSeconds) : 0;
+        lastRows = rows;
+        lastSeconds = seconds;
+        long remaining = progress.getEstimatedSecondsRemaining();
+        String eta = (remaining < 0) ? "unknown" : String.format("%d:%02d", remaining / 60, remaining % 60);
+        System.out.println(String.format("%s: %d/%d records, %d SQL rows, %d Neo4j rows, %.0f rows/sec, ETA %s",
+                progress.getPhase(), progress.getRecords(), progress.getExpectedRecords(),
+                progress.getRows(IngestProgress.Sink.SQL), progress.getRows(IngestProgress.Sink.NEO4J),
+                rowsPerSecond, eta));
+    }
+}
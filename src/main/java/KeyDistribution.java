@@ -0,0 +1,174 @@
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Distribution of the keys, e.g. invoice ids, that parameterized queries are run with. A different key per
+ * iteration spreads the queries over the whole dataset, so that the measured latency reflects the cache behaviour
+ * of the real workload instead of a single hot row.
+ *
+ * Definitions:
+ * <ul>
+ *     <li>fixed: always the first key of the range, the behaviour of the original hardcoded queries</li>
+ *     <li>uniform: every key of the range is equally likely</li>
+ *     <li>zipfian[:THETA]: a few keys are very popular, the key of popularity rank r is drawn with probability
+ *     proportional to 1/r^THETA (default 0.99). Ranks are scattered over the range so that the popular keys are
+ *     not all neighbours.</li>
+ *     <li>hotspot[:FRACTION:PROBABILITY]: the first FRACTION of the range (default 0.2) is drawn with PROBABILITY
+ *     (default 0.8), the rest uniformly otherwise</li>
+ *     <li>sequential: the keys of the range in order, starting over after the last key</li>
+ * </ul>
+ *
+ * Instances are thread-safe as long as every thread passes its own Random.
+ */
+public class KeyDistribution {
+
+    public enum Type {
+        FIXED,
+        UNIFORM,
+        ZIPFIAN,
+        HOTSPOT,
+        SEQUENTIAL
+    }
+
+    private static final long SCRAMBLE_MULTIPLIER = 2654435761L;
+
+    private final String definition;
+    private final Type type;
+    private final long min;
+    private final long keyCount;
+
+    private double theta = 0.99;
+    private double zetaN;
+    private double alpha;
+    private double eta;
+    private long scrambleMultiplier;
+
+    private double hotFraction = 0.2;
+    private double hotProbability = 0.8;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param definition distribution definition, e.g. "zipfian:0.99"
+     * @param min first key of the range
+     * @param max last key of the range, inclusive
+     * @throws IllegalArgumentException if the definition or the range is invalid
+     */
+    public KeyDistribution(String definition, long min, long max) {
+        if (max < min) {
+            throw new IllegalArgumentException("Empty key range: " + min + ".." + max);
+        }
+        String[] parts = definition.trim().split(":");
+        this.definition = definition.trim();
+        this.type = Type.valueOf(parts[0].toUpperCase());
+        this.min = min;
+        this.keyCount = max - min + 1;
+        if (type == Type.ZIPFIAN) {
+            if (parts.length > 1) {
+                theta = Double.parseDouble(parts[1]);
+            }
+            if (theta <= 0 || theta == 1) {
+                throw new IllegalArgumentException("Zipfian theta must be positive and not 1: " + theta);
+            }
+            // Constants of the generator by Gray et al., "Quickly Generating Billion-Record Synthetic Databases"
+            zetaN = zeta(keyCount, theta);
+            alpha = 1 / (1 - theta);
+            eta = (1 - Math.pow(2.0 / keyCount, 1 - theta)) / (1 - zeta(2, theta) / zetaN);
+            // A multiplier coprime with the key count maps ranks to keys one to one
+            scrambleMultiplier = SCRAMBLE_MULTIPLIER;
+            while (gcd(scrambleMultiplier, keyCount) != 1) {
+                scrambleMultiplier++;
+            }
+        } else if (type == Type.HOTSPOT) {
+            if (parts.length > 2) {
+                hotFraction = Double.parseDouble(parts[1]);
+                hotProbability = Double.parseDouble(parts[2]);
+            }
+            if (hotFraction <= 0 || hotFraction > 1 || hotProbability < 0 || hotProbability > 1) {
+                throw new IllegalArgumentException("Invalid hotspot distribution: " + definition);
+            }
+        }
+    }
+
+    /**
+     * Get a distribution of the same definition over another key range.
+     */
+    public KeyDistribution withRange(long min, long max) {
+        return new KeyDistribution(definition, min, max);
+    }
+
+    /**
+     * Draw the next key.
+     */
+    public long next(Random random) {
+        switch (type) {
+            case UNIFORM:
+                return min + nextLong(random, keyCount);
+            case ZIPFIAN:
+                return min + Math.floorMod(nextZipfianRank(random) * scrambleMultiplier, keyCount);
+            case HOTSPOT:
+                long hotCount = Math.max(1, (long) (keyCount * hotFraction));
+                if (random.nextDouble() < hotProbability || hotCount == keyCount) {
+                    return min + nextLong(random, hotCount);
+                }
+                return min + hotCount + nextLong(random, keyCount - hotCount);
+            case SEQUENTIAL:
+                return min + Math.floorMod(sequence.getAndIncrement(), keyCount);
+            default:
+                return min;
+        }
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return min + keyCount - 1;
+    }
+
+    private long nextZipfianRank(Random random) {
+        double u = random.nextDouble();
+        double uz = u * zetaN;
+        if (uz < 1) {
+            return 0;
+        }
+        if (uz < 1 + Math.pow(0.5, theta)) {
+            return Math.min(1, keyCount - 1);
+        }
+        return Math.min((long) (keyCount * Math.pow(eta * u - eta + 1, alpha)), keyCount - 1);
+    }
+
+    private static long nextLong(Random random, long bound) {
+        if (bound <= Integer.MAX_VALUE) {
+            return random.nextInt((int) bound);
+        }
+        return Math.floorMod(random.nextLong(), bound);
+    }
+
+    private static double zeta(long n, double theta) {
+        double sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+
+    @Override
+    public String toString() {
+        return definition + " over " + min + ".." + getMax();
+    }
+}
@@ -0,0 +1,69 @@
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Key distributions of the query parameters, e.g. "invoiceId" and "customerId". Every parameter shares the same
+ * distribution definition but has its own key range. Parameters without a range always get key 0, the key the
+ * original queries were hardcoded to.
+ */
+public class KeySpace {
+
+    private final String definition;
+    private final HashMap<String, KeyDistribution> distributions = new HashMap<String, KeyDistribution>();
+
+    /**
+     * Key space that draws every parameter as key 0.
+     */
+    public KeySpace() {
+        this("fixed");
+    }
+
+    /**
+     * @param definition distribution definition as described in {@link KeyDistribution}, e.g. "zipfian:0.99"
+     */
+    public KeySpace(String definition) {
+        new KeyDistribution(definition, 0, 0); // Fail early on an invalid definition
+        this.definition = definition;
+    }
+
+    /**
+     * Set the range of keys the parameter is drawn from.
+     * @param max last key of the range, inclusive
+     */
+    public void setRange(String parameter, long min, long max) {
+        distributions.put(parameter, new KeyDistribution(definition, min, max));
+    }
+
+    /**
+     * Get a copy of this key space with another range for the parameter.
+     */
+    public KeySpace withRange(String parameter, long min, long max) {
+        KeySpace keySpace = new KeySpace(definition);
+        keySpace.distributions.putAll(distributions);
+        keySpace.setRange(parameter, min, max);
+        return keySpace;
+    }
+
+    /**
+     * Draw the next key of the parameter.
+     */
+    public long next(String parameter, Random random) {
+        KeyDistribution distribution = distributions.get(parameter);
+        return (distribution == null) ? 0 : distribution.next(random);
+    }
+
+    public String getDefinition() {
+        return definition;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder(definition);
+        for (String parameter : distributions.keySet()) {
+            KeyDistribution distribution = distributions.get(parameter);
+            description.append(", ").append(parameter).append(" ").append(distribution.getMin()).append("..")
+                    .append(distribution.getMax());
+        }
+        return description.toString();
+    }
+}
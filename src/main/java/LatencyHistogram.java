@@ -0,0 +1,272 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * High dynamic range histogram of latencies recorded in microseconds.
+ *
+ * Values are stored in buckets whose width grows with the magnitude of the value, so every recorded value keeps the
+ * configured number of significant decimal digits while the whole range from 1 microsecond up to the highest
+ * trackable value fits into a fixed size array. Recording a value only increments a counter and never allocates,
+ * so the histogram can hold any number of samples. The bucket layout follows the HdrHistogram design by Gil Tene.
+ *
+ * Instances are not thread-safe. Give every thread or run its own histogram and combine them with {@link #add}; two
+ * histograms with the same highest trackable value and precision merge without losing any information.
+ */
+public class LatencyHistogram {
+
+    public static final long DEFAULT_HIGHEST_TRACKABLE_MICROS = 3_600_000_000L; // One hour
+    public static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+
+    private final long highestTrackableValue;
+    private final int significantDigits;
+
+    private final int subBucketHalfCountMagnitude;
+    private final int subBucketHalfCount;
+    private final int subBucketCount;
+    private final long subBucketMask;
+    private final int leadingZeroCountBase;
+
+    private final long[] counts;
+    private long totalCount = 0;
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue = 0;
+
+    public LatencyHistogram() {
+        this(DEFAULT_HIGHEST_TRACKABLE_MICROS, DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * @param highestTrackableValue largest latency in microseconds that can be recorded, larger values are clamped
+     * @param significantDigits number of significant decimal digits kept for every value, between 1 and 5
+     */
+    public LatencyHistogram(long highestTrackableValue, int significantDigits) {
+        if (highestTrackableValue < 2) {
+            throw new IllegalArgumentException("Highest trackable value must be at least 2: " + highestTrackableValue);
+        }
+        if (significantDigits < 1 || significantDigits > 5) {
+            throw new IllegalArgumentException("Significant digits must be between 1 and 5: " + significantDigits);
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        this.significantDigits = significantDigits;
+
+        long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+        int subBucketCountMagnitude = (int) Math.ceil(Math.log(largestValueWithSingleUnitResolution) / Math.log(2));
+        this.subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+        this.subBucketCount = 1 << subBucketCountMagnitude;
+        this.subBucketHalfCount = subBucketCount / 2;
+        this.subBucketMask = subBucketCount - 1;
+        this.leadingZeroCountBase = 64 - subBucketCountMagnitude;
+
+        long smallestUntrackableValue = subBucketCount;
+        int bucketCount = 1;
+        while (smallestUntrackableValue <= highestTrackableValue) {
+            if (smallestUntrackableValue > Long.MAX_VALUE / 2) {
+                bucketCount++;
+                break;
+            }
+            smallestUntrackableValue <<= 1;
+            bucketCount++;
+        }
+        this.counts = new long[(bucketCount + 1) * subBucketHalfCount];
+    }
+
+    /**
+     * Record a single latency.
+     * @param value latency in microseconds, negative values are recorded as 0
+     */
+    public void recordValue(long value) {
+        recordValueWithCount(value, 1);
+    }
+
+    /**
+     * Record the same latency several times.
+     * @param value latency in microseconds, negative values are recorded as 0
+     * @param count number of times the value occurred
+     */
+    public void recordValueWithCount(long value, long count) {
+        if (count <= 0) {
+            return;
+        }
+        long clampedValue = Math.min(Math.max(value, 0), highestTrackableValue);
+        counts[countsArrayIndex(clampedValue)] += count;
+        totalCount += count;
+        minValue = Math.min(minValue, clampedValue);
+        maxValue = Math.max(maxValue, clampedValue);
+    }
+
+    /**
+     * Record a latency measured in nanoseconds, e.g. the difference of two {@link System#nanoTime()} calls.
+     */
+    public void recordNanos(long nanos) {
+        recordValue(nanos / 1000);
+    }
+
+    /**
+     * Add every value recorded in another histogram to this one.
+     * @param other histogram created with the same highest trackable value and significant digits
+     */
+    public void add(LatencyHistogram other) {
+        if (other.highestTrackableValue != highestTrackableValue || other.significantDigits != significantDigits) {
+            throw new IllegalArgumentException("Cannot merge histograms with different layouts: " +
+                    highestTrackableValue + "/" + significantDigits + " and " +
+                    other.highestTrackableValue + "/" + other.significantDigits);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        minValue = Math.min(minValue, other.minValue);
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram(highestTrackableValue, significantDigits);
+        copy.add(this);
+        return copy;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = 0;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    public int getSignificantDigits() {
+        return significantDigits;
+    }
+
+    /**
+     * Get smallest recorded value in microseconds, 0 when the histogram is empty.
+     */
+    public long getMinValue() {
+        return (totalCount == 0) ? 0 : minValue;
+    }
+
+    /**
+     * Get largest recorded value in microseconds, exact rather than rounded to the bucket.
+     */
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    public double getMean() {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                sum += (double) medianEquivalentValue(valueFromIndex(i)) * counts[i];
+            }
+        }
+        return sum / totalCount;
+    }
+
+    public double getStdDeviation() {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double mean = getMean();
+        double squaredDeviations = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                double deviation = medianEquivalentValue(valueFromIndex(i)) - mean;
+                squaredDeviations += deviation * deviation * counts[i];
+            }
+        }
+        return Math.sqrt(squaredDeviations / totalCount);
+    }
+
+    /**
+     * Get the value below which the given percentage of recorded values fall.
+     * @param percentile percentile between 0 and 100
+     * @return highest value in microseconds that is equivalent to the value at the percentile
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double requestedPercentile = Math.min(Math.max(percentile, 0), 100);
+        long countAtPercentile = (long) (((requestedPercentile / 100) * totalCount) + 0.5);
+        countAtPercentile = Math.max(countAtPercentile, 1);
+        long countToIndex = 0;
+        for (int i = 0; i < counts.length; i++) {
+            countToIndex += counts[i];
+            if (countToIndex >= countAtPercentile) {
+                long valueAtIndex = valueFromIndex(i);
+                if (percentile == 0) {
+                    return lowestEquivalentValue(valueAtIndex);
+                }
+                return Math.min(highestEquivalentValue(valueAtIndex), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    /**
+     * Print count, mean, standard deviation and p50/p90/p99/p99.9/max of the histogram in milliseconds.
+     */
+    public void printSummary(PrintStream out) {
+        out.println(String.format("Samples: %d, mean: %.3f ms, standard deviation: %.3f ms, min: %.3f ms",
+                totalCount, getMean() / 1000, getStdDeviation() / 1000, getMinValue() / 1000.0));
+        out.println(String.format("p50: %.3f ms, p90: %.3f ms, p99: %.3f ms, p99.9: %.3f ms, max: %.3f ms",
+                getValueAtPercentile(50) / 1000.0, getValueAtPercentile(90) / 1000.0,
+                getValueAtPercentile(99) / 1000.0, getValueAtPercentile(99.9) / 1000.0, getMaxValue() / 1000.0));
+    }
+
+    private int countsArrayIndex(long value) {
+        int bucketIndex = getBucketIndex(value);
+        int subBucketIndex = getSubBucketIndex(value, bucketIndex);
+        int bucketBaseIndex = (bucketIndex + 1) << subBucketHalfCountMagnitude;
+        int offsetInBucket = subBucketIndex - subBucketHalfCount;
+        return bucketBaseIndex + offsetInBucket;
+    }
+
+    private int getBucketIndex(long value) {
+        return leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+    }
+
+    private int getSubBucketIndex(long value, int bucketIndex) {
+        return (int) (value >>> bucketIndex);
+    }
+
+    private long valueFromIndex(int index) {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        return ((long) subBucketIndex) << bucketIndex;
+    }
+
+    private long sizeOfEquivalentValueRange(long value) {
+        int bucketIndex = getBucketIndex(value);
+        int subBucketIndex = getSubBucketIndex(value, bucketIndex);
+        int adjustedBucket = (subBucketIndex >= subBucketCount) ? (bucketIndex + 1) : bucketIndex;
+        return 1L << adjustedBucket;
+    }
+
+    private long lowestEquivalentValue(long value) {
+        int bucketIndex = getBucketIndex(value);
+        int subBucketIndex = getSubBucketIndex(value, bucketIndex);
+        return ((long) subBucketIndex) << bucketIndex;
+    }
+
+    private long highestEquivalentValue(long value) {
+        return lowestEquivalentValue(value) + sizeOfEquivalentValueRange(value) - 1;
+    }
+
+    private long medianEquivalentValue(long value) {
+        return lowestEquivalentValue(value) + (sizeOfEquivalentValueRange(value) >> 1);
+    }
+}
@@ -0,0 +1,150 @@
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latencies and completed query counts of one load test run, kept per query. Results of the clients of a run are
+ * merged into a single result with {@link #add}.
+ */
+public class LoadResult {
+
+    private final String label;
+    private long durationNanos;
+    private final LinkedHashMap<String, LatencyHistogram> queryHistograms = new LinkedHashMap<String, LatencyHistogram>();
+    private final LinkedHashMap<String, Long> queryErrors = new LinkedHashMap<String, Long>();
+    private long failedClients; // Clients that failed as a whole, e.g. could not connect, and recorded nothing
+
+    /**
+     * @param label description of the run used in reports, e.g. "16 clients"
+     * @param durationNanos length of the measured part of the run
+     */
+    public LoadResult(String label, long durationNanos) {
+        this.label = label;
+        this.durationNanos = durationNanos;
+    }
+
+    public void recordLatency(BenchmarkQuery query, long latencyNanos) {
+        getQueryHistogram(query.getName()).recordNanos(latencyNanos);
+    }
+
+    public void recordError(BenchmarkQuery query) {
+        Long errors = queryErrors.get(query.getName());
+        queryErrors.put(query.getName(), (errors == null) ? 1 : errors + 1);
+    }
+
+    /**
+     * Record a client that failed as a whole instead of returning its result.
+     */
+    public void recordFailedClient() {
+        failedClients++;
+    }
+
+    /**
+     * Add latencies and errors of another result, e.g. of another client of the same run.
+     */
+    public void add(LoadResult other) {
+        failedClients += other.failedClients;
+        for (Map.Entry<String, LatencyHistogram> entry : other.queryHistograms.entrySet()) {
+            getQueryHistogram(entry.getKey()).add(entry.getValue());
+        }
+        for (Map.Entry<String, Long> entry : other.queryErrors.entrySet()) {
+            Long errors = queryErrors.get(entry.getKey());
+            queryErrors.put(entry.getKey(), (errors == null) ? entry.getValue() : errors + entry.getValue());
+        }
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public void setDurationNanos(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Get histogram of the query with the given name, creating an empty one if nothing has been recorded yet.
+     */
+    public LatencyHistogram getQueryHistogram(String queryName) {
+        LatencyHistogram histogram = queryHistograms.get(queryName);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            queryHistograms.put(queryName, histogram);
+        }
+        return histogram;
+    }
+
+    public Map<String, LatencyHistogram> getQueryHistograms() {
+        return queryHistograms;
+    }
+
+    /**
+     * Get histogram containing the latencies of every query.
+     */
+    public LatencyHistogram getCombinedHistogram() {
+        LatencyHistogram combined = new LatencyHistogram();
+        for (LatencyHistogram histogram : queryHistograms.values()) {
+            combined.add(histogram);
+        }
+        return combined;
+    }
+
+    public long getCompletedCount() {
+        long completed = 0;
+        for (LatencyHistogram histogram : queryHistograms.values()) {
+            completed += histogram.getTotalCount();
+        }
+        return completed;
+    }
+
+    public long getErrorCount() {
+        long errors = 0;
+        for (long queryErrorCount : queryErrors.values()) {
+            errors += queryErrorCount;
+        }
+        return errors;
+    }
+
+    public long getFailedClientCount() {
+        return failedClients;
+    }
+
+    /**
+     * Get completed queries per second over the measured part of the run.
+     */
+    public double getThroughput() {
+        if (durationNanos <= 0) {
+            return 0;
+        }
+        return getCompletedCount() / (durationNanos / 1e9);
+    }
+
+    public double getQueryThroughput(String queryName) {
+        if (durationNanos <= 0) {
+            return 0;
+        }
+        return getQueryHistogram(queryName).getTotalCount() / (durationNanos / 1e9);
+    }
+
+    /**
+     * Print throughput and the latency distribution of every query.
+     */
+    public void print(PrintStream out) {
+        out.println(String.format("%s: %d queries in %.1f s, throughput %.1f queries/s, %d errors",
+                label, getCompletedCount(), durationNanos / 1e9, getThroughput(), getErrorCount()));
+        for (Map.Entry<String, LatencyHistogram> entry : queryHistograms.entrySet()) {
+            out.println(entry.getKey() + String.format(" (%.1f queries/s)", getQueryThroughput(entry.getKey())));
+            entry.getValue().printSummary(out);
+        }
+        for (Map.Entry<String, Long> entry : queryErrors.entrySet()) {
+            out.println(entry.getKey() + " failed " + entry.getValue() + " times");
+        }
+        if (failedClients > 0) {
+            out.println(failedClients + " clients failed and are not part of the results");
+        }
+        out.println();
+    }
+}
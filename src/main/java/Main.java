@@ -1,18 +1,60 @@
 import org.antlr.v4.runtime.atn.SemanticContext;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 public class Main {
     private static boolean IS_DEBUG_MODE = false;
     private static int QUERY_TEST_ITERATION_COUNT = 12;
+    private static boolean CONSUME_FULL_RESULT = false;
+    private static boolean CAPTURE_PLANS = false;
+    private static String WORKLOAD_FILE = null; // Workload definition run instead of the built-in test order
+    private static int WARMUP_ITERATION_COUNT = 0;
+    private static double STEADY_STATE_THRESHOLD = 0;
+    private static int STEADY_STATE_WINDOW = 10;
+    private static long STEADY_STATE_BUDGET_SECONDS = 60;
+    private static int[] LOAD_CLIENT_COUNTS = null; // Client counts of the closed-loop load mode, null disables it
+    private static long LOAD_DURATION_SECONDS = 30;
+    private static long LOAD_WARMUP_SECONDS = 5;
+    private static String LOAD_MIX = null; // Query families and weights like "invoice-price:4,work-price-short:1"
+    private static String OPEN_LOOP_SCHEDULE = null; // Rate schedule of the open-loop load mode, null disables it
+    private static OpenLoopLoadGenerator.ArrivalProcess OPEN_LOOP_ARRIVAL = OpenLoopLoadGenerator.ArrivalProcess.POISSON;
+    private static int OPEN_LOOP_WORKER_COUNT = 64;
+    private static double CAPACITY_SLO_MILLIS = 0; // p99 objective of the capacity search mode, 0 disables it
+    private static long CAPACITY_PROBE_SECONDS = 20;
+    private static ThreadMode THREAD_MODE = ThreadMode.PLATFORM;
+    private static boolean COMPARE_THREAD_MODES = false;
+    private static int CYPHER_API_CONNECTION_COUNT = 0; // Bolt connections of the Cypher API comparison, 0 disables it
+    private static int CYPHER_API_IN_FLIGHT = 4; // Async and reactive queries in flight per connection
+    private static long CYPHER_FETCH_SIZE = 1000;
+    private static int SQL_PIPELINE_IN_FLIGHT = 0; // Concurrent queries of the SQL execution comparison, 0 disables it
+    private static int SQL_PIPELINE_CONNECTION_COUNT = 4;
+    private static int SQL_PIPELINE_DEPTH = 8;
+    private static String KEY_DISTRIBUTION = null; // Distribution of the query keys, null if not set
+    private static int PLAN_CACHE_ITERATION_COUNT = 0; // Iterations of the plan cache comparison, 0 disables it
+    private static int INDEX_EXPLORER_ITERATION_COUNT = 0; // Iterations per index set of the explorer, 0 disables it
+    private static String EXPORT_DIRECTORY = null; // Directory of the JSON lines and CSV results, null disables export
+    private static long PROGRESS_INTERVAL_SECONDS = 10; // Time between two data generation progress reports
+    private static boolean SAMPLE_SERVER_STATISTICS = false; // Report server counter deltas per query and phase
+    private static CacheState[] CACHE_STATES = {CacheState.AS_IS}; // Cache states every query is measured in
+    private static String CACHE_EVICT_COMMAND = null; // Shell command run before every cold iteration
+    private static ScaleFactor SCALE_FACTOR = null; // Size of the generated data, null for the default of the mode
+    private static ScaleFactor[] SCALE_SWEEP = null; // Scale factors of the sweep mode, null disables it
+    private static int[][] MIXED_RATIOS = null; // Reader:writer counts of the mixed workload, null disables it
     
     public static void main(String[] args) {
+        if (args.length >= 1 && args[0].equalsIgnoreCase("compare")) {
+            System.exit(compareRuns(args));
+        }
+
         //
         // Parse CLI parameters
         //
         if (args.length >= 1 && args[0].equalsIgnoreCase("debug")) {
             IS_DEBUG_MODE = true;
-            if (args.length >= 2) {
+            if (args.length >= 2 && !args[1].startsWith("--")) {
                 try {
                     QUERY_TEST_ITERATION_COUNT = Integer.parseInt(args[1]);
                 } catch (NumberFormatException e) {
@@ -20,6 +62,92 @@ public class Main {
                 }
             }
         }
+        for (String arg : args) {
+            if (arg.equalsIgnoreCase("--consume-results")) {
+                // Read every row inside the timed section and report time to first/last row per iteration
+                CONSUME_FULL_RESULT = true;
+            } else if (arg.startsWith("--workload=")) {
+                WORKLOAD_FILE = arg.substring("--workload=".length());
+            } else if (arg.equalsIgnoreCase("--plans")) {
+                CAPTURE_PLANS = true;
+            } else if (arg.startsWith("--warmup=")) {
+                WARMUP_ITERATION_COUNT = Integer.parseInt(arg.substring("--warmup=".length()));
+            } else if (arg.equalsIgnoreCase("--steady-state")) {
+                STEADY_STATE_THRESHOLD = 0.05;
+            } else if (arg.startsWith("--steady-state=")) {
+                STEADY_STATE_THRESHOLD = Double.parseDouble(arg.substring("--steady-state=".length()));
+            } else if (arg.startsWith("--steady-window=")) {
+                STEADY_STATE_WINDOW = Integer.parseInt(arg.substring("--steady-window=".length()));
+            } else if (arg.startsWith("--steady-budget=")) {
+                STEADY_STATE_BUDGET_SECONDS = Long.parseLong(arg.substring("--steady-budget=".length()));
+            } else if (arg.startsWith("--load=")) {
+                LOAD_CLIENT_COUNTS = parseIntList(arg.substring("--load=".length()));
+            } else if (arg.startsWith("--load-duration=")) {
+                LOAD_DURATION_SECONDS = Long.parseLong(arg.substring("--load-duration=".length()));
+            } else if (arg.startsWith("--load-warmup=")) {
+                LOAD_WARMUP_SECONDS = Long.parseLong(arg.substring("--load-warmup=".length()));
+            } else if (arg.startsWith("--load-mix=")) {
+                LOAD_MIX = arg.substring("--load-mix=".length());
+            } else if (arg.startsWith("--open-loop=")) {
+                OPEN_LOOP_SCHEDULE = arg.substring("--open-loop=".length());
+            } else if (arg.startsWith("--arrival=")) {
+                OPEN_LOOP_ARRIVAL = OpenLoopLoadGenerator.ArrivalProcess.valueOf(
+                        arg.substring("--arrival=".length()).toUpperCase());
+            } else if (arg.startsWith("--open-loop-workers=")) {
+                OPEN_LOOP_WORKER_COUNT = Integer.parseInt(arg.substring("--open-loop-workers=".length()));
+            } else if (arg.startsWith("--capacity=")) {
+                CAPACITY_SLO_MILLIS = Double.parseDouble(arg.substring("--capacity=".length()));
+            } else if (arg.startsWith("--capacity-probe=")) {
+                CAPACITY_PROBE_SECONDS = Long.parseLong(arg.substring("--capacity-probe=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                THREAD_MODE = ThreadMode.valueOf(arg.substring("--threads=".length()).toUpperCase());
+            } else if (arg.equalsIgnoreCase("--compare-threads")) {
+                COMPARE_THREAD_MODES = true;
+            } else if (arg.startsWith("--cypher-api=")) {
+                CYPHER_API_CONNECTION_COUNT = Integer.parseInt(arg.substring("--cypher-api=".length()));
+            } else if (arg.startsWith("--cypher-in-flight=")) {
+                CYPHER_API_IN_FLIGHT = Integer.parseInt(arg.substring("--cypher-in-flight=".length()));
+            } else if (arg.startsWith("--cypher-fetch-size=")) {
+                CYPHER_FETCH_SIZE = Long.parseLong(arg.substring("--cypher-fetch-size=".length()));
+            } else if (arg.startsWith("--sql-pipeline=")) {
+                SQL_PIPELINE_IN_FLIGHT = Integer.parseInt(arg.substring("--sql-pipeline=".length()));
+            } else if (arg.startsWith("--sql-pipeline-connections=")) {
+                SQL_PIPELINE_CONNECTION_COUNT = Integer.parseInt(
+                        arg.substring("--sql-pipeline-connections=".length()));
+            } else if (arg.startsWith("--sql-pipeline-depth=")) {
+                SQL_PIPELINE_DEPTH = Integer.parseInt(arg.substring("--sql-pipeline-depth=".length()));
+            } else if (arg.startsWith("--keys=")) {
+                KEY_DISTRIBUTION = arg.substring("--keys=".length());
+            } else if (arg.startsWith("--export=")) {
+                EXPORT_DIRECTORY = arg.substring("--export=".length());
+            } else if (arg.startsWith("--progress=")) {
+                PROGRESS_INTERVAL_SECONDS = Long.parseLong(arg.substring("--progress=".length()));
+            } else if (arg.equalsIgnoreCase("--server-stats")) {
+                SAMPLE_SERVER_STATISTICS = true;
+            } else if (arg.startsWith("--cache=")) {
+                CACHE_STATES = CacheState.parse(arg.substring("--cache=".length()));
+            } else if (arg.startsWith("--cache-evict-command=")) {
+                CACHE_EVICT_COMMAND = arg.substring("--cache-evict-command=".length());
+            } else if (arg.startsWith("--plan-cache=")) {
+                PLAN_CACHE_ITERATION_COUNT = Integer.parseInt(arg.substring("--plan-cache=".length()));
+            } else if (arg.startsWith("--scale=")) {
+                SCALE_FACTOR = new ScaleFactor(Double.parseDouble(arg.substring("--scale=".length())));
+            } else if (arg.startsWith("--scale-sweep=")) {
+                SCALE_SWEEP = ScaleFactor.parseList(arg.substring("--scale-sweep=".length()));
+            } else if (arg.startsWith("--mixed=")) {
+                MIXED_RATIOS = MixedWorkload.parseRatios(arg.substring("--mixed=".length()));
+            } else if (arg.startsWith("--index-explorer=")) {
+                INDEX_EXPLORER_ITERATION_COUNT = Integer.parseInt(arg.substring("--index-explorer=".length()));
+            }
+        }
+        // The plan cache comparison needs a different key for every execution: Neo4j answers a repeated query text
+        // from its query cache without even parsing it, and PostgreSQL would plan its custom plans for one key only
+        if (KEY_DISTRIBUTION == null) {
+            KEY_DISTRIBUTION = (PLAN_CACHE_ITERATION_COUNT > 0) ? "uniform" : "fixed";
+        } else if (PLAN_CACHE_ITERATION_COUNT > 0 && KEY_DISTRIBUTION.trim().toLowerCase().startsWith("fixed")) {
+            throw new IllegalArgumentException("--plan-cache needs varying keys, --keys=fixed sends the same query " +
+                    "text every time");
+        }
         
         //
         // SQL DBMS Settings
@@ -56,6 +184,9 @@ public class Main {
         // Then loads sample data from csv files, and by using that data generates necessary SQL tables
         // and Neo4j nodes for the benchmark.
         DataGenerator dataGenerator = new DataGenerator(sql_databases, neo4j_settings, mysql_db_url);
+        dataGenerator.setThreadMode(THREAD_MODE);
+        dataGenerator.setProgressInterval(PROGRESS_INTERVAL_SECONDS * 1000);
+        dataGenerator.setSampleServerStatistics(SAMPLE_SERVER_STATISTICS);
 
         // Create tables for "warehouse" and "testdata" databases
         dataGenerator.createTables();
@@ -65,21 +196,359 @@ public class Main {
         dataGenerator.loadSampleData(10, mysql_db_url);
 
         // Generate benchmark records for "warehouse" database
-        
-        if (IS_DEBUG_MODE) {
-            dataGenerator.insertItemsAndWorkTypes(2, 10, 10, 100);
-            dataGenerator.insertWorkData(2, 10, 10, 10, 10);
-            dataGenerator.insertCustomerData(2, 10, 10, 10, 0, 10, 10);
-        } else {
-            dataGenerator.insertItemsAndWorkTypes(10, 10, 10000, 10000);
-            dataGenerator.insertWorkData(10, 1000, 10, 10, 10);
-            dataGenerator.insertCustomerData(10, 1000, 10, 10, 0, 10, 10);
+        ScaleFactor scaleFactor = (SCALE_SWEEP != null) ? SCALE_SWEEP[0] : (SCALE_FACTOR != null) ? SCALE_FACTOR :
+                (IS_DEBUG_MODE) ? ScaleFactor.DEBUG : ScaleFactor.DEFAULT;
+        System.out.println("Generating data of " + scaleFactor);
+        scaleFactor.generate(dataGenerator);
+
+        // Keys of the parameterized queries are drawn from the generated id ranges
+        KeySpace keySpace = new KeySpace(KEY_DISTRIBUTION);
+        try {
+            keySpace.setRange(QueryCatalog.INVOICE_ID, 0, dataGenerator.getLastInvoiceId());
+            keySpace.setRange(QueryCatalog.CUSTOMER_ID, 0, dataGenerator.getLastCustomerId());
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        System.out.println("Query keys: " + keySpace);
+
+        QueryMix mix = (LOAD_MIX == null) ? QueryMix.uniform(QueryCatalog.standardQueries()) :
+                QueryMix.parse(LOAD_MIX, QueryCatalog.standardQueries());
+        long durationMillis = LOAD_DURATION_SECONDS * 1000;
+        long warmupMillis = LOAD_WARMUP_SECONDS * 1000;
+
+        if (SCALE_SWEEP != null) {
+            // Scale factor sweep replaces the single query measurements
+            ScaleSweep scaleSweep = new ScaleSweep(mysql_db_url, db_settings, neo4j_settings);
+            scaleSweep.setKeySpace(keySpace);
+            List<BenchmarkQuery> queries = new ArrayList<BenchmarkQuery>(mix.getQueries());
+            if (LOAD_MIX == null) {
+                queries.addAll(QueryCatalog.recursiveQueries());
+            }
+
+            for (int i = 0; i < SCALE_SWEEP.length; i++) {
+                if (i > 0) {
+                    System.out.println();
+                    System.out.println("GROWING DATA TO " + SCALE_SWEEP[i]);
+                    System.out.println();
+
+                    SCALE_SWEEP[i].grow(dataGenerator, SCALE_SWEEP[i - 1]);
+                    try {
+                        keySpace.setRange(QueryCatalog.INVOICE_ID, 0, dataGenerator.getLastInvoiceId());
+                        keySpace.setRange(QueryCatalog.CUSTOMER_ID, 0, dataGenerator.getLastCustomerId());
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                    }
+                }
+
+                scaleSweep.runAll(queries, SCALE_SWEEP[i], QUERY_TEST_ITERATION_COUNT, WARMUP_ITERATION_COUNT,
+                        "NO INDEXES");
+
+                System.out.println();
+                System.out.println("CREATING INDEXES");
+                System.out.println();
+
+                dataGenerator.createIndexes();
+
+                scaleSweep.runAll(queries, SCALE_SWEEP[i], QUERY_TEST_ITERATION_COUNT, WARMUP_ITERATION_COUNT,
+                        "INDEXES");
+
+                System.out.println();
+                System.out.println("DELETING INDEXES");
+                System.out.println();
+
+                dataGenerator.deleteIndexes();
+            }
+            scaleSweep.printReport();
+            return;
+        }
+
+        if (MIXED_RATIOS != null) {
+            // Mixed read/write workload replaces the single query measurements
+            MixedWorkload mixedWorkload = new MixedWorkload(mysql_db_url, db_settings, neo4j_settings,
+                    dataGenerator);
+            mixedWorkload.setThreadMode(THREAD_MODE);
+            mixedWorkload.setKeySpace(keySpace);
+
+            mixedWorkload.runAll(mix, MIXED_RATIOS, durationMillis, warmupMillis, "NO INDEXES");
+
+            System.out.println();
+            System.out.println("CREATING INDEXES");
+            System.out.println();
+
+            dataGenerator.createIndexes();
+
+            mixedWorkload.runAll(mix, MIXED_RATIOS, durationMillis, warmupMillis, "INDEXES");
+
+            System.out.println();
+            System.out.println("DELETING INDEXES");
+            System.out.println();
+
+            dataGenerator.deleteIndexes();
+            mixedWorkload.printReport();
+            return;
+        }
+
+        if (INDEX_EXPLORER_ITERATION_COUNT > 0) {
+            // Index explorer replaces the single query measurements
+            IndexExplorer indexExplorer = new IndexExplorer(mysql_db_url, db_settings, neo4j_settings);
+            indexExplorer.setKeySpace(keySpace);
+            List<BenchmarkQuery> queries = new ArrayList<BenchmarkQuery>(mix.getQueries());
+            if (LOAD_MIX == null) {
+                queries.addAll(QueryCatalog.recursiveQueries());
+            }
+
+            System.out.println();
+            System.out.println("EXPLORING INDEXES");
+            System.out.println();
+
+            indexExplorer.exploreAll(queries, INDEX_EXPLORER_ITERATION_COUNT, WARMUP_ITERATION_COUNT);
+            indexExplorer.printReport();
+            return;
+        }
+
+        if (PLAN_CACHE_ITERATION_COUNT > 0) {
+            // Plan cache comparison replaces the single query measurements
+            PlanCacheComparison planCacheComparison = new PlanCacheComparison(mysql_db_url, db_settings,
+                    neo4j_settings);
+            planCacheComparison.setKeySpace(keySpace);
+            List<BenchmarkQuery> queries = new ArrayList<BenchmarkQuery>(mix.getQueries());
+            if (LOAD_MIX == null) {
+                queries.addAll(QueryCatalog.recursiveQueries());
+            }
+
+            planCacheComparison.runAll(queries, PLAN_CACHE_ITERATION_COUNT, WARMUP_ITERATION_COUNT, "NO INDEXES");
+
+            System.out.println();
+            System.out.println("CREATING INDEXES");
+            System.out.println();
+
+            dataGenerator.createIndexes();
+
+            planCacheComparison.runAll(queries, PLAN_CACHE_ITERATION_COUNT, WARMUP_ITERATION_COUNT, "INDEXES");
+
+            System.out.println();
+            System.out.println("DELETING INDEXES");
+            System.out.println();
+
+            dataGenerator.deleteIndexes();
+            planCacheComparison.printReport();
+            return;
+        }
+
+        if (SQL_PIPELINE_IN_FLIGHT > 0) {
+            // SQL execution comparison replaces the single query measurements
+            SqlExecutionComparison sqlComparison = new SqlExecutionComparison(mysql_db_url, db_settings);
+            sqlComparison.setKeySpace(keySpace);
+            List<BenchmarkQuery> sqlQueries = new ArrayList<BenchmarkQuery>(mix.getQueries());
+            if (LOAD_MIX == null) {
+                sqlQueries.addAll(QueryCatalog.recursiveQueries());
+            }
+
+            sqlComparison.runAll(sqlQueries, SQL_PIPELINE_IN_FLIGHT, SQL_PIPELINE_CONNECTION_COUNT,
+                    SQL_PIPELINE_DEPTH, durationMillis, warmupMillis, "NO INDEXES");
+
+            System.out.println();
+            System.out.println("CREATING INDEXES");
+            System.out.println();
+
+            dataGenerator.createIndexes();
+
+            sqlComparison.runAll(sqlQueries, SQL_PIPELINE_IN_FLIGHT, SQL_PIPELINE_CONNECTION_COUNT,
+                    SQL_PIPELINE_DEPTH, durationMillis, warmupMillis, "INDEXES");
+
+            System.out.println();
+            System.out.println("DELETING INDEXES");
+            System.out.println();
+
+            dataGenerator.deleteIndexes();
+            sqlComparison.printReport();
+            return;
+        }
+
+        if (CYPHER_API_CONNECTION_COUNT > 0) {
+            // Cypher API comparison replaces the single query measurements
+            AsyncCypherBenchmark cypherBenchmark = new AsyncCypherBenchmark(neo4j_settings);
+            cypherBenchmark.setKeySpace(keySpace);
+            QueryMix cypherMix = (LOAD_MIX == null) ? QueryMix.parse(
+                    "work-price-short,work-price-long,invoice-price", QueryCatalog.standardQueries()) : mix;
+
+            cypherBenchmark.runAll(cypherMix.getQueries(), CYPHER_API_CONNECTION_COUNT, CYPHER_API_IN_FLIGHT,
+                    CYPHER_FETCH_SIZE, durationMillis, warmupMillis, "NO INDEXES");
+
+            System.out.println();
+            System.out.println("CREATING INDEXES");
+            System.out.println();
+
+            dataGenerator.createIndexes();
+
+            cypherBenchmark.runAll(cypherMix.getQueries(), CYPHER_API_CONNECTION_COUNT, CYPHER_API_IN_FLIGHT,
+                    CYPHER_FETCH_SIZE, durationMillis, warmupMillis, "INDEXES");
+
+            System.out.println();
+            System.out.println("DELETING INDEXES");
+            System.out.println();
+
+            dataGenerator.deleteIndexes();
+            cypherBenchmark.printReport();
+            return;
+        }
+
+        if (COMPARE_THREAD_MODES) {
+            // Thread mode comparison replaces the single query measurements
+            OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(mysql_db_url, db_settings, neo4j_settings);
+            generator.setKeySpace(keySpace);
+            RateSchedule schedule = RateSchedule.parse((OPEN_LOOP_SCHEDULE == null) ? "100" : OPEN_LOOP_SCHEDULE,
+                    durationMillis);
+            ThreadModeComparison comparison = new ThreadModeComparison(generator);
+
+            comparison.run(mix, schedule, OPEN_LOOP_ARRIVAL, OPEN_LOOP_WORKER_COUNT, durationMillis, warmupMillis,
+                    "NO INDEXES");
+
+            System.out.println();
+            System.out.println("CREATING INDEXES");
+            System.out.println();
+
+            dataGenerator.createIndexes();
+
+            comparison.run(mix, schedule, OPEN_LOOP_ARRIVAL, OPEN_LOOP_WORKER_COUNT, durationMillis, warmupMillis,
+                    "INDEXES");
+
+            System.out.println();
+            System.out.println("DELETING INDEXES");
+            System.out.println();
+
+            dataGenerator.deleteIndexes();
+            comparison.printReport();
+            return;
+        }
+
+        if (CAPACITY_SLO_MILLIS > 0) {
+            // Capacity search mode replaces the single query measurements
+            OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(mysql_db_url, db_settings, neo4j_settings);
+            generator.setThreadMode(THREAD_MODE);
+            generator.setKeySpace(keySpace);
+            CapacitySearch capacitySearch = new CapacitySearch(generator, (long) (CAPACITY_SLO_MILLIS * 1000),
+                    CAPACITY_PROBE_SECONDS * 1000, warmupMillis, OPEN_LOOP_WORKER_COUNT);
+
+            capacitySearch.searchFamilies(mix.getQueries(), "NO INDEXES");
+
+            System.out.println();
+            System.out.println("CREATING INDEXES");
+            System.out.println();
+
+            dataGenerator.createIndexes();
+
+            capacitySearch.searchFamilies(mix.getQueries(), "INDEXES");
+
+            System.out.println();
+            System.out.println("DELETING INDEXES");
+            System.out.println();
+
+            dataGenerator.deleteIndexes();
+            capacitySearch.printReport();
+            return;
+        }
+
+        if (OPEN_LOOP_SCHEDULE != null) {
+            // Open-loop load mode replaces the single query measurements
+            OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(mysql_db_url, db_settings, neo4j_settings);
+            generator.setThreadMode(THREAD_MODE);
+            generator.setKeySpace(keySpace);
+            RateSchedule schedule = RateSchedule.parse(OPEN_LOOP_SCHEDULE, durationMillis);
+
+            generator.run(mix, schedule, OPEN_LOOP_ARRIVAL, OPEN_LOOP_WORKER_COUNT, durationMillis, warmupMillis,
+                    "NO INDEXES").print(System.out);
+            generator.getLastServiceTimes().print(System.out);
+
+            System.out.println();
+            System.out.println("CREATING INDEXES");
+            System.out.println();
+
+            dataGenerator.createIndexes();
+
+            generator.run(mix, schedule, OPEN_LOOP_ARRIVAL, OPEN_LOOP_WORKER_COUNT, durationMillis, warmupMillis,
+                    "INDEXES").print(System.out);
+            generator.getLastServiceTimes().print(System.out);
+
+            System.out.println();
+            System.out.println("DELETING INDEXES");
+            System.out.println();
+
+            dataGenerator.deleteIndexes();
+            return;
+        }
+
+        if (LOAD_CLIENT_COUNTS != null) {
+            // Closed-loop load mode replaces the single query measurements
+            ClosedLoopLoadDriver loadDriver = new ClosedLoopLoadDriver(mysql_db_url, db_settings, neo4j_settings);
+            loadDriver.setThreadMode(THREAD_MODE);
+            loadDriver.setKeySpace(keySpace);
+
+            loadDriver.runConcurrencyLevels(mix, LOAD_CLIENT_COUNTS, durationMillis, warmupMillis, "NO INDEXES");
+
+            System.out.println();
+            System.out.println("CREATING INDEXES");
+            System.out.println();
+
+            dataGenerator.createIndexes();
+
+            loadDriver.runConcurrencyLevels(mix, LOAD_CLIENT_COUNTS, durationMillis, warmupMillis, "INDEXES");
+
+            System.out.println();
+            System.out.println("DELETING INDEXES");
+            System.out.println();
+
+            dataGenerator.deleteIndexes();
+            return;
         }
 
         // QueryTester is used for 
         QueryTester queryTester = new QueryTester(sql_databases, neo4j_settings);
+        queryTester.setConsumeFullResult(CONSUME_FULL_RESULT);
+        queryTester.setWarmupIterations(WARMUP_ITERATION_COUNT);
+        queryTester.setSteadyState(STEADY_STATE_THRESHOLD, STEADY_STATE_WINDOW, STEADY_STATE_BUDGET_SECONDS * 1000);
+        queryTester.setCapturePlans(CAPTURE_PLANS);
+        queryTester.setSampleServerStatistics(SAMPLE_SERVER_STATISTICS);
+        queryTester.setCacheStates(CACHE_STATES, new CacheControl(CACHE_EVICT_COMMAND));
+        queryTester.setKeySpace(keySpace);
+
+        ResultExporter resultExporter = null;
+        if (EXPORT_DIRECTORY != null) {
+            try {
+                resultExporter = new ResultExporter(EXPORT_DIRECTORY);
+                resultExporter.setDatasetParameter("debug", IS_DEBUG_MODE);
+                resultExporter.setDatasetParameter("scale_factor", scaleFactor.getValue());
+                resultExporter.setDatasetParameter("customers", dataGenerator.getCustomerCount());
+                resultExporter.setDatasetParameter("invoices", dataGenerator.getInvoiceCount());
+                resultExporter.setDatasetParameter("works", dataGenerator.getWorkCount());
+                resultExporter.setDatasetParameter("work_types", dataGenerator.getWorkTypeCount());
+                resultExporter.setDatasetParameter("items", dataGenerator.getItemCount());
+                resultExporter.setDatasetParameter("sequential_invoices", 0);
+                queryTester.setResultExporter(resultExporter);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        if (WORKLOAD_FILE != null) {
+            ClosedLoopLoadDriver loadDriver = new ClosedLoopLoadDriver(mysql_db_url, db_settings, neo4j_settings);
+            loadDriver.setThreadMode(THREAD_MODE);
+            loadDriver.setKeySpace(keySpace);
+            try {
+                Workload workload = Workload.load(WORKLOAD_FILE);
+                new WorkloadRunner(queryTester, dataGenerator, loadDriver).run(workload,
+                        IS_DEBUG_MODE ? QUERY_TEST_ITERATION_COUNT : 0);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            if (resultExporter != null) {
+                resultExporter.close();
+            }
+            return;
+        }
 
         System.out.println("NO INDEXES");
+        queryTester.setPhase("NO INDEXES");
 
         queryTester.executeQueryTestsSQL(QUERY_TEST_ITERATION_COUNT, true);
         queryTester.executeQueryTestsCypher(QUERY_TEST_ITERATION_COUNT, true);
@@ -89,6 +558,7 @@ public class Main {
         System.out.println();
 
         dataGenerator.createIndexes();
+        queryTester.setPhase("INDEXES");
 
         queryTester.executeQueryTestsSQL(QUERY_TEST_ITERATION_COUNT, true);
         queryTester.executeQueryTestsCypher(QUERY_TEST_ITERATION_COUNT, true);
@@ -99,6 +569,7 @@ public class Main {
         System.out.println();
 
         dataGenerator.deleteIndexes();
+        queryTester.setPhase("NO INDEXES");
 
         queryTester.executeComplexQueryTestSQL(QUERY_TEST_ITERATION_COUNT, true);
         queryTester.executeComplexQueryTestCypher(QUERY_TEST_ITERATION_COUNT, true);
@@ -108,6 +579,7 @@ public class Main {
         System.out.println();
 
         dataGenerator.createIndexes();
+        queryTester.setPhase("INDEXES");
 
         queryTester.executeComplexQueryTestSQL(QUERY_TEST_ITERATION_COUNT, true);
         queryTester.executeComplexQueryTestCypher(QUERY_TEST_ITERATION_COUNT, true);
@@ -117,6 +589,7 @@ public class Main {
         System.out.println();
 
         dataGenerator.deleteIndexes();
+        queryTester.setPhase("NO INDEXES");
 
         //System.out.println();
         //System.out.println("REMOVING MySQL");
@@ -132,6 +605,7 @@ public class Main {
         System.out.println();
 
         dataGenerator.createIndexes();
+        queryTester.setPhase("INDEXES");
 
         queryTester.executeQueryWithDefinedKeySQL(QUERY_TEST_ITERATION_COUNT, true);
         queryTester.executeQueryWithDefinedKeyCypher(QUERY_TEST_ITERATION_COUNT, true);
@@ -141,24 +615,27 @@ public class Main {
         System.out.println();
 
         dataGenerator.deleteIndexes();
+        queryTester.setPhase("NO INDEXES");
         
-        HashMap<String, Integer> customerInvoice = dataGenerator.insertSequentialInvoices(1, 10, (IS_DEBUG_MODE) ? 10 : 100);
+        int chainLength = (IS_DEBUG_MODE) ? 10 : 100;
+        HashMap<String, Integer> customerInvoice = dataGenerator.insertSequentialInvoices(1, 10, chainLength);
 
         int invoiceIndex = customerInvoice.get("invoiceIndex");
         int customerIndex = customerInvoice.get("customerIndex");
 
-        queryTester.executeRecursiveQueryTestSQL(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex);
-        queryTester.executeRecursiveQueryTestCypher(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex);
+        queryTester.executeRecursiveQueryTestSQL(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex, chainLength);
+        queryTester.executeRecursiveQueryTestCypher(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex, chainLength);
 
         System.out.println("customerIndex " + customerIndex);
         dataGenerator.cleanSequentialInvoices(customerIndex);
 
-        customerInvoice = dataGenerator.insertSequentialInvoices(1, 10, (IS_DEBUG_MODE) ? 100 : 1000);
+        chainLength = (IS_DEBUG_MODE) ? 100 : 1000;
+        customerInvoice = dataGenerator.insertSequentialInvoices(1, 10, chainLength);
 
         invoiceIndex = customerInvoice.get("invoiceIndex");
 
-        queryTester.executeRecursiveQueryTestSQL(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex);
-        queryTester.executeRecursiveQueryTestCypher(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex);
+        queryTester.executeRecursiveQueryTestSQL(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex, chainLength);
+        queryTester.executeRecursiveQueryTestCypher(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex, chainLength);
 
         dataGenerator.cleanSequentialInvoices(customerIndex);
 
@@ -167,25 +644,81 @@ public class Main {
         System.out.println();
 
         dataGenerator.createIndexes();
+        queryTester.setPhase("INDEXES");
 
-        customerInvoice = dataGenerator.insertSequentialInvoices(1, 10, (IS_DEBUG_MODE) ? 10 : 100);
+        chainLength = (IS_DEBUG_MODE) ? 10 : 100;
+        customerInvoice = dataGenerator.insertSequentialInvoices(1, 10, chainLength);
 
         invoiceIndex = customerInvoice.get("invoiceIndex");
         customerIndex = customerInvoice.get("customerIndex");
 
-        queryTester.executeRecursiveQueryTestSQL(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex);
-        queryTester.executeRecursiveQueryTestCypher(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex);
+        queryTester.executeRecursiveQueryTestSQL(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex, chainLength);
+        queryTester.executeRecursiveQueryTestCypher(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex, chainLength);
 
         System.out.println("customerIndex " + customerIndex);
         dataGenerator.cleanSequentialInvoices(customerIndex);
 
-        customerInvoice = dataGenerator.insertSequentialInvoices(1, 10, (IS_DEBUG_MODE) ? 10 : 1000);
+        chainLength = (IS_DEBUG_MODE) ? 10 : 1000;
+        customerInvoice = dataGenerator.insertSequentialInvoices(1, 10, chainLength);
 
         invoiceIndex = customerInvoice.get("invoiceIndex");
 
-        queryTester.executeRecursiveQueryTestSQL(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex);
-        queryTester.executeRecursiveQueryTestCypher(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex);
+        queryTester.executeRecursiveQueryTestSQL(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex, chainLength);
+        queryTester.executeRecursiveQueryTestCypher(QUERY_TEST_ITERATION_COUNT, true, invoiceIndex, chainLength);
 
         dataGenerator.cleanSequentialInvoices(customerIndex);
+
+        queryTester.printStabilizationReport();
+        queryTester.printClientResourceReport();
+        queryTester.printServerStatisticsReport();
+        queryTester.printCacheStateReport();
+        if (CAPTURE_PLANS) {
+            queryTester.printPlanDiffs("NO INDEXES", "INDEXES");
+        }
+        if (resultExporter != null) {
+            resultExporter.close();
+        }
+    }
+
+    /**
+     * Compare a candidate run with a baseline run exported with --export, e.g.
+     * "compare baseline.jsonl candidate.jsonl --threshold=10 --alpha=0.01".
+     * @return exit code, 1 if a query regressed, 2 if the runs could not be compared
+     */
+    private static int compareRuns(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: compare BASELINE.jsonl CANDIDATE.jsonl [--threshold=PERCENT] [--alpha=P]");
+            return 2;
+        }
+        double threshold = RegressionGate.DEFAULT_THRESHOLD;
+        double alpha = RegressionGate.DEFAULT_ALPHA;
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].startsWith("--threshold=")) {
+                threshold = Double.parseDouble(args[i].substring("--threshold=".length())) / 100;
+            } else if (args[i].startsWith("--alpha=")) {
+                alpha = Double.parseDouble(args[i].substring("--alpha=".length()));
+            }
+        }
+        RegressionGate gate = new RegressionGate(threshold, alpha);
+        try {
+            gate.compare(args[1], args[2]);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return 2;
+        }
+        gate.printReport(System.out);
+        return gate.hasRegressions() ? 1 : 0;
+    }
+
+    /**
+     * Parse a comma separated list of integers like "1,4,16,64".
+     */
+    private static int[] parseIntList(String list) {
+        String[] values = list.split(",");
+        int[] numbers = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            numbers[i] = Integer.parseInt(values[i].trim());
+        }
+        return numbers;
     }
 }
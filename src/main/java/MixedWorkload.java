@@ -0,0 +1,252 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how reads and writes interfere. Reader clients run the query mix in a closed loop like
+ * {@link ClosedLoopLoadDriver} while writer threads keep inserting customers with their invoices, targets and work
+ * links using {@link DataGeneratorThreadCustomer}. Every engine is measured on its own at every reader:writer ratio:
+ * the readers run only the queries of the engine and the writers write only to it.
+ *
+ * The report shows per engine and ratio the read latency and throughput, their degradation compared to the run of
+ * the same readers without writers, and the write throughput compared to the run of the same writers without
+ * readers. PostgreSQL readers see a snapshot and are not blocked by writers (MVCC), Neo4j writers take locks on the
+ * nodes they connect. The inserted rows are deleted after every run, and the SQL tables vacuumed.
+ */
+public class MixedWorkload {
+
+    /**
+     * Result of one engine at one reader:writer ratio.
+     */
+    private static class Row {
+        final String label;
+        final BenchmarkQuery.Engine engine;
+        final int readers;
+        final int writers;
+        final LoadResult reads; // null if there were no readers
+        final long customers; // Customers the writers inserted after the warmup
+        final long rows; // Rows, nodes and relationships the writers inserted after the warmup
+        final double writeSeconds; // From the end of the warmup until the writers stopped
+
+        Row(String label, BenchmarkQuery.Engine engine, int readers, int writers, LoadResult reads, long customers,
+            long rows, double writeSeconds) {
+            this.label = label;
+            this.engine = engine;
+            this.readers = readers;
+            this.writers = writers;
+            this.reads = reads;
+            this.customers = customers;
+            this.rows = rows;
+            this.writeSeconds = writeSeconds;
+        }
+
+        double getWriteThroughput() {
+            return (writeSeconds > 0) ? rows / writeSeconds : 0;
+        }
+    }
+
+    private final DataGenerator dataGenerator;
+    private final ClosedLoopLoadDriver loadDriver;
+    private final List<Row> rows = new ArrayList<Row>();
+
+    private ThreadMode threadMode = ThreadMode.PLATFORM; // Kind of threads the writers run on
+
+    public MixedWorkload(String db_url, String[] db_settings, HashMap<String, String> neo4j_settings,
+                         DataGenerator dataGenerator) {
+        this.dataGenerator = dataGenerator;
+        this.loadDriver = new ClosedLoopLoadDriver(db_url, db_settings, neo4j_settings);
+    }
+
+    public void setThreadMode(ThreadMode threadMode) {
+        this.threadMode = threadMode;
+        loadDriver.setThreadMode(threadMode);
+    }
+
+    /**
+     * Set the key space the keys of the parameterized queries are drawn from. The keys stay in the ids generated
+     * before, the rows of the writers are not read.
+     */
+    public void setKeySpace(KeySpace keySpace) {
+        loadDriver.setKeySpace(keySpace);
+    }
+
+    /**
+     * Run every reader:writer ratio for every engine of the mix.
+     * @param ratios pairs of reader client and writer thread counts
+     * @param durationMillis measured duration of every run
+     * @param warmupMillis duration at the start of every run whose read latencies are discarded
+     * @param label description of the database state used in reports, e.g. "NO INDEXES"
+     */
+    public void runAll(QueryMix mix, int[][] ratios, long durationMillis, long warmupMillis, String label) {
+        for (BenchmarkQuery.Engine engine : BenchmarkQuery.Engine.values()) {
+            if (!mix.containsEngine(engine)) {
+                continue;
+            }
+            for (int[] ratio : ratios) {
+                run(engine, mix.forEngine(engine), ratio[0], ratio[1], durationMillis, warmupMillis, label);
+            }
+        }
+    }
+
+    /**
+     * Run the readers and writers of one engine at the same time.
+     */
+    public void run(BenchmarkQuery.Engine engine, QueryMix mix, int readers, int writers, long durationMillis,
+                    long warmupMillis, String label) {
+        String runLabel = label + ", " + engine + ", " + readers + " readers, " + writers + " writers";
+        System.out.println("Running mixed workload (" + runLabel + ") for " + durationMillis + " ms after " +
+                warmupMillis + " ms warmup.");
+        int lastCustomerId;
+        int lastInvoiceId;
+        int lastTargetId;
+        try {
+            lastCustomerId = dataGenerator.getLastCustomerId();
+            lastInvoiceId = dataGenerator.getLastInvoiceId();
+            lastTargetId = dataGenerator.getLastTargetId();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        IngestProgress progress = IngestProgress.getInstance();
+        IngestProgress.Sink sink = (engine == BenchmarkQuery.Engine.SQL) ? IngestProgress.Sink.SQL :
+                IngestProgress.Sink.NEO4J;
+        progress.startPhase("mixedWorkload " + runLabel, 0);
+        List<DataGeneratorThreadCustomer> writerThreads = new ArrayList<DataGeneratorThreadCustomer>();
+        ExecutorService executor = (writers > 0) ? threadMode.newExecutor(writers) : null;
+        LoadResult reads = null;
+        // Time, customers and rows at the end of the warmup, like the read latencies the writes count only after it
+        long[] warmupEnd = new long[3];
+        Thread warmupSnapshot = new Thread(() -> {
+            try {
+                Thread.sleep(warmupMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            warmupEnd[1] = progress.getRecords();
+            warmupEnd[2] = progress.getRows(sink);
+            warmupEnd[0] = System.nanoTime();
+        });
+        try {
+            for (int i = 0; i < writers; i++) {
+                writerThreads.add(dataGenerator.newCustomerWriter(engine, i));
+            }
+            for (DataGeneratorThreadCustomer writer : writerThreads) {
+                executor.execute(writer);
+            }
+            warmupSnapshot.start();
+            if (readers > 0) {
+                reads = loadDriver.run(mix, readers, durationMillis, warmupMillis, runLabel);
+            } else {
+                Thread.sleep(warmupMillis + durationMillis);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            long stopTime = System.nanoTime();
+            for (DataGeneratorThreadCustomer writer : writerThreads) {
+                writer.stopAt(stopTime);
+            }
+            try {
+                warmupSnapshot.interrupt();
+                warmupSnapshot.join();
+                if (executor != null) {
+                    executor.shutdown();
+                    executor.awaitTermination(1, TimeUnit.HOURS);
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        long endTime = System.nanoTime();
+        progress.finishPhase();
+        // No snapshot if the run failed during the warmup
+        double writeSeconds = (warmupEnd[0] > 0) ? (endTime - warmupEnd[0]) / 1e9 : 0;
+        Row row = new Row(label, engine, readers, writers, reads, progress.getRecords() - warmupEnd[1],
+                progress.getRows(sink) - warmupEnd[2], (writers > 0) ? writeSeconds : 0);
+        rows.add(row);
+
+        if (reads != null) {
+            reads.print(System.out);
+        }
+        if (writers > 0) {
+            System.out.println(String.format("Writers inserted %d customers and %d rows in %.1f s after the warmup, " +
+                    "%.1f rows/s", row.customers, row.rows, row.writeSeconds, row.getWriteThroughput()));
+            System.out.println("Deleting the inserted customers");
+            dataGenerator.cleanCustomersAfter(lastCustomerId, lastInvoiceId, lastTargetId);
+        }
+        System.out.println();
+    }
+
+    /**
+     * Print read latency and throughput and write throughput of every run, relative to the runs with only readers
+     * and only writers of the same engine, label and thread counts.
+     */
+    public void printReport() {
+        System.out.println("Mixed read/write workload:");
+        System.out.println("run, read throughput (queries/s), read p50 (ms), read p99 (ms), p50 vs no writers, " +
+                "p99 vs no writers, write throughput (rows/s), write throughput vs no readers, read errors");
+        for (Row row : rows) {
+            Row readBaseline = find(row, row.readers, 0);
+            Row writeBaseline = find(row, 0, row.writers);
+            String reads = "-, -, -, -, -";
+            String errors = "-";
+            if (row.reads != null) {
+                LatencyHistogram combined = row.reads.getCombinedHistogram();
+                String p50Ratio = "-";
+                String p99Ratio = "-";
+                if (readBaseline != null && readBaseline != row && readBaseline.reads != null) {
+                    LatencyHistogram baseline = readBaseline.reads.getCombinedHistogram();
+                    p50Ratio = ratio(combined.getValueAtPercentile(50), baseline.getValueAtPercentile(50));
+                    p99Ratio = ratio(combined.getValueAtPercentile(99), baseline.getValueAtPercentile(99));
+                }
+                reads = String.format("%.1f, %.3f, %.3f, %s, %s", row.reads.getThroughput(),
+                        combined.getValueAtPercentile(50) / 1000.0, combined.getValueAtPercentile(99) / 1000.0,
+                        p50Ratio, p99Ratio);
+                errors = Long.toString(row.reads.getErrorCount());
+            }
+            String writes = "-, -";
+            if (row.writers > 0) {
+                writes = String.format("%.1f, %s", row.getWriteThroughput(),
+                        (writeBaseline != null && writeBaseline != row) ?
+                                ratio(row.getWriteThroughput(), writeBaseline.getWriteThroughput()) : "-");
+            }
+            System.out.println(row.label + ", " + row.engine + ", " + row.readers + ":" + row.writers + ", " +
+                    reads + ", " + writes + ", " + errors);
+        }
+        System.out.println();
+    }
+
+    private Row find(Row row, int readers, int writers) {
+        for (Row candidate : rows) {
+            if (candidate.label.equals(row.label) && candidate.engine == row.engine && candidate.readers == readers &&
+                    candidate.writers == writers) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static String ratio(double value, double baseline) {
+        return (baseline > 0) ? String.format("%.2fx", value / baseline) : "-";
+    }
+
+    /**
+     * Parse reader:writer ratios like "8:0,8:1,8:4,0:4".
+     */
+    public static int[][] parseRatios(String list) {
+        String[] values = list.split(",");
+        int[][] ratios = new int[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            String[] counts = values[i].trim().split(":");
+            if (counts.length != 2) {
+                throw new IllegalArgumentException("Expected readers:writers, got " + values[i]);
+            }
+            ratios[i] = new int[] {Integer.parseInt(counts[0].trim()), Integer.parseInt(counts[1].trim())};
+        }
+        return ratios;
+    }
+}
@@ -0,0 +1,272 @@
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Config;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Session;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator. Requests are scheduled at a target rate independently of how fast the databases answer,
+ * the way invoices arrive from many independent users. A pool of workers, each with its own JDBC connection and
+ * Neo4j session, executes the scheduled requests.
+ *
+ * Latency is measured from the time a request was scheduled to be sent, not from the time a worker actually sent
+ * it. When the databases stall, requests queue up and their waiting time is part of their latency, which corrects
+ * the coordinated omission a closed-loop driver suffers from. The service time, measured from the actual send time,
+ * is reported separately.
+ */
+public class OpenLoopLoadGenerator {
+
+    public enum ArrivalProcess {
+        POISSON, // Exponentially distributed gaps between requests
+        UNIFORM // Constant gap between requests
+    }
+
+    private final String db_url; // SQL connection URL of the DBMS, this URL contains no database name.
+    private final String[] db_settings;
+    private final HashMap<String, String> neo4j_settings;
+
+    private ThreadMode threadMode = ThreadMode.PLATFORM; // Kind of threads the workers run on
+    private KeySpace keySpace = new KeySpace(); // Keys of the parameterized queries
+
+    private LoadResult lastServiceTimes; // Service times of the latest run
+
+    public OpenLoopLoadGenerator(String db_url, String[] db_settings, HashMap<String, String> neo4j_settings) {
+        this.db_url = db_url;
+        this.db_settings = db_settings;
+        this.neo4j_settings = neo4j_settings;
+    }
+
+    public void setThreadMode(ThreadMode threadMode) {
+        this.threadMode = threadMode;
+    }
+
+    /**
+     * Set the key space the keys of the parameterized queries are drawn from.
+     */
+    public void setKeySpace(KeySpace keySpace) {
+        this.keySpace = keySpace;
+    }
+
+    /**
+     * A request scheduled by the dispatcher.
+     */
+    private static class Request {
+        final BenchmarkQuery query;
+        final long intendedStartTime;
+        final boolean measured; // false for requests scheduled during warmup
+
+        Request(BenchmarkQuery query, long intendedStartTime, boolean measured) {
+            this.query = query;
+            this.intendedStartTime = intendedStartTime;
+            this.measured = measured;
+        }
+    }
+
+    /**
+     * Send requests picked from the mix following the rate schedule and wait for them to complete.
+     * @param mix queries the requests are picked from
+     * @param schedule target request rate over time
+     * @param arrivalProcess distribution of the gaps between requests
+     * @param workerCount number of workers, i.e. the maximum number of requests in flight
+     * @param durationMillis measured duration of the run
+     * @param warmupMillis duration at the start of the run whose latencies are discarded
+     * @param label description of the database state used in reports, e.g. "NO INDEXES"
+     * @return latencies measured from the intended send times
+     */
+    public LoadResult run(QueryMix mix, RateSchedule schedule, ArrivalProcess arrivalProcess, int workerCount,
+                          long durationMillis, long warmupMillis, String label) {
+        String neo4j_db_url = neo4j_settings.get("NEO4J_DB_URL");
+        String neo4j_username = neo4j_settings.get("NEO4J_USERNAME");
+        String neo4j_password = neo4j_settings.get("NEO4J_PASSWORD");
+        Config config = Config.builder().withMaxConnectionPoolSize(Math.max(workerCount, 100)).build();
+        org.neo4j.driver.Driver driver = GraphDatabase.driver(neo4j_db_url,
+                AuthTokens.basic(neo4j_username, neo4j_password), config);
+        String runLabel = label + ", " + schedule;
+        LoadResult responseTimes = new LoadResult(runLabel, TimeUnit.MILLISECONDS.toNanos(durationMillis));
+        LoadResult serviceTimes = new LoadResult(runLabel + " (service time)",
+                TimeUnit.MILLISECONDS.toNanos(durationMillis));
+        LinkedBlockingQueue<Request> queue = new LinkedBlockingQueue<Request>();
+        ExecutorService executor = threadMode.newExecutor(workerCount);
+        CountDownLatch ready = new CountDownLatch(workerCount);
+        // Workers stop taking requests from the queue once this time has passed, set before the dispatcher starts
+        long[] drainDeadline = new long[]{Long.MAX_VALUE};
+        List<Future<LoadResult[]>> futures = new ArrayList<Future<LoadResult[]>>();
+        long sentCount = 0;
+
+        System.out.println("Running open-loop load at " + schedule + " (" + arrivalProcess + " arrivals) with " +
+                workerCount + " workers for " + durationMillis + " ms after " + warmupMillis + " ms warmup (" +
+                label + ").");
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                futures.add(executor.submit(new Worker(i, mix, driver, queue, ready, drainDeadline)));
+            }
+            ready.await();
+
+            Random random = new Random(0);
+            long startTime = System.nanoTime();
+            long measureStartTime = startTime + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+            long endTime = measureStartTime + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+            // Requests still queued after the run get as much time again to complete
+            drainDeadline[0] = endTime + TimeUnit.MILLISECONDS.toNanos(durationMillis + warmupMillis);
+            long intendedStartTime = startTime;
+            while (intendedStartTime < endTime) {
+                double rate = schedule.rateAt(Math.max(intendedStartTime - measureStartTime, 0));
+                if (rate <= 0) {
+                    intendedStartTime += TimeUnit.MILLISECONDS.toNanos(1);
+                    continue;
+                }
+                double intervalSeconds = (arrivalProcess == ArrivalProcess.POISSON) ?
+                        -Math.log(1 - random.nextDouble()) / rate : 1 / rate;
+                intendedStartTime += (long) (intervalSeconds * 1e9);
+                if (intendedStartTime >= endTime) {
+                    break;
+                }
+                // Sleep until the intended send time, the schedule does not depend on when requests complete
+                long sleepNanos = intendedStartTime - System.nanoTime();
+                while (sleepNanos > 0) {
+                    LockSupport.parkNanos(sleepNanos);
+                    sleepNanos = intendedStartTime - System.nanoTime();
+                }
+                queue.add(new Request(mix.next(random), intendedStartTime, intendedStartTime >= measureStartTime));
+                sentCount++;
+            }
+            // Poison pills let every worker finish once the queue has been drained
+            for (int i = 0; i < workerCount; i++) {
+                queue.add(new Request(null, 0, false));
+            }
+            for (Future<LoadResult[]> future : futures) {
+                LoadResult[] workerResults = future.get();
+                responseTimes.add(workerResults[0]);
+                serviceTimes.add(workerResults[1]);
+            }
+            // Requests the workers did not reach before the drain deadline were never served, they count as
+            // errors only and neither as completed requests nor in the latency histograms
+            long droppedCount = 0;
+            for (Request request : queue) {
+                if (request.query != null && request.measured) {
+                    responseTimes.recordError(request.query);
+                    droppedCount++;
+                }
+            }
+            if (droppedCount > 0) {
+                System.out.println(droppedCount + " requests were not served before the drain deadline.");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            executor.shutdownNow();
+            driver.close();
+        }
+        System.out.println("Scheduled " + sentCount + " requests.");
+        lastServiceTimes = serviceTimes;
+        return responseTimes;
+    }
+
+    /**
+     * Get service times, measured from the actual send time, of the latest run.
+     */
+    public LoadResult getLastServiceTimes() {
+        return lastServiceTimes;
+    }
+
+    /**
+     * One worker of the pool, executes requests from the queue until it receives a poison pill.
+     */
+    private class Worker implements Callable<LoadResult[]> {
+
+        private final int workerIndex;
+        private final QueryMix mix;
+        private final org.neo4j.driver.Driver driver;
+        private final LinkedBlockingQueue<Request> queue;
+        private final CountDownLatch ready;
+        private final long[] drainDeadline;
+
+        Worker(int workerIndex, QueryMix mix, org.neo4j.driver.Driver driver, LinkedBlockingQueue<Request> queue,
+               CountDownLatch ready, long[] drainDeadline) {
+            this.workerIndex = workerIndex;
+            this.mix = mix;
+            this.driver = driver;
+            this.queue = queue;
+            this.ready = ready;
+            this.drainDeadline = drainDeadline;
+        }
+
+        public LoadResult[] call() throws Exception {
+            LoadResult responseTimes = new LoadResult("worker " + workerIndex, 0);
+            LoadResult serviceTimes = new LoadResult("worker " + workerIndex, 0);
+            Connection connection = null;
+            Session session = null;
+            QueryClient client = null;
+            try {
+                if (mix.containsEngine(BenchmarkQuery.Engine.SQL)) {
+                    Class.forName(db_settings[0]);
+                    connection = DriverManager.getConnection(db_url + "warehouse", db_settings[1], db_settings[2]);
+                }
+                if (mix.containsEngine(BenchmarkQuery.Engine.CYPHER)) {
+                    session = driver.session();
+                }
+                client = new QueryClient(connection, session, keySpace, new Random(workerIndex));
+            } finally {
+                ready.countDown();
+            }
+            try {
+                while (true) {
+                    Request request = queue.take();
+                    if (request.query == null) {
+                        break;
+                    }
+                    if (System.nanoTime() > drainDeadline[0]) {
+                        // Leave the request in the queue so that it is reported as not served
+                        queue.add(request);
+                        break;
+                    }
+                    long startTime = System.nanoTime();
+                    try {
+                        client.execute(request.query);
+                        long endTime = System.nanoTime();
+                        if (request.measured) {
+                            responseTimes.recordLatency(request.query, endTime - request.intendedStartTime);
+                            serviceTimes.recordLatency(request.query, endTime - startTime);
+                        }
+                    } catch (Exception e) {
+                        if (request.measured) {
+                            responseTimes.recordError(request.query);
+                        }
+                        if (responseTimes.getErrorCount() == 1) {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            } finally {
+                if (client != null) {
+                    client.close();
+                }
+                if (session != null) {
+                    session.close();
+                }
+                if (connection != null) {
+                    try {
+                        connection.close();
+                    } catch (SQLException se) {
+                        se.printStackTrace();
+                    }
+                }
+            }
+            return new LoadResult[]{responseTimes, serviceTimes};
+        }
+    }
+}
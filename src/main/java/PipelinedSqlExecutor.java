@@ -0,0 +1,180 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking front end for PostgreSQL queries on a small, fixed number of JDBC connections.
+ *
+ * Callers submit queries and get a future back instead of holding a thread and a connection per query. Each
+ * connection is served by one thread that takes up to the pipeline depth of waiting queries from a shared queue and
+ * sends them to the server in a single round trip as one multi-statement string; the PostgreSQL JDBC driver writes
+ * all of them before it reads the first result. Like any multi-statement string outside a transaction block, the
+ * pipelined queries run in one implicit transaction, so an error in one fails the rest of its pipeline. Only
+ * read-only queries should be submitted.
+ *
+ * The driver reads the results of the whole pipeline before execute returns, so no future completes before the last
+ * query of its pipeline has been executed. The latency of a pipelined query includes the execution of the queries
+ * sent in the same round trip.
+ */
+public class PipelinedSqlExecutor {
+
+    private final String db_url; // SQL connection URL including the database name
+    private final String[] db_settings;
+    private final int connectionCount;
+    private final int pipelineDepth;
+
+    private final LinkedBlockingQueue<Request> queue = new LinkedBlockingQueue<Request>();
+    private final List<Thread> connectionThreads = new ArrayList<Thread>();
+    private volatile boolean running = false;
+
+    /**
+     * A submitted query and the future that is completed with its row count.
+     */
+    private static class Request {
+        final String sqlQuery;
+        final CompletableFuture<Long> future = new CompletableFuture<Long>();
+
+        Request(String sqlQuery) {
+            this.sqlQuery = sqlQuery;
+        }
+    }
+
+    /**
+     * @param db_url SQL connection string including the database name
+     * @param db_settings SQL settings array containing SQL driver name, username and password
+     * @param connectionCount number of connections, each served by one thread
+     * @param pipelineDepth maximum number of queries sent to a connection in one round trip
+     */
+    public PipelinedSqlExecutor(String db_url, String[] db_settings, int connectionCount, int pipelineDepth) {
+        this.db_url = db_url;
+        this.db_settings = db_settings;
+        this.connectionCount = connectionCount;
+        this.pipelineDepth = pipelineDepth;
+    }
+
+    /**
+     * Open the connections and start serving submitted queries.
+     */
+    public void start() throws Exception {
+        Class.forName(db_settings[0]);
+        running = true;
+        for (int i = 0; i < connectionCount; i++) {
+            Connection connection = DriverManager.getConnection(db_url, db_settings[1], db_settings[2]);
+            Thread thread = new Thread(() -> serve(connection), "pipelined-sql-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            connectionThreads.add(thread);
+        }
+    }
+
+    /**
+     * Queue a query without blocking the caller.
+     * @param sqlQuery read-only query without a trailing semicolon
+     * @return future completed with the number of rows once every row of its pipeline has been read, or with the
+     *     error; failed right away if the executor is not running
+     */
+    public CompletableFuture<Long> submit(String sqlQuery) {
+        Request request = new Request(sqlQuery);
+        if (!running) {
+            request.future.completeExceptionally(new IllegalStateException("Executor is not running"));
+            return request.future;
+        }
+        queue.add(request);
+        return request.future;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop serving queries and close the connections. Queries still waiting in the queue fail.
+     */
+    public void close() {
+        running = false;
+        for (Thread thread : connectionThreads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        connectionThreads.clear();
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.future.completeExceptionally(new IllegalStateException("Executor was closed"));
+        }
+    }
+
+    private void serve(Connection connection) {
+        try {
+            Statement stmt = connection.createStatement();
+            List<Request> pipeline = new ArrayList<Request>(pipelineDepth);
+            while (running) {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                pipeline.clear();
+                pipeline.add(first);
+                queue.drainTo(pipeline, pipelineDepth - 1);
+                execute(stmt, pipeline);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException se) {
+                se.printStackTrace();
+            }
+        }
+    }
+
+    private static void execute(Statement stmt, List<Request> pipeline) {
+        StringBuilder sqlQueries = new StringBuilder();
+        for (Request request : pipeline) {
+            if (sqlQueries.length() > 0) {
+                sqlQueries.append(";\n");
+            }
+            sqlQueries.append(request.sqlQuery);
+        }
+        int completed = 0;
+        try {
+            boolean isResultSet = stmt.execute(sqlQueries.toString());
+            for (Request request : pipeline) {
+                long rowCount = 0;
+                if (isResultSet) {
+                    ResultSet resultSet = stmt.getResultSet();
+                    try {
+                        int columnCount = resultSet.getMetaData().getColumnCount();
+                        while (resultSet.next()) {
+                            for (int column = 1; column <= columnCount; column++) {
+                                resultSet.getObject(column);
+                            }
+                            rowCount++;
+                        }
+                    } finally {
+                        resultSet.close();
+                    }
+                } else {
+                    rowCount = Math.max(stmt.getUpdateCount(), 0);
+                }
+                request.future.complete(rowCount);
+                completed++;
+                isResultSet = stmt.getMoreResults();
+            }
+        } catch (SQLException e) {
+            for (int i = completed; i < pipeline.size(); i++) {
+                pipeline.get(i).future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Values;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Compares how statement preparation and plan caching change the latency of the same queries and how much of it is
+ * spent on planning.
+ *
+ * PostgreSQL parses and plans a statement with literals on every execution. A prepared statement is only planned
+ * once PgJDBC turns it into a named server-side statement, which happens after prepareThreshold executions (0
+ * never does). PostgreSQL then plans the first five executions with the actual key and switches to a cached generic
+ * plan if it is not more expensive. The planning time of a strategy is sampled with EXPLAIN (SUMMARY) on the same
+ * connection after its run, it does not include parsing.
+ *
+ * Neo4j extracts literals into parameters before it looks up its plan cache (auto-parameterization), so literal
+ * and parameterized keys share one cached plan. The latency difference of literal keys to the parameterized query
+ * is the cost of parsing every new text and of the cache lookup, not planning. Neo4j does not report planning time,
+ * so planning is measured with CYPHER replan=force, which plans the parameterized query on every execution; its
+ * latency difference to the parameterized query is the planning time.
+ */
+public class PlanCacheComparison {
+
+    public enum Strategy {
+        LITERAL(BenchmarkQuery.Engine.SQL, -1), // Statement with the key written into the text
+        CLIENT_PREPARED(BenchmarkQuery.Engine.SQL, 0), // PreparedStatement that stays an unnamed statement
+        SERVER_PREPARED(BenchmarkQuery.Engine.SQL, 1), // PreparedStatement, named server-side from the first execution
+        SERVER_PREPARED_DEFAULT(BenchmarkQuery.Engine.SQL, 5), // PgJDBC default prepareThreshold
+        PREPARE_EXECUTE(BenchmarkQuery.Engine.SQL, -1), // Explicit PREPARE once and EXECUTE with the key
+        CYPHER_LITERAL(BenchmarkQuery.Engine.CYPHER, -1), // Key written into the text
+        CYPHER_PARAMETERIZED(BenchmarkQuery.Engine.CYPHER, -1), // Key passed as $parameter
+        CYPHER_REPLAN(BenchmarkQuery.Engine.CYPHER, -1); // Key passed as $parameter, planned on every execution
+
+        private final BenchmarkQuery.Engine engine;
+        private final int prepareThreshold; // PgJDBC prepareThreshold of the connection, -1 for the default
+
+        Strategy(BenchmarkQuery.Engine engine, int prepareThreshold) {
+            this.engine = engine;
+            this.prepareThreshold = prepareThreshold;
+        }
+
+        public BenchmarkQuery.Engine getEngine() {
+            return engine;
+        }
+    }
+
+    private static final long KEY_SEED = 0; // Every strategy gets the same sequence of keys
+    private static final int PLANNING_SAMPLES = 10; // EXPLAIN executions the planning time is averaged over
+    private static final int CUSTOM_PLAN_EXECUTIONS = 5; // Executions PostgreSQL plans with the actual parameters
+    private static final String PREPARED_NAME = "plan_cache_query";
+    private static final String CYPHER_REPLAN_PREFIX = "CYPHER replan=force ";
+
+    /**
+     * Latencies and planning time of one query run with one strategy.
+     */
+    private static class Row {
+        final String label;
+        final BenchmarkQuery query;
+        final Strategy strategy;
+        final LatencyHistogram histogram; // Microseconds
+        final double planningMillis; // -1 if not known
+
+        Row(String label, BenchmarkQuery query, Strategy strategy, LatencyHistogram histogram,
+            double planningMillis) {
+            this.label = label;
+            this.query = query;
+            this.strategy = strategy;
+            this.histogram = histogram;
+            this.planningMillis = planningMillis;
+        }
+    }
+
+    private final String db_url; // SQL connection URL of the DBMS, this URL contains no database name.
+    private final String[] db_settings;
+    private final HashMap<String, String> neo4j_settings;
+    private final List<Row> rows = new ArrayList<Row>();
+
+    private KeySpace keySpace = new KeySpace(); // Keys of the parameterized queries
+
+    public PlanCacheComparison(String db_url, String[] db_settings, HashMap<String, String> neo4j_settings) {
+        this.db_url = db_url;
+        this.db_settings = db_settings;
+        this.neo4j_settings = neo4j_settings;
+    }
+
+    /**
+     * Set the key space the keys of the parameterized queries are drawn from. It must not be fixed: with the same
+     * key every execution sends the same literal text, which both engines plan only once.
+     */
+    public void setKeySpace(KeySpace keySpace) {
+        this.keySpace = keySpace;
+    }
+
+    /**
+     * Run every query with every strategy of its engine. Cypher queries without a key parameter are skipped, their
+     * literal and parameterized texts are the same.
+     * @param iterations number of measured executions per query and strategy
+     * @param warmupIterations executions before the measured ones, their latencies are discarded
+     * @param label description of the database state used in reports, e.g. "NO INDEXES"
+     */
+    public void runAll(List<BenchmarkQuery> queries, int iterations, int warmupIterations, String label) {
+        for (BenchmarkQuery query : queries) {
+            if (query.getEngine() == BenchmarkQuery.Engine.CYPHER && !query.isParameterized()) {
+                continue;
+            }
+            for (Strategy strategy : Strategy.values()) {
+                if (strategy.engine == query.getEngine()) {
+                    run(query, strategy, iterations, warmupIterations, label);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run a query with the given strategy on a new connection or session.
+     * @return latencies of the measured executions in microseconds
+     */
+    public LatencyHistogram run(BenchmarkQuery query, Strategy strategy, int iterations, int warmupIterations,
+                                String label) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        double planningMillis = -1;
+        System.out.println("Running " + query + " with " + strategy + ", " + iterations + " iterations after " +
+                warmupIterations + " warmup iterations (" + label + ").");
+        try {
+            if (strategy.engine == BenchmarkQuery.Engine.SQL) {
+                planningMillis = runSQL(query, strategy, iterations, warmupIterations, histogram);
+            } else {
+                runCypher(query, strategy, iterations, warmupIterations, histogram);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        histogram.printSummary(System.out);
+        rows.add(new Row(label, query, strategy, histogram, planningMillis));
+        return histogram;
+    }
+
+    private double runSQL(BenchmarkQuery query, Strategy strategy, int iterations, int warmupIterations,
+                          LatencyHistogram histogram) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("user", db_settings[1]);
+        properties.setProperty("password", db_settings[2]);
+        if (strategy.prepareThreshold >= 0) {
+            properties.setProperty("prepareThreshold", Integer.toString(strategy.prepareThreshold));
+        }
+        Class.forName(db_settings[0]);
+        Connection connection = DriverManager.getConnection(db_url + "warehouse", properties);
+        Statement stmt = connection.createStatement();
+        PreparedStatement preparedStmt = null;
+        Random random = new Random(KEY_SEED);
+        try {
+            if (strategy == Strategy.PREPARE_EXECUTE) {
+                prepare(stmt, query);
+            } else if (strategy != Strategy.LITERAL) {
+                preparedStmt = connection.prepareStatement(query.getText());
+            }
+            for (int i = 0; i < warmupIterations + iterations; i++) {
+                long key = keySpace.next(query.getKeyParameter(), random);
+                QueryMeasurement measurement;
+                if (strategy == Strategy.LITERAL) {
+                    measurement = QueryTester.executeAndConsumeSQL(stmt, query.getTextWithKey(key));
+                } else if (strategy == Strategy.PREPARE_EXECUTE) {
+                    measurement = QueryTester.executeAndConsumeSQL(stmt, execute(query, key));
+                } else {
+                    if (query.isParameterized()) {
+                        preparedStmt.setLong(1, key);
+                    }
+                    measurement = QueryTester.executeAndConsumeSQL(preparedStmt);
+                }
+                if (i >= warmupIterations) {
+                    histogram.recordNanos(measurement.getTimeToLastRowNanos());
+                }
+            }
+
+            // Sample the planning time the way the strategy plans its executions
+            boolean serverPrepared = strategy == Strategy.PREPARE_EXECUTE || (strategy.prepareThreshold > 0 &&
+                    warmupIterations + iterations >= strategy.prepareThreshold);
+            if (serverPrepared && strategy != Strategy.PREPARE_EXECUTE) {
+                prepare(stmt, query);
+                for (int i = 0; i < CUSTOM_PLAN_EXECUTIONS; i++) {
+                    stmt.executeQuery(execute(query, keySpace.next(query.getKeyParameter(), random))).close();
+                }
+            }
+            double planningMillis = 0;
+            for (int i = 0; i < PLANNING_SAMPLES; i++) {
+                long key = keySpace.next(query.getKeyParameter(), random);
+                planningMillis += explainPlanningMillis(stmt, serverPrepared ? execute(query, key) :
+                        query.getTextWithKey(key));
+            }
+            return planningMillis / PLANNING_SAMPLES;
+        } finally {
+            if (preparedStmt != null) {
+                preparedStmt.close();
+            }
+            stmt.close();
+            connection.close();
+        }
+    }
+
+    private static void prepare(Statement stmt, BenchmarkQuery query) throws SQLException {
+        if (query.isParameterized()) {
+            stmt.execute("PREPARE " + PREPARED_NAME + " (bigint) AS " + query.getText().replace("?", "$1"));
+        } else {
+            stmt.execute("PREPARE " + PREPARED_NAME + " AS " + query.getText());
+        }
+    }
+
+    private static String execute(BenchmarkQuery query, long key) {
+        return "EXECUTE " + PREPARED_NAME + (query.isParameterized() ? "(" + key + ")" : "");
+    }
+
+    /**
+     * Get the planning time EXPLAIN (SUMMARY) reports for the statement, which is not executed.
+     */
+    private static double explainPlanningMillis(Statement stmt, String sql) throws SQLException {
+        ResultSet resultSet = stmt.executeQuery("EXPLAIN (SUMMARY) " + sql);
+        try {
+            while (resultSet.next()) {
+                String line = resultSet.getString(1).trim();
+                if (line.startsWith("Planning Time:")) {
+                    return Double.parseDouble(line.substring("Planning Time:".length()).replace("ms", "").trim());
+                }
+            }
+        } finally {
+            resultSet.close();
+        }
+        return 0;
+    }
+
+    private void runCypher(BenchmarkQuery query, Strategy strategy, int iterations, int warmupIterations,
+                           LatencyHistogram histogram) {
+        org.neo4j.driver.Driver driver = GraphDatabase.driver(neo4j_settings.get("NEO4J_DB_URL"),
+                AuthTokens.basic(neo4j_settings.get("NEO4J_USERNAME"), neo4j_settings.get("NEO4J_PASSWORD")));
+        Session session = driver.session();
+        Random random = new Random(KEY_SEED);
+        try {
+            for (int i = 0; i < warmupIterations + iterations; i++) {
+                long key = keySpace.next(query.getKeyParameter(), random);
+                QueryMeasurement measurement;
+                if (strategy == Strategy.CYPHER_LITERAL) {
+                    measurement = QueryTester.executeAndConsumeCypher(session, query.getTextWithKey(key));
+                } else if (strategy == Strategy.CYPHER_REPLAN) {
+                    measurement = QueryTester.executeAndConsumeCypher(session, CYPHER_REPLAN_PREFIX + query.getText(),
+                            Values.parameters(query.getKeyParameter(), key));
+                } else {
+                    measurement = QueryTester.executeAndConsumeCypher(session, query.getText(),
+                            Values.parameters(query.getKeyParameter(), key));
+                }
+                if (i >= warmupIterations) {
+                    histogram.recordNanos(measurement.getTimeToLastRowNanos());
+                }
+            }
+        } finally {
+            session.close();
+            driver.close();
+        }
+    }
+
+    /**
+     * Print one row per query and strategy that has been run. The planning share is the planning time relative to
+     * the mean latency: sampled with EXPLAIN for PostgreSQL, the latency difference of forced replanning to the
+     * parameterized query for Cypher. Literal Cypher keys are not planned again, their difference to the
+     * parameterized query is reported as the cost of parsing and the cache lookup instead. The parameterized Cypher
+     * query is the baseline of both.
+     */
+    public void printReport() {
+        System.out.println("Statement preparation and plan cache strategies:");
+        System.out.println("state, query, strategy, mean (ms), p50 (ms), p99 (ms), planning (ms), " +
+                "planning share (%), parse and cache lookup (ms)");
+        for (Row row : rows) {
+            double meanMillis = row.histogram.getMean() / 1000.0;
+            double planningMillis = row.planningMillis;
+            double lookupMillis = -1;
+            if (row.strategy == Strategy.CYPHER_LITERAL || row.strategy == Strategy.CYPHER_REPLAN) {
+                Row parameterized = findRow(row.label, row.query, Strategy.CYPHER_PARAMETERIZED);
+                if (parameterized != null) {
+                    double extraMillis = Math.max(0, meanMillis - parameterized.histogram.getMean() / 1000.0);
+                    if (row.strategy == Strategy.CYPHER_REPLAN) {
+                        planningMillis = extraMillis;
+                    } else {
+                        lookupMillis = extraMillis;
+                    }
+                }
+            }
+            String planning = (planningMillis < 0) ? "n/a" : String.format("%.3f", planningMillis);
+            String share = (planningMillis < 0 || meanMillis == 0) ? "n/a" :
+                    String.format("%.1f", Math.min(100, 100 * planningMillis / meanMillis));
+            String lookup = (lookupMillis < 0) ? "n/a" : String.format("%.3f", lookupMillis);
+            System.out.println(String.format("%s, %s, %s, %.3f, %.3f, %.3f, %s, %s, %s", row.label, row.query,
+                    row.strategy.name().toLowerCase(), meanMillis, row.histogram.getValueAtPercentile(50) / 1000.0,
+                    row.histogram.getValueAtPercentile(99) / 1000.0, planning, share, lookup));
+        }
+        System.out.println();
+    }
+
+    private Row findRow(String label, BenchmarkQuery query, Strategy strategy) {
+        for (Row row : rows) {
+            if (row.label.equals(label) && row.query == query && row.strategy == strategy) {
+                return row;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,254 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL and Cypher texts of the benchmarked queries. QueryTester, the load drivers and every other benchmark take
+ * their queries from here so that all of them measure exactly the same statements.
+ */
+public class QueryCatalog {
+
+    /**
+     * Key parameters of the parameterized queries. SQL texts bind the key as their only "?" parameter, Cypher texts
+     * as "$" followed by the parameter name.
+     */
+    public static final String INVOICE_ID = "invoiceId";
+    public static final String CUSTOMER_ID = "customerId";
+
+    public static final String WORK_PRICE_SQL =
+            "SELECT work.id AS workId, " +
+            "SUM( " +
+            "(worktype.price * workhours.hours * workhours.discount) " +
+            ") AS price " +
+            "FROM work " +
+            "INNER JOIN workhours ON work.id = workhours.workId " +
+            "INNER JOIN worktype ON worktype.id = workhours.worktypeId " +
+            "GROUP BY work.id";
+
+    public static final String WORK_PRICE_CYPHER =
+            "MATCH (wt:worktype)-[h:WORKHOURS]->(w:work) WITH SUM(h.hours*h.discount*wt.price) as price, w RETURN w.workId as workId, price;";
+
+    public static final String WORK_PRICE_CALL_CYPHER =
+            "MATCH (w:work) " +
+            "CALL { " +
+            "    WITH w " +
+            "    MATCH (wt:worktype)-[h:WORKHOURS]->(w) " +
+            "    RETURN SUM((h.hours*h.discount*wt.price)) as price " +
+            "} " +
+            "RETURN w.workId as workId, price;";
+
+    public static final String WORK_PRICE_WITH_ITEMS_SQL =
+            "SELECT work.id AS workId, " +
+            "SUM(" +
+            "(worktype.price * workhours.hours * workhours.discount) + " +
+            "(item.purchaseprice * useditem.amount * useditem.discount) " +
+            ") AS price " +
+            "FROM work " +
+            "INNER JOIN workhours ON work.id = workhours.workId " +
+            "INNER JOIN worktype ON worktype.id = workhours.worktypeId " +
+            "INNER JOIN useditem ON work.id = useditem.workId " +
+            "INNER JOIN item ON useditem.itemId = item.id " +
+            "GROUP BY work.id";
+
+    public static final String WORK_PRICE_WITH_ITEMS_CYPHER =
+            "MATCH (wt:worktype)-[h:WORKHOURS]->(w:work)-[u:USED_ITEM]->(i:item) WITH SUM((h.hours*h.discount*wt.price)+(u.amount*u.discount*i.purchaseprice)) as price, w RETURN w.workId as workId, price";
+
+    public static final String WORK_PRICE_WITH_ITEMS_CALL_CYPHER =
+            "MATCH (w:work) " +
+            "CALL { " +
+            "    WITH w " +
+            "    MATCH (wt:worktype)-[h:WORKHOURS]->(w)-[u:USED_ITEM]->(i:item) " +
+            "    RETURN SUM((h.hours*h.discount*wt.price)+(u.amount*u.discount*i.purchaseprice)) as price " +
+            "} " +
+            "RETURN w.workId as workId, price;";
+
+    public static final String WORK_OF_INVOICE_SQL =
+            "SELECT * FROM work INNER JOIN workInvoice ON work.id=workInvoice.workId INNER JOIN invoice ON workInvoice.workId=invoice.id AND invoice.id=?";
+
+    public static final String WORK_OF_INVOICE_CYPHER =
+            "MATCH (i:invoice { invoiceId:$invoiceId })-[wi:WORK_INVOICE]->(w:work) RETURN *";
+
+    public static final String INVOICE_PRICES_FOR_CUSTOMER_SQL =
+            "SELECT q1.customerId, q2.invoiceId, SUM(q3.price) AS invoicePrice FROM " +
+            "( SELECT customer.id AS customerId, invoice.id AS invoiceId FROM invoice INNER JOIN customer ON invoice.customerId=customer.id ) AS q1 INNER JOIN " +
+            "( SELECT workinvoice.invoiceId, workinvoice.workId FROM workinvoice INNER JOIN invoice ON workinvoice.invoiceId = invoice.id ) AS q2 USING (invoiceId) INNER JOIN " +
+            "( SELECT workhours.workid AS workId, SUM( (worktype.price * workhours.hours * workhours.discount) + (item.purchaseprice * useditem.amount * useditem.discount) ) AS price FROM workhours INNER JOIN worktype ON workhours.worktypeid = worktype.id INNER JOIN useditem ON workhours.workid = useditem.workid INNER JOIN item ON useditem.itemid = item.id GROUP BY workhours.workid ) " +
+            "AS q3 USING (workId) WHERE q1.customerId=? GROUP BY q2.invoiceId, q1.customerId";
+
+    public static final String INVOICE_PRICES_FOR_CUSTOMER_CYPHER =
+            "MATCH (c:customer)-[:PAYS]->(inv:invoice) WHERE c.customerId=$customerId " +
+            "WITH c, inv " +
+            "OPTIONAL MATCH (inv)-[:WORK_INVOICE]->(w:work) " +
+            "WITH c, inv, w " +
+            "OPTIONAL MATCH (wt:worktype)-[h:WORKHOURS]->(w:work)-[u:USED_ITEM]->(i:item) " +
+            "WITH c, inv, w, SUM((h.hours*h.discount*wt.price)+(u.amount*u.discount*i.purchaseprice)) as workPrice " +
+            "RETURN c, inv, SUM(workPrice) as invoicePrice";
+
+    public static final String INVOICE_PRICES_FOR_CUSTOMER_CALL_CYPHER =
+            "MATCH (inv:invoice) WHERE inv.customerId=$customerId " +
+            "CALL { " +
+            "   WITH inv " +
+            "   MATCH (c:customer)-[:PAYS]->(inv) " +
+            "   RETURN c " +
+            "}" +
+            "CALL { " +
+            "   WITH c, inv " +
+            "   MATCH (inv)-[:WORK_INVOICE]->(w:work) " +
+            "   RETURN w " +
+            "} " +
+            "CALL { " +
+            "   WITH w " +
+            "   MATCH (wt:worktype)-[h:WORKHOURS]->(w)-[u:USED_ITEM]->(i:item) " +
+            "   RETURN SUM((h.hours*h.discount*wt.price)+(u.amount*u.discount*i.purchaseprice)) as workPrice " +
+            "} " +
+            "RETURN c, inv, SUM(workPrice) as invoicePrice";
+
+    public static final String INVOICE_PRICE_SQL =
+            "SELECT q1.invoiceId, SUM(q2.price) AS invoicePrice " +
+            "FROM ( " +
+            "SELECT workinvoice.invoiceId, workinvoice.workId " +
+            "FROM workinvoice " +
+            "INNER JOIN invoice ON workinvoice.invoiceId = invoice.id " +
+            ") AS q1 " +
+            "INNER JOIN ( " +
+            "SELECT workhours.workid AS workId, " +
+            "SUM( " +
+            "(worktype.price * workhours.hours * workhours.discount) + " +
+            "(item.purchaseprice * useditem.amount * useditem.discount) " +
+            ") AS price " +
+            "FROM workhours " +
+            "INNER JOIN worktype ON workhours.worktypeid = worktype.id " +
+            "INNER JOIN useditem ON workhours.workid = useditem.workid " +
+            "INNER JOIN item ON useditem.itemid = item.id " +
+            "GROUP BY workhours.workid " +
+            ") AS q2 USING (workId) " +
+            "GROUP BY q1.invoiceId";
+
+    public static final String INVOICE_PRICE_CYPHER =
+            "MATCH (inv:invoice)-[:WORK_INVOICE]->(w:work) " +
+            "WITH inv, w " +
+            "OPTIONAL MATCH (wt:worktype)-[h:WORKHOURS]->(w:work)-[u:USED_ITEM]->(i:item) " +
+            "WITH inv, w, SUM((h.hours*h.discount*wt.price)+(u.amount*u.discount*i.purchaseprice)) as workPrice " +
+            "RETURN inv, SUM(workPrice) as invoicePrice";
+
+    public static final String INVOICE_PRICE_CALL_CYPHER =
+            "MATCH (inv:invoice) " +
+            "CALL { " +
+            "WITH inv " +
+            "MATCH (inv)-[:WORK_INVOICE]->(w:work) " +
+            "RETURN w" +
+            "} " +
+            "CALL { " +
+            "WITH w " +
+            "MATCH (wt:worktype)-[h:WORKHOURS]->(w)-[u:USED_ITEM]->(i:item) " +
+            "RETURN SUM((h.hours*h.discount*wt.price)+(u.amount*u.discount*i.purchaseprice)) as workPrice " +
+            "} " +
+            "RETURN inv, SUM(workPrice) as invoicePrice";
+
+    /**
+     * Recursive query returning the chain of sequential invoices starting from the given invoice, using Common
+     * Table Expressions.
+     */
+    public static final String PREVIOUS_INVOICES_SQL =
+            "WITH RECURSIVE previous_invoices AS (" +
+            "SELECT id, customerId, state, duedate, previousinvoice " +
+            "FROM invoice " +
+            "WHERE id=? " +
+            "UNION ALL " +
+            "SELECT i.id, i.customerId, i.state, i.duedate, i.previousinvoice " +
+            "FROM invoice AS i INNER JOIN previous_invoices AS j " +
+            "ON i.previousinvoice = j.id " +
+            "WHERE i.previousinvoice <> i.id" +
+            ") " +
+            "SELECT * FROM previous_invoices";
+
+    /**
+     * Variable length path query returning the chain of sequential invoices starting from the given invoice.
+     */
+    public static final String PREVIOUS_INVOICES_CYPHER =
+            "MATCH (i:invoice { invoiceId:$invoiceId })-[p:PREVIOUS_INVOICE *0..]->(j:invoice) RETURN *";
+
+    /**
+     * Variable length path query returning only the complete chain of sequential invoices starting from the given
+     * invoice.
+     */
+    public static final String PREVIOUS_INVOICES_OPTIMIZED_CYPHER =
+            "MATCH inv=(i:invoice { invoiceId:$invoiceId })-[p:PREVIOUS_INVOICE *0..]->(j:invoice) " +
+            "WHERE NOT (j)-[:PREVIOUS_INVOICE]->() RETURN nodes(inv)";
+
+    /**
+     * Get every query that does not depend on data inserted at run time, in the order QueryTester executes them.
+     * The key of the parameterized queries is drawn from a {@link KeySpace} by whoever executes them.
+     */
+    public static List<BenchmarkQuery> standardQueries() {
+        List<BenchmarkQuery> queries = new ArrayList<BenchmarkQuery>();
+        queries.add(new BenchmarkQuery("work-price-short", "work-price-short", BenchmarkQuery.Engine.SQL,
+                WORK_PRICE_SQL));
+        queries.add(new BenchmarkQuery("work-price-short", "work-price-short", BenchmarkQuery.Engine.CYPHER,
+                WORK_PRICE_CYPHER));
+        queries.add(new BenchmarkQuery("work-price-short-call", "work-price-short", BenchmarkQuery.Engine.CYPHER,
+                WORK_PRICE_CALL_CYPHER));
+        queries.add(new BenchmarkQuery("work-price-long", "work-price-long", BenchmarkQuery.Engine.SQL,
+                WORK_PRICE_WITH_ITEMS_SQL));
+        queries.add(new BenchmarkQuery("work-price-long", "work-price-long", BenchmarkQuery.Engine.CYPHER,
+                WORK_PRICE_WITH_ITEMS_CYPHER));
+        queries.add(new BenchmarkQuery("work-price-long-call", "work-price-long", BenchmarkQuery.Engine.CYPHER,
+                WORK_PRICE_WITH_ITEMS_CALL_CYPHER));
+        queries.add(new BenchmarkQuery("work-of-invoice", "work-of-invoice", BenchmarkQuery.Engine.SQL,
+                WORK_OF_INVOICE_SQL, INVOICE_ID));
+        queries.add(new BenchmarkQuery("work-of-invoice", "work-of-invoice", BenchmarkQuery.Engine.CYPHER,
+                WORK_OF_INVOICE_CYPHER, INVOICE_ID));
+        queries.add(new BenchmarkQuery("invoice-price", "invoice-price", BenchmarkQuery.Engine.SQL,
+                INVOICE_PRICE_SQL));
+        queries.add(new BenchmarkQuery("invoice-price", "invoice-price", BenchmarkQuery.Engine.CYPHER,
+                INVOICE_PRICE_CYPHER));
+        queries.add(new BenchmarkQuery("invoice-price-call", "invoice-price", BenchmarkQuery.Engine.CYPHER,
+                INVOICE_PRICE_CALL_CYPHER));
+        queries.add(new BenchmarkQuery("invoice-prices-for-customer", "invoice-prices-for-customer",
+                BenchmarkQuery.Engine.SQL, INVOICE_PRICES_FOR_CUSTOMER_SQL, CUSTOMER_ID));
+        queries.add(new BenchmarkQuery("invoice-prices-for-customer", "invoice-prices-for-customer",
+                BenchmarkQuery.Engine.CYPHER, INVOICE_PRICES_FOR_CUSTOMER_CYPHER, CUSTOMER_ID));
+        queries.add(new BenchmarkQuery("invoice-prices-for-customer-call", "invoice-prices-for-customer",
+                BenchmarkQuery.Engine.CYPHER, INVOICE_PRICES_FOR_CUSTOMER_CALL_CYPHER, CUSTOMER_ID));
+        return queries;
+    }
+
+    /**
+     * Get the recursive queries for the chain of sequential invoices starting from the invoice given as key.
+     */
+    public static List<BenchmarkQuery> recursiveQueries() {
+        List<BenchmarkQuery> queries = new ArrayList<BenchmarkQuery>();
+        queries.add(new BenchmarkQuery("previous-invoices", "previous-invoices", BenchmarkQuery.Engine.SQL,
+                PREVIOUS_INVOICES_SQL, INVOICE_ID));
+        queries.add(new BenchmarkQuery("previous-invoices", "previous-invoices", BenchmarkQuery.Engine.CYPHER,
+                PREVIOUS_INVOICES_CYPHER, INVOICE_ID));
+        queries.add(new BenchmarkQuery("previous-invoices-optimized", "previous-invoices",
+                BenchmarkQuery.Engine.CYPHER, PREVIOUS_INVOICES_OPTIMIZED_CYPHER, INVOICE_ID));
+        return queries;
+    }
+
+    /**
+     * Get the recursive query with the given id and engine.
+     * @throws IllegalArgumentException if there is no such query
+     */
+    public static BenchmarkQuery getRecursiveQuery(String id, BenchmarkQuery.Engine engine) {
+        for (BenchmarkQuery query : recursiveQueries()) {
+            if (query.getId().equals(id) && query.getEngine() == engine) {
+                return query;
+            }
+        }
+        throw new IllegalArgumentException("Unknown " + engine + " query: " + id);
+    }
+
+    /**
+     * Get the query with the given id and engine from the standard queries.
+     * @throws IllegalArgumentException if there is no such query
+     */
+    public static BenchmarkQuery getQuery(String id, BenchmarkQuery.Engine engine) {
+        for (BenchmarkQuery query : standardQueries()) {
+            if (query.getId().equals(id) && query.getEngine() == engine) {
+                return query;
+            }
+        }
+        throw new IllegalArgumentException("Unknown " + engine + " query: " + id);
+    }
+}
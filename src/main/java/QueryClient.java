@@ -0,0 +1,82 @@
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Executes benchmark queries on one JDBC connection and one Neo4j session and consumes their results. Parameterized
+ * queries get a key drawn from the key space on every execution, SQL queries through a prepared statement that is
+ * prepared once per query text.
+ *
+ * Not thread-safe, every client of a load driver owns its own instance. The connection and the session stay owned
+ * by the caller.
+ */
+public class QueryClient {
+
+    private final Connection connection; // null if the client executes no SQL queries
+    private final Statement stmt;
+    private final Session session; // null if the client executes no Cypher queries
+    private final KeySpace keySpace;
+    private final Random random;
+    private final HashMap<String, PreparedStatement> preparedStatements = new HashMap<String, PreparedStatement>();
+
+    public QueryClient(Connection connection, Session session, KeySpace keySpace, Random random) throws SQLException {
+        this.connection = connection;
+        this.stmt = (connection != null) ? connection.createStatement() : null;
+        this.session = session;
+        this.keySpace = keySpace;
+        this.random = random;
+    }
+
+    /**
+     * Execute the query and read every row of its result.
+     */
+    public QueryMeasurement execute(BenchmarkQuery query) throws SQLException {
+        if (query.getEngine() == BenchmarkQuery.Engine.SQL) {
+            if (!query.isParameterized()) {
+                return QueryTester.executeAndConsumeSQL(stmt, query.getText());
+            }
+            PreparedStatement preparedStmt = preparedStatements.get(query.getText());
+            if (preparedStmt == null) {
+                preparedStmt = connection.prepareStatement(query.getText());
+                preparedStatements.put(query.getText(), preparedStmt);
+            }
+            preparedStmt.setLong(1, keySpace.next(query.getKeyParameter(), random));
+            return QueryTester.executeAndConsumeSQL(preparedStmt);
+        }
+        return QueryTester.executeAndConsumeCypher(session, query.getText(),
+                cypherParameters(query, keySpace, random));
+    }
+
+    /**
+     * Draw the next key of the query as Cypher parameters, no parameters if the query takes none.
+     */
+    static Value cypherParameters(BenchmarkQuery query, KeySpace keySpace, Random random) {
+        if (!query.isParameterized()) {
+            return Values.EmptyMap;
+        }
+        return Values.parameters(query.getKeyParameter(), keySpace.next(query.getKeyParameter(), random));
+    }
+
+    /**
+     * Close the statements of the client, but not the connection and the session.
+     */
+    public void close() {
+        try {
+            for (PreparedStatement preparedStmt : preparedStatements.values()) {
+                preparedStmt.close();
+            }
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException se) {
+            se.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing of a single query iteration in which every row of the result has been read by the client.
+ * All times are measured with {@link System#nanoTime()} relative to the moment the query was sent.
+ */
+public class QueryMeasurement {
+
+    private final long timeToFirstRowNanos; // -1 when the query returned no rows
+    private final long timeToLastRowNanos;
+    private final long rowCount;
+
+    public QueryMeasurement(long timeToFirstRowNanos, long timeToLastRowNanos, long rowCount) {
+        this.timeToFirstRowNanos = timeToFirstRowNanos;
+        this.timeToLastRowNanos = timeToLastRowNanos;
+        this.rowCount = rowCount;
+    }
+
+    public long getTimeToFirstRowNanos() {
+        return timeToFirstRowNanos;
+    }
+
+    public long getTimeToLastRowNanos() {
+        return timeToLastRowNanos;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Get number of rows read per second, measured from sending the query until the last row was read.
+     */
+    public double getRowsPerSecond() {
+        if (timeToLastRowNanos <= 0) {
+            return 0;
+        }
+        return rowCount / (timeToLastRowNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Override
+    public String toString() {
+        String firstRow = (timeToFirstRowNanos < 0) ? "-" : String.format("%.3f ms", timeToFirstRowNanos / 1e6);
+        return String.format("first row: %s, last row: %.3f ms, rows: %d, rows/sec: %.1f",
+                firstRow, timeToLastRowNanos / 1e6, rowCount, getRowsPerSecond());
+    }
+}
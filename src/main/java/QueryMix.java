@@ -0,0 +1,109 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Weighted set of queries. Load drivers pick the next query to send from the mix, a query with weight 2 is picked
+ * twice as often as a query with weight 1.
+ */
+public class QueryMix {
+
+    private final List<BenchmarkQuery> queries = new ArrayList<BenchmarkQuery>();
+    private final List<Integer> cumulativeWeights = new ArrayList<Integer>();
+    private int totalWeight = 0;
+
+    public QueryMix add(BenchmarkQuery query, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight of query " + query + " must be positive: " + weight);
+        }
+        totalWeight += weight;
+        queries.add(query);
+        cumulativeWeights.add(totalWeight);
+        return this;
+    }
+
+    /**
+     * Create a mix in which every given query has the same weight.
+     */
+    public static QueryMix uniform(List<BenchmarkQuery> queries) {
+        QueryMix mix = new QueryMix();
+        for (BenchmarkQuery query : queries) {
+            mix.add(query, 1);
+        }
+        return mix;
+    }
+
+    /**
+     * Parse a mix like "invoice-price:4,work-price-short:1". Every variant of the named query families is added
+     * with the given weight, a family without weight gets weight 1.
+     * @param definition comma separated list of family[:weight] entries
+     * @param queries queries the families are looked up from
+     */
+    public static QueryMix parse(String definition, List<BenchmarkQuery> queries) {
+        QueryMix mix = new QueryMix();
+        for (String entry : definition.split(",")) {
+            String[] familyAndWeight = entry.trim().split(":");
+            String family = familyAndWeight[0];
+            int weight = (familyAndWeight.length > 1) ? Integer.parseInt(familyAndWeight[1]) : 1;
+            boolean found = false;
+            for (BenchmarkQuery query : queries) {
+                if (query.getFamily().equals(family)) {
+                    mix.add(query, weight);
+                    found = true;
+                }
+            }
+            if (!found) {
+                throw new IllegalArgumentException("Unknown query family: " + family);
+            }
+        }
+        return mix;
+    }
+
+    /**
+     * Get a new mix containing only the queries of this mix that run in the given engine.
+     */
+    public QueryMix forEngine(BenchmarkQuery.Engine engine) {
+        QueryMix mix = new QueryMix();
+        int previousWeight = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            if (queries.get(i).getEngine() == engine) {
+                mix.add(queries.get(i), cumulativeWeights.get(i) - previousWeight);
+            }
+            previousWeight = cumulativeWeights.get(i);
+        }
+        return mix;
+    }
+
+    /**
+     * Pick a query with probability proportional to its weight.
+     */
+    public BenchmarkQuery next(Random random) {
+        if (totalWeight == 0) {
+            throw new IllegalStateException("Query mix is empty");
+        }
+        int value = random.nextInt(totalWeight);
+        for (int i = 0; i < queries.size(); i++) {
+            if (value < cumulativeWeights.get(i)) {
+                return queries.get(i);
+            }
+        }
+        return queries.get(queries.size() - 1);
+    }
+
+    public List<BenchmarkQuery> getQueries() {
+        return queries;
+    }
+
+    public boolean isEmpty() {
+        return queries.isEmpty();
+    }
+
+    public boolean containsEngine(BenchmarkQuery.Engine engine) {
+        for (BenchmarkQuery query : queries) {
+            if (query.getEngine() == engine) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
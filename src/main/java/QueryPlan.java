@@ -0,0 +1,285 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.summary.ProfiledPlan;
+import org.neo4j.driver.summary.ResultSummary;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution plan and runtime statistics of one query, captured with EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) in
+ * PostgreSQL or PROFILE in Neo4j.
+ *
+ * The shape of a plan lists its operators with the tables, labels and indexes they use but without any counts, so
+ * that the shapes of the same query captured in different phases, e.g. without and with indexes, can be diffed.
+ */
+public class QueryPlan {
+
+    private final String engine; // Name and version of the DBMS
+    private final String queryId;
+    private final String phase; // Phase of the benchmark, e.g. "NO INDEXES"
+    private final String planText; // Plan as returned by the DBMS, JSON for PostgreSQL
+    private final List<String> shape; // One line per operator without counts, indented by depth
+    private final List<String> operators; // One line per operator with its counts, indented by depth
+    private final double planningTimeMillis; // -1 if the DBMS does not report it
+    private final double executionTimeMillis;
+    private final long sharedHitBlocks; // PostgreSQL only, -1 otherwise
+    private final long sharedReadBlocks; // PostgreSQL only, -1 otherwise
+    private final long dbHits; // Neo4j only, -1 otherwise
+    private final long pageCacheHits; // Neo4j only, -1 otherwise
+    private final long pageCacheMisses; // Neo4j only, -1 otherwise
+
+    private QueryPlan(String engine, String queryId, String phase, String planText, List<String> shape,
+                      List<String> operators, double planningTimeMillis, double executionTimeMillis,
+                      long sharedHitBlocks, long sharedReadBlocks, long dbHits, long pageCacheHits,
+                      long pageCacheMisses) {
+        this.engine = engine;
+        this.queryId = queryId;
+        this.phase = phase;
+        this.planText = planText;
+        this.shape = shape;
+        this.operators = operators;
+        this.planningTimeMillis = planningTimeMillis;
+        this.executionTimeMillis = executionTimeMillis;
+        this.sharedHitBlocks = sharedHitBlocks;
+        this.sharedReadBlocks = sharedReadBlocks;
+        this.dbHits = dbHits;
+        this.pageCacheHits = pageCacheHits;
+        this.pageCacheMisses = pageCacheMisses;
+    }
+
+    /**
+     * Run a SQL query once with EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON). The query is executed, so it must be
+     * read-only.
+     * @param connection PostgreSQL connection, committed afterwards if auto-commit is off
+     * @param engine name and version of the DBMS used in reports
+     * @param queryId name of the query used in reports
+     * @param phase phase of the benchmark used in reports and diffs, e.g. "NO INDEXES"
+     * @param sqlQuery query to explain
+     */
+    public static QueryPlan explainSQL(Connection connection, String engine, String queryId, String phase,
+                                       String sqlQuery) throws SQLException {
+        String planText;
+        Statement stmt = connection.createStatement();
+        try {
+            ResultSet resultSet = stmt.executeQuery("EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + sqlQuery);
+            resultSet.next();
+            planText = resultSet.getString(1);
+            resultSet.close();
+        } finally {
+            stmt.close();
+        }
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+        JSONObject explained = new JSONArray(planText).getJSONObject(0);
+        JSONObject root = explained.getJSONObject("Plan");
+        List<String> shape = new ArrayList<String>();
+        List<String> operators = new ArrayList<String>();
+        addSQLNode(root, 0, shape, operators);
+        // Buffer counts of a node include those of its children
+        return new QueryPlan(engine, queryId, phase, planText, shape, operators,
+                explained.optDouble("Planning Time", -1), explained.optDouble("Execution Time", -1),
+                root.optLong("Shared Hit Blocks", 0), root.optLong("Shared Read Blocks", 0), -1, -1, -1);
+    }
+
+    /**
+     * Run a Cypher query once with PROFILE.
+     * @param session Neo4j session
+     * @param queryId name of the query used in reports
+     * @param phase phase of the benchmark used in reports and diffs, e.g. "NO INDEXES"
+     * @param cypherQuery query to profile
+     */
+    public static QueryPlan profileCypher(Session session, String queryId, String phase, String cypherQuery) {
+        Result result = session.run("PROFILE " + cypherQuery);
+        ResultSummary summary = result.consume();
+        ProfiledPlan root = summary.profile();
+        List<String> shape = new ArrayList<String>();
+        List<String> operators = new ArrayList<String>();
+        long[] totals = new long[3]; // db hits, page cache hits and misses summed over all operators
+        addCypherNode(root, 0, shape, operators, totals);
+        long executionTimeMillis = summary.resultAvailableAfter(TimeUnit.MILLISECONDS) +
+                summary.resultConsumedAfter(TimeUnit.MILLISECONDS);
+        // Neo4j does not report planning time separately
+        return new QueryPlan("Neo4j", queryId, phase, String.join("\n", operators), shape, operators, -1,
+                executionTimeMillis, -1, -1, totals[0], totals[1], totals[2]);
+    }
+
+    private static void addSQLNode(JSONObject node, int depth, List<String> shape, List<String> operators) {
+        StringBuilder line = new StringBuilder(indent(depth)).append(node.getString("Node Type"));
+        if (node.has("Join Type")) {
+            line.append(" (").append(node.getString("Join Type")).append(")");
+        }
+        if (node.has("Relation Name")) {
+            line.append(" on ").append(node.getString("Relation Name"));
+        }
+        if (node.has("Index Name")) {
+            line.append(" using ").append(node.getString("Index Name"));
+        }
+        shape.add(line.toString());
+        operators.add(String.format("%s  rows=%d loops=%d time=%.3f ms hit=%d read=%d", line,
+                node.optLong("Actual Rows", 0), node.optLong("Actual Loops", 0),
+                node.optDouble("Actual Total Time", 0), node.optLong("Shared Hit Blocks", 0),
+                node.optLong("Shared Read Blocks", 0)));
+        JSONArray children = node.optJSONArray("Plans");
+        if (children != null) {
+            for (int i = 0; i < children.length(); i++) {
+                addSQLNode(children.getJSONObject(i), depth + 1, shape, operators);
+            }
+        }
+    }
+
+    private static void addCypherNode(ProfiledPlan node, int depth, List<String> shape, List<String> operators,
+                                      long[] totals) {
+        StringBuilder line = new StringBuilder(indent(depth)).append(node.operatorType());
+        Value details = node.arguments().get("Details");
+        if (details != null) {
+            line.append(" ").append(details.asString());
+        }
+        shape.add(line.toString());
+        operators.add(String.format("%s  rows=%d dbHits=%d pageCacheHits=%d pageCacheMisses=%d", line,
+                node.records(), node.dbHits(), node.pageCacheHits(), node.pageCacheMisses()));
+        totals[0] += node.dbHits();
+        totals[1] += node.pageCacheHits();
+        totals[2] += node.pageCacheMisses();
+        for (ProfiledPlan child : node.children()) {
+            addCypherNode(child, depth + 1, shape, operators, totals);
+        }
+    }
+
+    private static String indent(int depth) {
+        StringBuilder indent = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            indent.append("  ");
+        }
+        return indent.toString();
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public String getQueryId() {
+        return queryId;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public String getPlanText() {
+        return planText;
+    }
+
+    public List<String> getShape() {
+        return shape;
+    }
+
+    public double getPlanningTimeMillis() {
+        return planningTimeMillis;
+    }
+
+    public double getExecutionTimeMillis() {
+        return executionTimeMillis;
+    }
+
+    public long getSharedHitBlocks() {
+        return sharedHitBlocks;
+    }
+
+    public long getSharedReadBlocks() {
+        return sharedReadBlocks;
+    }
+
+    public long getDbHits() {
+        return dbHits;
+    }
+
+    public long getPageCacheHits() {
+        return pageCacheHits;
+    }
+
+    public long getPageCacheMisses() {
+        return pageCacheMisses;
+    }
+
+    /**
+     * Get planning and execution time and the buffer or db hit counts in one line.
+     */
+    public String getStatistics() {
+        StringBuilder statistics = new StringBuilder();
+        if (planningTimeMillis >= 0) {
+            statistics.append(String.format("planning: %.3f ms, ", planningTimeMillis));
+        }
+        statistics.append(String.format("execution: %.3f ms", executionTimeMillis));
+        if (sharedHitBlocks >= 0) {
+            statistics.append(", shared hit blocks: ").append(sharedHitBlocks)
+                    .append(", shared read blocks: ").append(sharedReadBlocks);
+        }
+        if (dbHits >= 0) {
+            statistics.append(", db hits: ").append(dbHits)
+                    .append(", page cache hits: ").append(pageCacheHits)
+                    .append(", page cache misses: ").append(pageCacheMisses);
+        }
+        return statistics.toString();
+    }
+
+    /**
+     * Print the statistics and the operator tree with the counts of every operator.
+     */
+    public void print(PrintStream out) {
+        out.println("Plan of " + engine + " " + queryId + " (" + phase + "): " + getStatistics());
+        for (String operator : operators) {
+            out.println("  " + operator);
+        }
+    }
+
+    /**
+     * Print the statistics of both plans and a line diff of their shapes. Lines only in the first plan start with
+     * "-", lines only in the second plan with "+".
+     */
+    public static void printDiff(QueryPlan before, QueryPlan after, PrintStream out) {
+        out.println("Plan diff of " + before.engine + " " + before.queryId + ", " + before.phase + " -> " +
+                after.phase + ":");
+        out.println("  " + before.phase + ": " + before.getStatistics());
+        out.println("  " + after.phase + ": " + after.getStatistics());
+        if (before.shape.equals(after.shape)) {
+            out.println("  Plan shape unchanged.");
+            return;
+        }
+        // Longest common subsequence of the shape lines
+        List<String> a = before.shape;
+        List<String> b = after.shape;
+        int[][] common = new int[a.size() + 1][b.size() + 1];
+        for (int i = a.size() - 1; i >= 0; i--) {
+            for (int j = b.size() - 1; j >= 0; j--) {
+                common[i][j] = a.get(i).equals(b.get(j)) ? common[i + 1][j + 1] + 1 :
+                        Math.max(common[i + 1][j], common[i][j + 1]);
+            }
+        }
+        int i = 0;
+        int j = 0;
+        while (i < a.size() || j < b.size()) {
+            if (i < a.size() && j < b.size() && a.get(i).equals(b.get(j))) {
+                out.println("    " + a.get(i));
+                i++;
+                j++;
+            } else if (j < b.size() && (i == a.size() || common[i][j + 1] >= common[i + 1][j])) {
+                out.println("  + " + b.get(j));
+                j++;
+            } else {
+                out.println("  - " + a.get(i));
+                i++;
+            }
+        }
+    }
+}
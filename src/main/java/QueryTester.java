@@ -6,7 +6,10 @@ import java.sql.*;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 public class QueryTester {
 
@@ -18,19 +21,169 @@ public class QueryTester {
 
     private List<Long> results;
 
+    private static final int SQL_FETCH_SIZE = 1000; // Rows fetched per round trip when results are consumed fully
+
+    private boolean consumeFullResult = false; // Read every row inside the timed section of each iteration
+
+    private int warmupIterations = 0; // Iterations run before the measured ones, their latencies are discarded
+
+    private double steadyStateThreshold = 0; // Coefficient of variation regarded as steady, 0 disables the phase
+    private int steadyStateWindow = 10;
+    private long steadyStateTimeBudgetMillis = 60000;
+
+    private final List<String> stabilizationResults = new ArrayList<String>();
+
+    private final List<String> clientResourceResults = new ArrayList<String>();
+    private ClientResourceUsage clientResources = null; // Client resources of the latest measured iterations
+
+    private CacheState[] cacheStates = {CacheState.AS_IS}; // Cache states every query is measured in
+    private CacheControl cacheControl = new CacheControl(null);
+    private final LinkedHashMap<String, String> cacheStateResults = new LinkedHashMap<String, String>();
+
+    private boolean sampleServerStatistics = false; // Snapshot server counters around the measured iterations
+    private final List<String> serverStatisticsResults = new ArrayList<String>();
+    private LinkedHashMap<String, Long> serverStatistics = null; // Server counter deltas of the latest measurement
+
+    private boolean capturePlans = false; // Run every query once more with EXPLAIN ANALYZE or PROFILE
+    private String phase = ""; // Phase of the benchmark the captured plans belong to, e.g. "NO INDEXES"
+    private final List<QueryPlan> plans = new ArrayList<QueryPlan>();
+
+    private static final long KEY_SEED = 0; // Every DBMS gets the same sequence of keys
+    private KeySpace keySpace = new KeySpace(); // Keys of the parameterized queries
+
+    private ResultExporter resultExporter = null; // Writes every measurement as a structured record, if set
+
+    /**
+     * One timed execution of a query.
+     */
+    private interface QueryIteration {
+        /**
+         * @return latency of the execution in microseconds
+         */
+        long execute() throws Exception;
+    }
+
     public QueryTester(HashMap<String, String[]> sql_databases, HashMap<String, String> neo4j_settings) {
         this.sql_databases = sql_databases;
         this.neo4j_settings = neo4j_settings;
     }
 
+    public void setConsumeFullResult(boolean consumeFullResult) {
+        this.consumeFullResult = consumeFullResult;
+    }
+
+    public void setWarmupIterations(int warmupIterations) {
+        this.warmupIterations = warmupIterations;
+    }
+
+    public void setCapturePlans(boolean capturePlans) {
+        this.capturePlans = capturePlans;
+    }
+
+    /**
+     * Measure every query in each of the cache states, one after another.
+     * @param cacheControl puts the caches into the cold and warm states
+     */
+    public void setCacheStates(CacheState[] cacheStates, CacheControl cacheControl) {
+        this.cacheStates = cacheStates;
+        this.cacheControl = cacheControl;
+    }
+
+    /**
+     * Snapshot the counters of the server, see {@link ServerStatistics}, before and after the measured iterations
+     * of every query and report the work the server did.
+     */
+    public void setSampleServerStatistics(boolean sampleServerStatistics) {
+        this.sampleServerStatistics = sampleServerStatistics;
+    }
+
+    /**
+     * Set the phase of the benchmark, e.g. "NO INDEXES", that plans captured from now on belong to.
+     */
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * Set the key space the keys of the parameterized queries are drawn from, one key per iteration.
+     */
+    public void setKeySpace(KeySpace keySpace) {
+        this.keySpace = keySpace;
+    }
+
+    /**
+     * Set the exporter every measurement is written to, null to write none.
+     */
+    public void setResultExporter(ResultExporter resultExporter) {
+        this.resultExporter = resultExporter;
+    }
+
+    public KeySpace getKeySpace() {
+        return keySpace;
+    }
+
+    public List<QueryPlan> getPlans() {
+        return plans;
+    }
+
+    /**
+     * Keep iterating before the measured iterations until the coefficient of variation of the latest latencies
+     * drops below the threshold or the time budget runs out.
+     * @param threshold coefficient of variation regarded as steady, 0 disables the steady-state phase
+     * @param window number of latest latencies the coefficient of variation is calculated from
+     * @param timeBudgetMillis maximum time spent waiting for a steady state per query and DBMS
+     */
+    public void setSteadyState(double threshold, int window, long timeBudgetMillis) {
+        this.steadyStateThreshold = threshold;
+        this.steadyStateWindow = window;
+        this.steadyStateTimeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Executes SQL query in every SQL DBMS the given number of times.
+     * @return latencies of the iterations in microseconds, keyed by the version of the DBMS
+     */
     public HashMap<String, ArrayList<Long>> measureQueryTimeSQL(String sqlQuery, int iterations) {
+        return measureQueryTimeSQL(sqlQuery, sqlQuery, iterations);
+    }
+
+    /**
+     * Executes SQL query in every SQL DBMS the given number of times.
+     * @param queryId name of the query used in reports
+     * @return latencies of the iterations in microseconds, keyed by the version of the DBMS
+     */
+    public HashMap<String, ArrayList<Long>> measureQueryTimeSQL(String queryId, String sqlQuery, int iterations) {
+        return measureQueryTimeSQL(new BenchmarkQuery(queryId, queryId, BenchmarkQuery.Engine.SQL, sqlQuery),
+                keySpace, iterations);
+    }
+
+    /**
+     * Executes SQL query in every SQL DBMS the given number of times. A parameterized query is prepared once and
+     * executed with a new key from the key space of the tester in every iteration.
+     * @return latencies of the iterations in microseconds, keyed by the version of the DBMS
+     */
+    public HashMap<String, ArrayList<Long>> measureQueryTimeSQL(BenchmarkQuery query, int iterations) {
+        return measureQueryTimeSQL(query, keySpace, iterations);
+    }
+
+    /**
+     * Executes SQL query in every SQL DBMS the given number of times. A parameterized query is prepared once and
+     * executed with a new key from the given key space in every iteration.
+     * @return latencies of the iterations in microseconds, keyed by the version of the DBMS
+     */
+    public HashMap<String, ArrayList<Long>> measureQueryTimeSQL(BenchmarkQuery query, KeySpace keySpace,
+                                                                int iterations) {
+        String queryId = query.getId();
+        String sqlQuery = query.getText();
+        String keyParameter = query.getKeyParameter();
         HashMap<String, ArrayList<Long>> resultLists = new HashMap<String, ArrayList<Long>>();
         ArrayList<Long> results;
         Connection connection = null;
         Statement stmt = null;
         
         System.out.println("Executing SQL Query: " + sqlQuery + " in " + sql_databases.size() + " databases with " + 
-                iterations + " iterations.");
+                iterations + " iterations" +
+                (query.isParameterized() ? ", " + keyParameter + " keys " + keySpace : "") + ".");
         try {
             for (String db_url : sql_databases.keySet()) {
                 String[] db_info = sql_databases.get(db_url);
@@ -44,24 +197,76 @@ public class QueryTester {
                 String productName = meta.getDatabaseProductName();
                 String productVersion = meta.getDatabaseProductVersion();
                 
-                stmt = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
-                results = new ArrayList<Long>();
-                ResultSet resultSet = null;
-                for (int i = 0; i < iterations; i++) {
-                    System.out.println("Starting iteration: " + i + ".");
-                    long startTimeInMilliseconds = System.currentTimeMillis();
-                    resultSet = stmt.executeQuery(sqlQuery);
-                    long endTimeInMilliseconds = System.currentTimeMillis();
-                    long elapsedTimeMilliseconds = endTimeInMilliseconds - startTimeInMilliseconds;
-                    results.add(elapsedTimeMilliseconds);
+                final long[] rowCount = new long[1];
+                Random keyRandom = new Random(KEY_SEED);
+                stmt = createStatementSQL(connection, query);
+                for (CacheState cacheState : cacheStates) {
+                    // Every cache state gets the same sequence of keys
+                    final Random iterationKeyRandom = keyRandom = new Random(KEY_SEED);
+                    QueryIteration queryIteration;
+                    if (cacheState == CacheState.COLD) {
+                        queryIteration = () -> {
+                            // Eviction and connecting are setup, not client work of the query
+                            pauseClientResources();
+                            Connection coldConnection = cacheControl.coldConnectionSQL(db_url, db_info);
+                            try {
+                                QueryIteration coldIteration = iterationSQL(coldConnection,
+                                        createStatementSQL(coldConnection, query), query, keySpace,
+                                        iterationKeyRandom, rowCount);
+                                resumeClientResources();
+                                return coldIteration.execute();
+                            } finally {
+                                pauseClientResources();
+                                coldConnection.close();
+                                resumeClientResources();
+                            }
+                        };
+                    } else {
+                        if (cacheState == CacheState.WARM) {
+                            cacheControl.warmSQL(connection);
+                        }
+                        queryIteration = iterationSQL(connection, stmt, query, keySpace, iterationKeyRandom,
+                                rowCount);
+                    }
+                    // Cold iterations run on connections closed before the snapshot after, which flushes them
+                    ServerStatistics statistics = sampleServerStatistics ? ServerStatistics.forSQL(db_url, db_info,
+                            (cacheState == CacheState.COLD) ? null : connection) : null;
+                    try {
+                        results = runIterations(query, productName + " " + productVersion, cacheState, iterations,
+                                rowCount, statistics, queryIteration);
+                    } finally {
+                        if (statistics != null) {
+                            statistics.close();
+                        }
+                    }
+                    if (cacheState == CacheState.COLD && cacheControl.hasEvictCommand()) {
+                        // The evict command restarted the DBMS, which closed the connection opened before
+                        connection.close();
+                        connection = DriverManager.getConnection(db_url + "warehouse", db_username, db_password);
+                        stmt = createStatementSQL(connection, query);
+                    }
+                    resultLists.put(productVersion + cacheState.getLabel(), results);
+                    if (resultExporter != null) {
+                        resultExporter.setCacheState(cacheState);
+                        resultExporter.record(queryId, query.getEngine().name(), productName + " " + productVersion,
+                                phase, query.isParameterized() ? keySpace.toString() : null, warmupIterations,
+                                consumeFullResult, rowCount[0], results, clientResources, serverStatistics);
+                    }
                 }
-                resultLists.put(productVersion, results);
-                if (resultSet != null) {
-                    resultSet.last();
-                    System.out.println("Query in url " + db_url + " returned " + resultSet.getRow() + " rows.");
-                } else {
-                    System.out.println("Query in url " + db_url + " returned 0 rows.");
+                if (capturePlans) {
+                    try {
+                        QueryPlan plan = QueryPlan.explainSQL(connection, productName + " " + productVersion, queryId,
+                                phase, query.getTextWithKey(keySpace.next(keyParameter, keyRandom)));
+                        plan.print(System.out);
+                        plans.add(plan);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        if (!connection.getAutoCommit()) {
+                            connection.rollback();
+                        }
+                    }
                 }
+                System.out.println("Query in url " + db_url + " returned " + rowCount[0] + " rows.");
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -84,70 +289,550 @@ public class QueryTester {
         return resultLists;
     }
 
+    /**
+     * Create the statement the iterations of a SQL query run with.
+     */
+    private Statement createStatementSQL(Connection connection, BenchmarkQuery query) throws SQLException {
+        Statement stmt;
+        if (consumeFullResult) {
+            // PgJDBC only streams rows through a cursor when auto-commit is off and a fetch size is set,
+            // otherwise the whole result is buffered by executeQuery and the first row arrives with the last.
+            connection.setAutoCommit(false);
+            stmt = query.isParameterized() ?
+                    connection.prepareStatement(query.getText(), ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY) :
+                    connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(SQL_FETCH_SIZE);
+        } else {
+            stmt = query.isParameterized() ?
+                    connection.prepareStatement(query.getText(), ResultSet.TYPE_SCROLL_INSENSITIVE,
+                            ResultSet.CONCUR_READ_ONLY) :
+                    connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        }
+        return stmt;
+    }
+
+    /**
+     * Create one timed execution of a SQL query on the statement created by
+     * {@link #createStatementSQL(Connection, BenchmarkQuery)}.
+     * @param rowCount set to the row count of the execution
+     */
+    private QueryIteration iterationSQL(Connection connection, Statement stmt, BenchmarkQuery query,
+                                        KeySpace keySpace, Random keyRandom, long[] rowCount) {
+        String sqlQuery = query.getText();
+        String keyParameter = query.getKeyParameter();
+        if (consumeFullResult) {
+            return () -> {
+                QueryMeasurement measurement;
+                if (query.isParameterized()) {
+                    PreparedStatement preparedStmt = (PreparedStatement) stmt;
+                    preparedStmt.setLong(1, keySpace.next(keyParameter, keyRandom));
+                    measurement = executeAndConsumeSQL(preparedStmt);
+                } else {
+                    measurement = executeAndConsumeSQL(stmt, sqlQuery);
+                }
+                connection.commit();
+                printUnaccounted(measurement);
+                rowCount[0] = measurement.getRowCount();
+                return TimeUnit.NANOSECONDS.toMicros(measurement.getTimeToLastRowNanos());
+            };
+        }
+        return () -> {
+            ResultSet resultSet;
+            if (query.isParameterized()) {
+                PreparedStatement preparedStmt = (PreparedStatement) stmt;
+                preparedStmt.setLong(1, keySpace.next(keyParameter, keyRandom));
+                long startTime = System.nanoTime();
+                resultSet = preparedStmt.executeQuery();
+                long endTime = System.nanoTime();
+                resultSet.last();
+                rowCount[0] = resultSet.getRow();
+                return TimeUnit.NANOSECONDS.toMicros(endTime - startTime);
+            }
+            long startTime = System.nanoTime();
+            resultSet = stmt.executeQuery(sqlQuery);
+            long endTime = System.nanoTime();
+            resultSet.last();
+            rowCount[0] = resultSet.getRow();
+            return TimeUnit.NANOSECONDS.toMicros(endTime - startTime);
+        };
+    }
+
+    /**
+     * Executes Cypher query in Neo4j the given number of times.
+     * @return latencies of the iterations in microseconds
+     */
     public List<Long> measureQueryTimeCypher(String cypherQuery, int iterations) {
+        return measureQueryTimeCypher(cypherQuery, cypherQuery, iterations);
+    }
+
+    /**
+     * Executes Cypher query in Neo4j the given number of times.
+     * @param queryId name of the query used in reports
+     * @return latencies of the iterations in microseconds
+     */
+    public List<Long> measureQueryTimeCypher(String queryId, String cypherQuery, int iterations) {
+        return measureQueryTimeCypher(new BenchmarkQuery(queryId, queryId, BenchmarkQuery.Engine.CYPHER, cypherQuery),
+                keySpace, iterations);
+    }
+
+    /**
+     * Executes Cypher query in Neo4j the given number of times. A parameterized query is executed with a new key
+     * from the key space of the tester in every iteration.
+     * @return latencies of the iterations in microseconds
+     */
+    public List<Long> measureQueryTimeCypher(BenchmarkQuery query, int iterations) {
+        return measureQueryTimeCypher(query, keySpace, iterations);
+    }
+
+    /**
+     * Executes Cypher query in Neo4j the given number of times. A parameterized query is executed with a new key
+     * from the given key space in every iteration.
+     * @return latencies of the iterations in microseconds
+     */
+    public List<Long> measureQueryTimeCypher(BenchmarkQuery query, KeySpace keySpace, int iterations) {
+        String queryId = query.getId();
+        String cypherQuery = query.getText();
+        String keyParameter = query.getKeyParameter();
         String neo4j_db_url = neo4j_settings.get("NEO4J_DB_URL");
         String neo4j_username = neo4j_settings.get("NEO4J_USERNAME");
         String neo4j_password = neo4j_settings.get("NEO4J_PASSWORD");
         org.neo4j.driver.Driver driver = GraphDatabase.driver(neo4j_db_url, AuthTokens.basic(neo4j_username, neo4j_password));
         Session session = driver.session();
         List<Long> results = new ArrayList<Long>();
-        Result result = null;
-        System.out.println("Executing Cypher Query: " + cypherQuery + " with " + iterations + " iterations.");
-        for (int i = 0; i < iterations; i++) {
-            System.out.println("Starting iteration: " + i + ".");
-            long startTimeInMilliseconds = System.currentTimeMillis();
-            result = session.run(cypherQuery);
-            long endTimeInMilliseconds = System.currentTimeMillis();
-            long elapsedTimeMilliseconds = endTimeInMilliseconds - startTimeInMilliseconds;
-            results.add(elapsedTimeMilliseconds);
-        }
-        if (result != null) {
-            List<Record> records = result.list();
-            System.out.println("Cypher query returned: " + records.size() + " records.");
-        } else {
-            System.out.println("Cypher query returned: 0 records.");
+        final long[] rowCount = new long[1];
+        final Result[] pending = new Result[1]; // Result of the latest iteration that has not been read yet
+        Random keyRandom = new Random(KEY_SEED);
+        System.out.println("Executing Cypher Query: " + cypherQuery + " with " + iterations + " iterations" +
+                (query.isParameterized() ? ", " + keyParameter + " keys " + keySpace : "") + ".");
+        try {
+            for (CacheState cacheState : cacheStates) {
+                // Every cache state gets the same sequence of keys
+                final Random iterationKeyRandom = keyRandom = new Random(KEY_SEED);
+                QueryIteration queryIteration;
+                if (cacheState == CacheState.COLD) {
+                    queryIteration = () -> {
+                        // Eviction and connecting are setup, not client work of the query
+                        pauseClientResources();
+                        org.neo4j.driver.Driver coldDriver = cacheControl.coldDriverCypher(neo4j_settings);
+                        Session coldSession = coldDriver.session();
+                        Result[] coldPending = new Result[1];
+                        try {
+                            resumeClientResources();
+                            long latency = iterationCypher(coldSession, query, keySpace, iterationKeyRandom,
+                                    rowCount, coldPending).execute();
+                            if (coldPending[0] != null) {
+                                rowCount[0] = coldPending[0].list().size();
+                            }
+                            return latency;
+                        } finally {
+                            pauseClientResources();
+                            coldSession.close();
+                            coldDriver.close();
+                            resumeClientResources();
+                        }
+                    };
+                } else {
+                    if (cacheState == CacheState.WARM) {
+                        cacheControl.warmCypher(session);
+                    }
+                    queryIteration = iterationCypher(session, query, keySpace, iterationKeyRandom, rowCount,
+                            pending);
+                }
+                ServerStatistics statistics = sampleServerStatistics ? ServerStatistics.forNeo4j(neo4j_settings) :
+                        null;
+                try {
+                    results = runIterations(query, "Neo4j", cacheState, iterations, rowCount, statistics,
+                            queryIteration);
+                    if (pending[0] != null) {
+                        // Like the original measurements, the result of the last iteration is read after the loop
+                        rowCount[0] = pending[0].list().size();
+                        pending[0] = null;
+                    }
+                } finally {
+                    if (statistics != null) {
+                        statistics.close();
+                    }
+                }
+                if (cacheState == CacheState.COLD && cacheControl.hasEvictCommand()) {
+                    // The evict command restarted Neo4j, which closed the connections of the driver opened before
+                    session.close();
+                    driver.close();
+                    driver = GraphDatabase.driver(neo4j_db_url, AuthTokens.basic(neo4j_username, neo4j_password));
+                    session = driver.session();
+                }
+                if (resultExporter != null) {
+                    // The server version is only known from a result summary, e.g. "Neo4j/5.6.0"
+                    String serverVersion = session.run("RETURN 1").consume().server().version();
+                    resultExporter.setCacheState(cacheState);
+                    resultExporter.record(queryId, query.getEngine().name(), serverVersion, phase,
+                            query.isParameterized() ? keySpace.toString() : null, warmupIterations,
+                            consumeFullResult, rowCount[0], results, clientResources, serverStatistics);
+                }
+            }
+            if (capturePlans) {
+                try {
+                    QueryPlan plan = QueryPlan.profileCypher(session, queryId, phase,
+                            query.getTextWithKey(keySpace.next(keyParameter, keyRandom)));
+                    plan.print(System.out);
+                    plans.add(plan);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+            System.out.println("Cypher query returned: " + rowCount[0] + " records.");
+        } catch (Exception e) {
+            e.printStackTrace();
         }
         session.close();
         driver.close();
         return results;
     }
 
-    public void showResults(List<Long> results, boolean showAll) {
-        if (results.size() == 0) {
+    /**
+     * Create one timed execution of a Cypher query in the session.
+     *
+     * Without full result consumption the result is left unread, as the original measurements did. The next run in
+     * the session first pulls the rest of the pending result, so every timed run includes reading the result of the
+     * run before it, and the row count is that of the previous iteration.
+     * @param rowCount set to the row count of the execution
+     * @param pending result of the previous iteration that was not read yet, replaced by the result of this one
+     */
+    private QueryIteration iterationCypher(Session session, BenchmarkQuery query, KeySpace keySpace,
+                                           Random keyRandom, long[] rowCount, Result[] pending) {
+        String cypherQuery = query.getText();
+        if (consumeFullResult) {
+            return () -> {
+                QueryMeasurement measurement = executeAndConsumeCypher(session, cypherQuery,
+                        QueryClient.cypherParameters(query, keySpace, keyRandom));
+                printUnaccounted(measurement);
+                rowCount[0] = measurement.getRowCount();
+                return TimeUnit.NANOSECONDS.toMicros(measurement.getTimeToLastRowNanos());
+            };
+        }
+        return () -> {
+            Value parameters = QueryClient.cypherParameters(query, keySpace, keyRandom);
+            long startTime = System.nanoTime();
+            Result result = session.run(cypherQuery, parameters);
+            long endTime = System.nanoTime();
+            if (pending[0] != null) {
+                // Buffered by the run above
+                rowCount[0] = pending[0].list().size();
+            }
+            pending[0] = result;
+            return TimeUnit.NANOSECONDS.toMicros(endTime - startTime);
+        };
+    }
+
+    /**
+     * Print a diff of the plans of every query captured in both phases. When a query was captured several times in a
+     * phase, its latest plan is used.
+     * @param beforePhase phase the diffs start from, e.g. "NO INDEXES"
+     * @param afterPhase phase the diffs lead to, e.g. "INDEXES"
+     */
+    public void printPlanDiffs(String beforePhase, String afterPhase) {
+        LinkedHashMap<String, QueryPlan> beforePlans = new LinkedHashMap<String, QueryPlan>();
+        LinkedHashMap<String, QueryPlan> afterPlans = new LinkedHashMap<String, QueryPlan>();
+        for (QueryPlan plan : plans) {
+            String key = plan.getEngine() + " " + plan.getQueryId();
+            if (plan.getPhase().equals(beforePhase)) {
+                beforePlans.put(key, plan);
+            } else if (plan.getPhase().equals(afterPhase)) {
+                afterPlans.put(key, plan);
+            }
+        }
+        System.out.println("Plan changes from " + beforePhase + " to " + afterPhase + ":");
+        for (String key : beforePlans.keySet()) {
+            if (afterPlans.containsKey(key)) {
+                QueryPlan.printDiff(beforePlans.get(key), afterPlans.get(key), System.out);
+            }
+        }
+        System.out.println();
+    }
+
+    /**
+     * Runs the warmup iterations, waits for a steady state if it is enabled and then runs the measured iterations.
+     * Every iteration is recorded as a {@link BenchmarkEvents.QueryIterationEvent}, the client resources of the
+     * measured iterations as a {@link ClientResourceUsage}, without printing, event commits and the setup of cold
+     * iterations. With cold caches there are no warmup and steady-state iterations, they would warm the caches up.
+     * @param query query used in reports and events
+     * @param server name and version of the DBMS used in reports
+     * @param cacheState cache state the query iteration runs in
+     * @param iterations number of measured iterations
+     * @param rowCount row count of the latest iteration, set by the query iteration
+     * @param statistics server counters snapshotted before and after the measured iterations, null for none
+     * @param queryIteration executes one iteration and returns its latency in microseconds
+     * @return latencies of the measured iterations in microseconds
+     */
+    private ArrayList<Long> runIterations(BenchmarkQuery query, String server, CacheState cacheState, int iterations,
+                                          long[] rowCount, ServerStatistics statistics,
+                                          QueryIteration queryIteration) throws Exception {
+        String queryId = query.getId();
+        String engine = server + cacheState.getLabel();
+        boolean cold = (cacheState == CacheState.COLD);
+        clientResources = null;
+        for (int i = 0; i < warmupIterations && !cold; i++) {
+            System.out.println("Starting warmup iteration: " + i + ".");
+            executeIteration(query, engine, "warmup", rowCount, queryIteration);
+        }
+        if (steadyStateThreshold > 0 && !cold) {
+            SteadyStateDetector detector = new SteadyStateDetector(steadyStateWindow, steadyStateThreshold);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(steadyStateTimeBudgetMillis);
+            int i = 0;
+            while (!detector.isSteady() && System.nanoTime() < deadline) {
+                System.out.println("Starting steady-state iteration: " + i + ".");
+                detector.addSample(executeIteration(query, engine, "steady-state", rowCount, queryIteration));
+                i++;
+            }
+            String stabilization;
+            if (detector.isSteady()) {
+                stabilization = "stable after " + (warmupIterations + i) + " iterations";
+                System.out.println("Steady state reached after " + i + " iterations, coefficient of variation " +
+                        String.format("%.4f", detector.getCoefficientOfVariation()) + ".");
+            } else {
+                stabilization = "not stable after " + (warmupIterations + i) + " iterations";
+                System.out.println("Steady state not reached within " + steadyStateTimeBudgetMillis + " ms, " +
+                        "coefficient of variation " + String.format("%.4f", detector.getCoefficientOfVariation()) + ".");
+            }
+            stabilizationResults.add(engine + ", " + queryId + ": " + stabilization + String.format(
+                    " (coefficient of variation %.4f)", detector.getCoefficientOfVariation()));
+        }
+        ArrayList<Long> results = new ArrayList<Long>();
+        LinkedHashMap<String, Long> serverBefore = (statistics != null) ? statistics.snapshot() : null;
+        clientResources = ClientResourceUsage.start();
+        for (int i = 0; i < iterations; i++) {
+            printUnaccounted("Starting iteration: " + i + ".");
+            results.add(executeIteration(query, engine, "measured", rowCount, queryIteration));
+        }
+        clientResources.stop(iterations);
+        System.out.println("Client resources: " + clientResources + ".");
+        serverStatistics = null;
+        if (statistics != null) {
+            serverStatistics = ServerStatistics.delta(serverBefore, statistics.snapshot());
+            System.out.println("Server statistics: " + ServerStatistics.format(serverStatistics) + ".");
+            serverStatisticsResults.add(String.format("%s, %s, %s: %d iterations, %s", engine, queryId, phase,
+                    iterations, ServerStatistics.format(serverStatistics)));
+        }
+        double meanLatencyMillis = 0;
+        for (long result : results) {
+            meanLatencyMillis += result / 1000.0;
+        }
+        meanLatencyMillis = results.isEmpty() ? 0 : meanLatencyMillis / results.size();
+        clientResourceResults.add(String.format("%s, %s, %s: mean latency %.3f ms, %s", engine, queryId, phase,
+                meanLatencyMillis, clientResources));
+        if (cacheState != CacheState.AS_IS) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (long result : results) {
+                histogram.recordValue(result);
+            }
+            String key = server + ", " + queryId + ", " + phase;
+            String latencies = String.format("%s mean %.3f ms, p50 %.3f ms, p99 %.3f ms",
+                    cacheState.name().toLowerCase(), histogram.getMean() / 1000.0,
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0);
+            cacheStateResults.put(key, cacheStateResults.containsKey(key) ?
+                    cacheStateResults.get(key) + "; " + latencies : latencies);
+        }
+        return results;
+    }
+
+    /**
+     * Executes one iteration and records it as a {@link BenchmarkEvents.QueryIterationEvent}.
+     * @param stage "warmup", "steady-state" or "measured"
+     * @return latency of the iteration in microseconds
+     */
+    private long executeIteration(BenchmarkQuery query, String engine, String stage, long[] rowCount,
+                                  QueryIteration queryIteration) throws Exception {
+        BenchmarkEvents.QueryIterationEvent event = new BenchmarkEvents.QueryIterationEvent();
+        event.begin();
+        long latency = queryIteration.execute();
+        event.end();
+        if (event.shouldCommit()) {
+            pauseClientResources();
+            event.set(query, engine, stage, rowCount[0], latency);
+            event.commit();
+            resumeClientResources();
+        }
+        return latency;
+    }
+
+    /**
+     * Print a line without counting it in the client resources of the measured iterations.
+     */
+    private void printUnaccounted(Object line) {
+        pauseClientResources();
+        System.out.println(line);
+        resumeClientResources();
+    }
+
+    private void pauseClientResources() {
+        if (clientResources != null) {
+            clientResources.pause();
+        }
+    }
+
+    private void resumeClientResources() {
+        if (clientResources != null) {
+            clientResources.resume();
+        }
+    }
+
+    /**
+     * Prints how many iterations (warmup included) every query needed to reach a steady state in every DBMS.
+     */
+    public void printStabilizationReport() {
+        if (stabilizationResults.isEmpty()) {
             return;
         }
-        Collections.sort(results);
-        if (showAll) {
-            System.out.println("Smallest number in resultset: ");
-            System.out.println(results.get(0));
-            System.out.println("Biggest number in resultset: ");
-            System.out.println(results.get(results.size() - 1));
+        System.out.println("Iterations until steady state:");
+        for (String stabilization : stabilizationResults) {
+            System.out.println(stabilization);
+        }
+        System.out.println();
+    }
+
+    /**
+     * Prints the resources the benchmark JVM used while measuring every query, next to the mean latency, to tell
+     * client overhead apart from server time.
+     */
+    public void printClientResourceReport() {
+        if (clientResourceResults.isEmpty()) {
+            return;
         }
-        if (results.size() > 2) {
-            results.remove(0);
-            results.remove(results.size() - 1);
+        System.out.println("Client resources of the measured iterations:");
+        for (String clientResourceResult : clientResourceResults) {
+            System.out.println(clientResourceResult);
         }
-        long sum = 0;
-        if (showAll) {
-            System.out.println();
-            System.out.println("Content of the results table:");
+        System.out.println();
+    }
+
+    /**
+     * Prints the latencies of every query in every cache state side by side.
+     */
+    public void printCacheStateReport() {
+        if (cacheStateResults.isEmpty()) {
+            return;
         }
-        for (int i = 0; i < results.size(); i++) {
-            if (showAll) {
-                System.out.println(results.get(i));
+        System.out.println("Latencies by cache state:");
+        for (String key : cacheStateResults.keySet()) {
+            System.out.println(key + ": " + cacheStateResults.get(key));
+        }
+        System.out.println();
+    }
+
+    /**
+     * Prints the work the servers did during the measured iterations of every query, as deltas of their counters.
+     */
+    public void printServerStatisticsReport() {
+        if (serverStatisticsResults.isEmpty()) {
+            return;
+        }
+        System.out.println("Server statistics of the measured iterations:");
+        for (String serverStatisticsResult : serverStatisticsResults) {
+            System.out.println(serverStatisticsResult);
+        }
+        System.out.println();
+    }
+
+    /**
+     * Executes SQL query and reads every column of every row before the clock is stopped.
+     * @param stmt statement to execute the query with
+     * @param sqlQuery query to execute
+     * @return time to first row, time to last row and row count of the execution
+     */
+    public static QueryMeasurement executeAndConsumeSQL(Statement stmt, String sqlQuery) throws SQLException {
+        long startTime = System.nanoTime();
+        return consumeSQL(stmt.executeQuery(sqlQuery), startTime);
+    }
+
+    /**
+     * Executes prepared SQL query with the parameters already set and reads every column of every row before the
+     * clock is stopped.
+     * @param stmt prepared statement of the query
+     * @return time to first row, time to last row and row count of the execution
+     */
+    public static QueryMeasurement executeAndConsumeSQL(PreparedStatement stmt) throws SQLException {
+        long startTime = System.nanoTime();
+        return consumeSQL(stmt.executeQuery(), startTime);
+    }
+
+    private static QueryMeasurement consumeSQL(ResultSet resultSet, long startTime) throws SQLException {
+        long firstRowTime = -1;
+        long rowCount = 0;
+        try {
+            int columnCount = resultSet.getMetaData().getColumnCount();
+            while (resultSet.next()) {
+                if (rowCount == 0) {
+                    firstRowTime = System.nanoTime();
+                }
+                for (int column = 1; column <= columnCount; column++) {
+                    resultSet.getObject(column);
+                }
+                rowCount++;
             }
-            sum = sum + results.get(i);
+        } finally {
+            resultSet.close();
+        }
+        long endTime = System.nanoTime();
+        long timeToFirstRow = (firstRowTime < 0) ? -1 : firstRowTime - startTime;
+        return new QueryMeasurement(timeToFirstRow, endTime - startTime, rowCount);
+    }
+
+    /**
+     * Executes Cypher query and pulls every record from the server before the clock is stopped.
+     * @param session Neo4j session to run the query in
+     * @param cypherQuery query to execute
+     * @return time to first row, time to last row and row count of the execution
+     */
+    public static QueryMeasurement executeAndConsumeCypher(Session session, String cypherQuery) {
+        return executeAndConsumeCypher(session, cypherQuery, Values.EmptyMap);
+    }
+
+    /**
+     * Executes Cypher query with the given parameters and pulls every record from the server before the clock is
+     * stopped.
+     * @param parameters parameters of the query, e.g. Values.parameters("invoiceId", 0)
+     * @return time to first row, time to last row and row count of the execution
+     */
+    public static QueryMeasurement executeAndConsumeCypher(Session session, String cypherQuery, Value parameters) {
+        long startTime = System.nanoTime();
+        long firstRowTime = -1;
+        long rowCount = 0;
+        Result result = session.run(cypherQuery, parameters);
+        while (result.hasNext()) {
+            result.next();
+            if (rowCount == 0) {
+                firstRowTime = System.nanoTime();
+            }
+            rowCount++;
+        }
+        long endTime = System.nanoTime();
+        long timeToFirstRow = (firstRowTime < 0) ? -1 : firstRowTime - startTime;
+        return new QueryMeasurement(timeToFirstRow, endTime - startTime, rowCount);
+    }
+
+    /**
+     * Prints the latency distribution of the measured iterations.
+     * @param results latencies of the iterations in microseconds
+     * @param showAll also print every individual latency
+     */
+    public void showResults(List<Long> results, boolean showAll) {
+        if (results.size() == 0) {
+            return;
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long result : results) {
+            histogram.recordValue(result);
         }
-        double average = (double) sum / results.size();
-        double standardDeviation = calculateStandardDeviation(results);
         if (showAll) {
+            List<Long> sortedResults = new ArrayList<Long>(results);
+            Collections.sort(sortedResults);
+            System.out.println("Content of the results table (ms):");
+            for (long result : sortedResults) {
+                System.out.println(String.format("%.3f", result / 1000.0));
+            }
             System.out.println();
         }
-        System.out.println("Average time for query: ");
-        System.out.println(average);
-        System.out.println();
-        System.out.println("Standard deviation of the results array: ");
-        System.out.println(standardDeviation);
+        histogram.printSummary(System.out);
         System.out.println();
     }
 
@@ -166,16 +851,8 @@ public class QueryTester {
 
     public void executeQueryTestsSQL(int iterations, boolean showAll) {
         System.out.println("Short query, work price");
-        String workPriceSQL =
-                "SELECT work.id AS workId, " +
-                        "SUM( " +
-                        "(worktype.price * workhours.hours * workhours.discount) " +
-                        ") AS price " +
-                        "FROM work " +
-                        "INNER JOIN workhours ON work.id = workhours.workId " +
-                        "INNER JOIN worktype ON worktype.id = workhours.worktypeId " +
-                        "GROUP BY work.id";
-        resultLists = measureQueryTimeSQL(workPriceSQL, iterations);
+        String workPriceSQL = QueryCatalog.WORK_PRICE_SQL;
+        resultLists = measureQueryTimeSQL("work-price-short", workPriceSQL, iterations);
         for (String databaseVersion : resultLists.keySet()) {
             if (databaseVersion.contains("MariaDB")) {
                 System.out.println("Results for MariaDB version " + databaseVersion);
@@ -186,19 +863,8 @@ public class QueryTester {
             showResults(results, showAll);
         }
         System.out.println("Long query, work price");
-        String workPriceWithItemsSQL =
-                "SELECT work.id AS workId, " +
-                        "SUM(" +
-                        "(worktype.price * workhours.hours * workhours.discount) + " +
-                        "(item.purchaseprice * useditem.amount * useditem.discount) " +
-                        ") AS price " +
-                        "FROM work " +
-                        "INNER JOIN workhours ON work.id = workhours.workId " +
-                        "INNER JOIN worktype ON worktype.id = workhours.worktypeId " +
-                        "INNER JOIN useditem ON work.id = useditem.workId " +
-                        "INNER JOIN item ON useditem.itemId = item.id " +
-                        "GROUP BY work.id";
-        resultLists = measureQueryTimeSQL(workPriceWithItemsSQL, iterations);
+        String workPriceWithItemsSQL = QueryCatalog.WORK_PRICE_WITH_ITEMS_SQL;
+        resultLists = measureQueryTimeSQL("work-price-long", workPriceWithItemsSQL, iterations);
         for (String databaseVersion : resultLists.keySet()) {
             if (databaseVersion.contains("MariaDB")) {
                 System.out.println("Results for MariaDB version " + databaseVersion);
@@ -208,9 +874,9 @@ public class QueryTester {
             results = resultLists.get(databaseVersion);
             showResults(results, showAll);
         }
-        System.out.println("Query with defined key, work of invoiceId 0");
-        String workOfInvoiceSQL = "SELECT * FROM work INNER JOIN workInvoice ON work.id=workInvoice.workId INNER JOIN invoice ON workInvoice.workId=invoice.id AND invoice.id=0";
-        resultLists = measureQueryTimeSQL(workOfInvoiceSQL, iterations);
+        System.out.println("Query with defined key, work of invoice");
+        resultLists = measureQueryTimeSQL(QueryCatalog.getQuery("work-of-invoice", BenchmarkQuery.Engine.SQL),
+                iterations);
         for (String databaseVersion : resultLists.keySet()) {
             if (databaseVersion.contains("MariaDB")) {
                 System.out.println("Results for MariaDB version " + databaseVersion);
@@ -223,13 +889,9 @@ public class QueryTester {
     }
 
     public void executeQueryWithDefinedKeySQL(int iterations, boolean showAll) {
-        System.out.println("Query with defined key, invoice prices for customerId 0");
-        String invoicePricesForCustomerSQL = "SELECT q1.customerId, q2.invoiceId, SUM(q3.price) AS invoicePrice FROM " +
-                "( SELECT customer.id AS customerId, invoice.id AS invoiceId FROM invoice INNER JOIN customer ON invoice.customerId=customer.id ) AS q1 INNER JOIN " +
-                "( SELECT workinvoice.invoiceId, workinvoice.workId FROM workinvoice INNER JOIN invoice ON workinvoice.invoiceId = invoice.id ) AS q2 USING (invoiceId) INNER JOIN " +
-                "( SELECT workhours.workid AS workId, SUM( (worktype.price * workhours.hours * workhours.discount) + (item.purchaseprice * useditem.amount * useditem.discount) ) AS price FROM workhours INNER JOIN worktype ON workhours.worktypeid = worktype.id INNER JOIN useditem ON workhours.workid = useditem.workid INNER JOIN item ON useditem.itemid = item.id GROUP BY workhours.workid ) " +
-                "AS q3 USING (workId) WHERE q1.customerId=0 GROUP BY q2.invoiceId, q1.customerId";
-        resultLists = measureQueryTimeSQL(invoicePricesForCustomerSQL, iterations);
+        System.out.println("Query with defined key, invoice prices for customer");
+        resultLists = measureQueryTimeSQL(QueryCatalog.getQuery("invoice-prices-for-customer",
+                BenchmarkQuery.Engine.SQL), iterations);
         for (String databaseVersion : resultLists.keySet()) {
             if (databaseVersion.contains("MariaDB")) {
                 System.out.println("Results for MariaDB version " + databaseVersion);
@@ -243,36 +905,14 @@ public class QueryTester {
 
     public void executeQueryWithDefinedKeyCypher(int iterations, boolean showAll) {
         System.out.println();
-        System.out.println("Query with defined key, invoice prices for customerId 0");
-        String invoicePricesForCustomerCypher = "MATCH (c:customer)-[:PAYS]->(inv:invoice) WHERE c.customerId=0 " +
-                "WITH c, inv " +
-                "OPTIONAL MATCH (inv)-[:WORK_INVOICE]->(w:work) " +
-                "WITH c, inv, w " +
-                "OPTIONAL MATCH (wt:worktype)-[h:WORKHOURS]->(w:work)-[u:USED_ITEM]->(i:item) " +
-                "WITH c, inv, w, SUM((h.hours*h.discount*wt.price)+(u.amount*u.discount*i.purchaseprice)) as workPrice " +
-                "RETURN c, inv, SUM(workPrice) as invoicePrice";
-        results = measureQueryTimeCypher(invoicePricesForCustomerCypher, iterations);
+        System.out.println("Query with defined key, invoice prices for customer");
+        results = measureQueryTimeCypher(QueryCatalog.getQuery("invoice-prices-for-customer",
+                BenchmarkQuery.Engine.CYPHER), iterations);
         showResults(results, showAll);
         System.out.println();
-        System.out.println("Query with defined key with CALL, invoice prices for customerId 0");
-        String invoicePricesForCustomerCypher3 = "MATCH (inv:invoice) WHERE inv.customerId=0 " +
-                "CALL { " +
-                "   WITH inv " +
-                "   MATCH (c:customer)-[:PAYS]->(inv) " +
-                "   RETURN c " +
-                "}" +
-                "CALL { " +
-                "   WITH c, inv " +
-                "   MATCH (inv)-[:WORK_INVOICE]->(w:work) " +
-                "   RETURN w " +
-                "} " +
-                "CALL { " +
-                "   WITH w " +
-                "   MATCH (wt:worktype)-[h:WORKHOURS]->(w)-[u:USED_ITEM]->(i:item) " +
-                "   RETURN SUM((h.hours*h.discount*wt.price)+(u.amount*u.discount*i.purchaseprice)) as workPrice " +
-                "} " +
-                "RETURN c, inv, SUM(workPrice) as invoicePrice";
-        results = measureQueryTimeCypher(invoicePricesForCustomerCypher3, iterations);
+        System.out.println("Query with defined key with CALL, invoice prices for customer");
+        results = measureQueryTimeCypher(QueryCatalog.getQuery("invoice-prices-for-customer-call",
+                BenchmarkQuery.Engine.CYPHER), iterations);
         showResults(results, showAll);
 
         /*
@@ -283,65 +923,34 @@ public class QueryTester {
 
     public void executeQueryTestsCypher(int iterations, boolean showAll) {
         System.out.println("Short query1, work price");
-        String workPriceCypher = "MATCH (wt:worktype)-[h:WORKHOURS]->(w:work) WITH SUM(h.hours*h.discount*wt.price) as price, w RETURN w.workId as workId, price;";
-        results = measureQueryTimeCypher(workPriceCypher, iterations);
+        String workPriceCypher = QueryCatalog.WORK_PRICE_CYPHER;
+        results = measureQueryTimeCypher("work-price-short", workPriceCypher, iterations);
         showResults(results, showAll);
         System.out.println();
         System.out.println("Short query2, work price");
-        String workPriceCypher2 = "MATCH (w:work) " +
-                "CALL { " +
-                "    WITH w " +
-                "    MATCH (wt:worktype)-[h:WORKHOURS]->(w) " +
-                "    RETURN SUM((h.hours*h.discount*wt.price)) as price " +
-                "} " +
-                "RETURN w.workId as workId, price;";
-        results = measureQueryTimeCypher(workPriceCypher2, iterations);
+        String workPriceCypher2 = QueryCatalog.WORK_PRICE_CALL_CYPHER;
+        results = measureQueryTimeCypher("work-price-short-call", workPriceCypher2, iterations);
         showResults(results, showAll);
         System.out.println();
         System.out.println("Long query1, work price");
-        String workPriceWithItemsCypher = "MATCH (wt:worktype)-[h:WORKHOURS]->(w:work)-[u:USED_ITEM]->(i:item) WITH SUM((h.hours*h.discount*wt.price)+(u.amount*u.discount*i.purchaseprice)) as price, w RETURN w.workId as workId, price";
-        results = measureQueryTimeCypher(workPriceWithItemsCypher, iterations);
+        String workPriceWithItemsCypher = QueryCatalog.WORK_PRICE_WITH_ITEMS_CYPHER;
+        results = measureQueryTimeCypher("work-price-long", workPriceWithItemsCypher, iterations);
         showResults(results, showAll);
         System.out.println("Long query2, work price");
-        String workPriceWithItemsCypher2 = "MATCH (w:work) " +
-                "CALL { " +
-                "    WITH w " +
-                "    MATCH (wt:worktype)-[h:WORKHOURS]->(w)-[u:USED_ITEM]->(i:item) " +
-                "    RETURN SUM((h.hours*h.discount*wt.price)+(u.amount*u.discount*i.purchaseprice)) as price " +
-                "} " +
-                "RETURN w.workId as workId, price;";
-        results = measureQueryTimeCypher(workPriceWithItemsCypher2, iterations);
+        String workPriceWithItemsCypher2 = QueryCatalog.WORK_PRICE_WITH_ITEMS_CALL_CYPHER;
+        results = measureQueryTimeCypher("work-price-long-call", workPriceWithItemsCypher2, iterations);
         showResults(results, showAll);
         System.out.println();
         System.out.println("Query with defined key, work of invoice");
-        String workOfInvoiceCypher = "MATCH (i:invoice { invoiceId:0 })-[wi:WORK_INVOICE]->(w:work) RETURN *";
-        results = measureQueryTimeCypher(workOfInvoiceCypher, iterations);
+        results = measureQueryTimeCypher(QueryCatalog.getQuery("work-of-invoice", BenchmarkQuery.Engine.CYPHER),
+                iterations);
         showResults(results, showAll);
     }
 
     public void executeComplexQueryTestSQL(int iterations, boolean showAll) {
         System.out.println("Complex query, invoice price");
-        String invoicePriceSQL =
-                "SELECT q1.invoiceId, SUM(q2.price) AS invoicePrice " +
-                        "FROM ( " +
-                        "SELECT workinvoice.invoiceId, workinvoice.workId " +
-                        "FROM workinvoice " +
-                        "INNER JOIN invoice ON workinvoice.invoiceId = invoice.id " +
-                        ") AS q1 " +
-                        "INNER JOIN ( " +
-                        "SELECT workhours.workid AS workId, " +
-                        "SUM( " +
-                        "(worktype.price * workhours.hours * workhours.discount) + " +
-                        "(item.purchaseprice * useditem.amount * useditem.discount) " +
-                        ") AS price " +
-                        "FROM workhours " +
-                        "INNER JOIN worktype ON workhours.worktypeid = worktype.id " +
-                        "INNER JOIN useditem ON workhours.workid = useditem.workid " +
-                        "INNER JOIN item ON useditem.itemid = item.id " +
-                        "GROUP BY workhours.workid " +
-                        ") AS q2 USING (workId) " +
-                        "GROUP BY q1.invoiceId";
-        resultLists = measureQueryTimeSQL(invoicePriceSQL, iterations);
+        String invoicePriceSQL = QueryCatalog.INVOICE_PRICE_SQL;
+        resultLists = measureQueryTimeSQL("invoice-price", invoicePriceSQL, iterations);
         for (String databaseVersion : resultLists.keySet()) {
             if (databaseVersion.contains("MariaDB")) {
                 System.out.println("Results for MariaDB version " + databaseVersion);
@@ -357,29 +966,13 @@ public class QueryTester {
     public void executeComplexQueryTestCypher(int iterations, boolean showAll) {
         System.out.println("Complex query, invoice price");
         System.out.println();
-        String invoicePriceCypher = "MATCH (inv:invoice)-[:WORK_INVOICE]->(w:work) " +
-                "WITH inv, w " +
-                "OPTIONAL MATCH (wt:worktype)-[h:WORKHOURS]->(w:work)-[u:USED_ITEM]->(i:item) " +
-                "WITH inv, w, SUM((h.hours*h.discount*wt.price)+(u.amount*u.discount*i.purchaseprice)) as workPrice " +
-                "RETURN inv, SUM(workPrice) as invoicePrice";
-        results = measureQueryTimeCypher(invoicePriceCypher, iterations);
+        String invoicePriceCypher = QueryCatalog.INVOICE_PRICE_CYPHER;
+        results = measureQueryTimeCypher("invoice-price", invoicePriceCypher, iterations);
         showResults(results, showAll);
         System.out.println("Complex query with CALL, invoice price");
         System.out.println();
-        String invoicePriceCypher3 =
-                "MATCH (inv:invoice) " +
-                        "CALL { " +
-                        "WITH inv " +
-                        "MATCH (inv)-[:WORK_INVOICE]->(w:work) " +
-                        "RETURN w" +
-                        "} " +
-                        "CALL { " +
-                        "WITH w " +
-                        "MATCH (wt:worktype)-[h:WORKHOURS]->(w)-[u:USED_ITEM]->(i:item) " +
-                        "RETURN SUM((h.hours*h.discount*wt.price)+(u.amount*u.discount*i.purchaseprice)) as workPrice " +
-                        "} " +
-                        "RETURN inv, SUM(workPrice) as invoicePrice";
-        results = measureQueryTimeCypher(invoicePriceCypher3, iterations);
+        String invoicePriceCypher3 = QueryCatalog.INVOICE_PRICE_CALL_CYPHER;
+        results = measureQueryTimeCypher("invoice-price-call", invoicePriceCypher3, iterations);
         showResults(results, showAll);
     }
 
@@ -392,7 +985,7 @@ public class QueryTester {
                 "(SELECT @pv := '" + invoiceId + "') initialisation " +
                 "WHERE find_in_set(previousinvoice, @pv) " +
                 "AND length(@pv := concat(@pv, ',', id))";
-        resultLists = measureQueryTimeSQL(previousInvoicesSQL, iterations);
+        resultLists = measureQueryTimeSQL("previous-invoices-cyclic", previousInvoicesSQL, iterations);
         for (String databaseVersion : resultLists.keySet()) {
             if (databaseVersion.contains("MariaDB")) {
                 System.out.println("Results for MariaDB version " + databaseVersion);
@@ -405,35 +998,49 @@ public class QueryTester {
     }
 
     public void executeRecursiveQueryTestCypher(int iterations, boolean showAll, int invoiceId) {
+        executeRecursiveQueryTestCypher(iterations, showAll, invoiceId, 1);
+    }
+
+    /**
+     * Executes the recursive Cypher queries with start invoices drawn from the first chainLength invoices of the
+     * chain starting from invoiceId.
+     */
+    public void executeRecursiveQueryTestCypher(int iterations, boolean showAll, int invoiceId, int chainLength) {
+        KeySpace chainKeySpace = keySpace.withRange(QueryCatalog.INVOICE_ID, invoiceId, invoiceId + chainLength - 1);
+        if (resultExporter != null) {
+            resultExporter.setDatasetParameter("sequential_invoices", chainLength);
+        }
         System.out.println("Executing recursive query test");
         System.out.println("Recursive query Cypher, invoices related to invoice id " + invoiceId);
-        String previousInvoicesCypher = "MATCH (i:invoice { invoiceId:" + invoiceId + " })-[p:PREVIOUS_INVOICE *0..]->(j:invoice) RETURN *";
-        results = measureQueryTimeCypher(previousInvoicesCypher, iterations);
+        results = measureQueryTimeCypher(QueryCatalog.getRecursiveQuery("previous-invoices",
+                BenchmarkQuery.Engine.CYPHER), chainKeySpace, iterations);
         showResults(results, showAll);
         System.out.println();
         System.out.println("Recursive query Cypher optimized, invoices related to invoice id " + invoiceId);
-        String previousInvoicesCypherOptimized = "MATCH inv=(i:invoice { invoiceId:" + invoiceId + "})-[p:PREVIOUS_INVOICE *0..]->(j:invoice) WHERE NOT (j)-[:PREVIOUS_INVOICE]->() RETURN nodes(inv)";
-        results = measureQueryTimeCypher(previousInvoicesCypherOptimized, iterations);
+        results = measureQueryTimeCypher(QueryCatalog.getRecursiveQuery("previous-invoices-optimized",
+                BenchmarkQuery.Engine.CYPHER), chainKeySpace, iterations);
         showResults(results, showAll);
     }
 
     public void executeRecursiveQueryTestSQL(int iterations, boolean showAll, int invoiceId) {
+        executeRecursiveQueryTestSQL(iterations, showAll, invoiceId, 1);
+    }
+
+    /**
+     * Executes the recursive SQL query with start invoices drawn from the first chainLength invoices of the chain
+     * starting from invoiceId.
+     */
+    public void executeRecursiveQueryTestSQL(int iterations, boolean showAll, int invoiceId, int chainLength) {
+        KeySpace chainKeySpace = keySpace.withRange(QueryCatalog.INVOICE_ID, invoiceId, invoiceId + chainLength - 1);
+        if (resultExporter != null) {
+            resultExporter.setDatasetParameter("sequential_invoices", chainLength);
+        }
         System.out.println("Executing recursive query test for optimized queries");
         System.out.println("Recursive query SQL with Common Table Expressions, invoices related to invoice id " + invoiceId);
-        String previousInvoicesCTESQL = "WITH RECURSIVE previous_invoices AS (" +
-                "SELECT id, customerId, state, duedate, previousinvoice " +
-                "FROM invoice " +
-                "WHERE id=" + invoiceId + " " +
-                "UNION ALL " +
-                "SELECT i.id, i.customerId, i.state, i.duedate, i.previousinvoice " +
-                "FROM invoice AS i INNER JOIN previous_invoices AS j " +
-                "ON i.previousinvoice = j.id " +
-                "WHERE i.previousinvoice <> i.id" +
-                ") " +
-                "SELECT * FROM previous_invoices";
         HashMap<String, String[]> tempSql_databases = (HashMap<String, String[]>) this.sql_databases.clone();
         this.sql_databases.remove("jdbc:mysql://127.0.0.1:3307/");
-        resultLists = measureQueryTimeSQL(previousInvoicesCTESQL, iterations);
+        resultLists = measureQueryTimeSQL(QueryCatalog.getRecursiveQuery("previous-invoices",
+                BenchmarkQuery.Engine.SQL), chainKeySpace, iterations);
         for (String databaseVersion : resultLists.keySet()) {
             if (databaseVersion.contains("MariaDB")) {
                 System.out.println("Results for MariaDB version " + databaseVersion);
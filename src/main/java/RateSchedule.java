@@ -0,0 +1,106 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Target request rate of an open-loop load test as a function of the time elapsed since the start of the test.
+ */
+public class RateSchedule {
+
+    public enum Shape {
+        CONSTANT,
+        STEP,
+        LINEAR
+    }
+
+    private final Shape shape;
+    private final double startRate; // Requests per second at the start of the test
+    private final double endRate; // Rate reached at the end of the ramp, unused for steps
+    private final double stepIncrement; // Rate added at the start of every step
+    private final long stepOrRampNanos; // Length of one step or of the whole linear ramp
+
+    private RateSchedule(Shape shape, double startRate, double endRate, double stepIncrement, long stepOrRampNanos) {
+        // A rate that drops to 0 stops the requests for the rest of the test
+        if (startRate <= 0 || (shape == Shape.LINEAR && endRate <= 0)) {
+            throw new IllegalArgumentException("Rate schedule reaches a rate of 0 or less");
+        }
+        this.shape = shape;
+        this.startRate = startRate;
+        this.endRate = endRate;
+        this.stepIncrement = stepIncrement;
+        this.stepOrRampNanos = stepOrRampNanos;
+    }
+
+    public static RateSchedule constant(double rate) {
+        return new RateSchedule(Shape.CONSTANT, rate, rate, 0, 0);
+    }
+
+    /**
+     * Rate starts at startRate and grows by increment after every step.
+     */
+    public static RateSchedule step(double startRate, double increment, long stepMillis) {
+        return new RateSchedule(Shape.STEP, startRate, 0, increment, TimeUnit.MILLISECONDS.toNanos(stepMillis));
+    }
+
+    /**
+     * Rate grows linearly from startRate to endRate over the ramp, then stays at endRate.
+     */
+    public static RateSchedule linear(double startRate, double endRate, long rampMillis) {
+        return new RateSchedule(Shape.LINEAR, startRate, endRate, 0, TimeUnit.MILLISECONDS.toNanos(rampMillis));
+    }
+
+    /**
+     * Parse a schedule like "200" (constant), "step:10:10:30" (start rate, increment, step seconds) or
+     * "linear:10:500" (start rate, end rate).
+     * @param definition schedule definition
+     * @param durationMillis duration of the test, a linear ramp spans the whole test
+     */
+    public static RateSchedule parse(String definition, long durationMillis) {
+        String[] parts = definition.split(":");
+        if (parts[0].equalsIgnoreCase("step") && parts.length == 4) {
+            RateSchedule schedule = step(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]),
+                    Long.parseLong(parts[3]) * 1000);
+            // Steps only change the rate in one direction, the last step of the test has the lowest or highest
+            if (schedule.rateAt(TimeUnit.MILLISECONDS.toNanos(durationMillis) - 1) <= 0) {
+                throw new IllegalArgumentException("Rate schedule " + definition + " reaches a rate of 0 or less " +
+                        "within " + durationMillis + " ms");
+            }
+            return schedule;
+        } else if (parts[0].equalsIgnoreCase("linear") && parts.length == 3) {
+            return linear(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]), durationMillis);
+        } else if (parts.length == 1) {
+            return constant(Double.parseDouble(parts[0]));
+        }
+        throw new IllegalArgumentException("Invalid rate schedule: " + definition);
+    }
+
+    /**
+     * Get target rate in requests per second.
+     * @param elapsedNanos time elapsed since the start of the test
+     */
+    public double rateAt(long elapsedNanos) {
+        switch (shape) {
+            case STEP:
+                return startRate + stepIncrement * (elapsedNanos / stepOrRampNanos);
+            case LINEAR:
+                if (elapsedNanos >= stepOrRampNanos) {
+                    return endRate;
+                }
+                return startRate + (endRate - startRate) * ((double) elapsedNanos / stepOrRampNanos);
+            default:
+                return startRate;
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (shape) {
+            case STEP:
+                return String.format("%.1f/s + %.1f/s every %d s", startRate, stepIncrement,
+                        TimeUnit.NANOSECONDS.toSeconds(stepOrRampNanos));
+            case LINEAR:
+                return String.format("%.1f/s to %.1f/s over %d s", startRate, endRate,
+                        TimeUnit.NANOSECONDS.toSeconds(stepOrRampNanos));
+            default:
+                return String.format("%.1f/s", startRate);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a candidate run against a baseline run, both exported by {@link ResultExporter}, and flags the queries
+ * that got slower, e.g. after a PostgreSQL or Neo4j upgrade or a configuration change.
+ *
+ * Measurements are matched by engine, query id, index state and sequential invoice chain length; the server version
+ * is deliberately not part of the match. The latency samples of both runs are compared with the one-sided
+ * Mann-Whitney U test, which makes no assumption about the shape of the latency distribution. A query regresses if
+ * the candidate is significantly slower and its median latency grew by more than the threshold. The significance
+ * level is divided by the number of compared queries (Bonferroni), so that a run with many queries does not flag
+ * regressions by chance.
+ *
+ * The effect size is the probability of superiority, the probability that a random candidate sample is slower than
+ * a random baseline sample: 0.5 means no difference, 1 means every candidate sample is slower.
+ */
+public class RegressionGate {
+
+    public static final double DEFAULT_THRESHOLD = 0.10; // Relative growth of the median latency
+    public static final double DEFAULT_ALPHA = 0.01; // Significance level over all compared queries
+
+    /**
+     * Result of one compared query.
+     */
+    public static class Comparison {
+        private final String key;
+        private final long[] baseline;
+        private final long[] candidate;
+        private final double medianChange; // Relative change of the median, 0.1 is 10 % slower
+        private final double probabilityOfSuperiority;
+        private final double pValue;
+        private boolean regression;
+
+        Comparison(String key, long[] baseline, long[] candidate) {
+            this.key = key;
+            this.baseline = baseline;
+            this.candidate = candidate;
+            double baselineMedian = median(baseline);
+            this.medianChange = (baselineMedian == 0) ? 0 : (median(candidate) - baselineMedian) / baselineMedian;
+            double u = mannWhitneyU(candidate, baseline);
+            this.probabilityOfSuperiority = u / ((double) candidate.length * baseline.length);
+            this.pValue = pValueGreater(candidate, baseline, u);
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public double getMedianChange() {
+            return medianChange;
+        }
+
+        public double getProbabilityOfSuperiority() {
+            return probabilityOfSuperiority;
+        }
+
+        public double getPValue() {
+            return pValue;
+        }
+
+        public boolean isRegression() {
+            return regression;
+        }
+    }
+
+    private final double threshold;
+    private final double alpha;
+    private final List<Comparison> comparisons = new ArrayList<Comparison>();
+    private final List<String> missing = new ArrayList<String>(); // Keys in only one of the runs
+
+    /**
+     * @param threshold relative growth of the median latency a significant slowdown must exceed, e.g. 0.1
+     * @param alpha significance level over all compared queries, e.g. 0.01
+     */
+    public RegressionGate(double threshold, double alpha) {
+        this.threshold = threshold;
+        this.alpha = alpha;
+    }
+
+    /**
+     * Compare the measurements of the candidate run with those of the baseline run.
+     * @param baselinePath JSON lines file of the baseline run
+     * @param candidatePath JSON lines file of the candidate run
+     */
+    public void compare(String baselinePath, String candidatePath) throws IOException {
+        compare(loadSamples(baselinePath), loadSamples(candidatePath));
+    }
+
+    /**
+     * Compare the measurements of two runs, keyed as returned by {@link #loadSamples(String)}.
+     */
+    public void compare(Map<String, long[]> baseline, Map<String, long[]> candidate) {
+        comparisons.clear();
+        missing.clear();
+        for (String key : baseline.keySet()) {
+            if (!candidate.containsKey(key)) {
+                missing.add(key + " (not in candidate)");
+            } else if (baseline.get(key).length > 0 && candidate.get(key).length > 0) {
+                comparisons.add(new Comparison(key, baseline.get(key), candidate.get(key)));
+            }
+        }
+        for (String key : candidate.keySet()) {
+            if (!baseline.containsKey(key)) {
+                missing.add(key + " (not in baseline)");
+            }
+        }
+        double correctedAlpha = alpha / Math.max(1, comparisons.size());
+        for (Comparison comparison : comparisons) {
+            comparison.regression = comparison.pValue < correctedAlpha && comparison.medianChange > threshold;
+        }
+    }
+
+    public List<Comparison> getComparisons() {
+        return comparisons;
+    }
+
+    public boolean hasRegressions() {
+        for (Comparison comparison : comparisons) {
+            if (comparison.regression) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Print one row per compared query and the queries found in only one of the runs.
+     */
+    public void printReport(PrintStream out) {
+        out.println(String.format("Regression gate: median slower by more than %.1f %% at significance %.4f " +
+                "(%.6f per query)", threshold * 100, alpha, alpha / Math.max(1, comparisons.size())));
+        out.println("query, baseline n, candidate n, baseline median (ms), candidate median (ms), change (%), " +
+                "P(candidate slower), p-value, verdict");
+        for (Comparison comparison : comparisons) {
+            String verdict = comparison.regression ? "REGRESSION" : "ok";
+            out.println(String.format("%s, %d, %d, %.3f, %.3f, %+.1f, %.3f, %.6f, %s", comparison.key,
+                    comparison.baseline.length, comparison.candidate.length, median(comparison.baseline) / 1000.0,
+                    median(comparison.candidate) / 1000.0, comparison.medianChange * 100,
+                    comparison.probabilityOfSuperiority, comparison.pValue, verdict));
+        }
+        for (String key : missing) {
+            out.println("Not compared: " + key);
+        }
+        out.println(hasRegressions() ? "Regressions found." : "No regressions found.");
+    }
+
+    /**
+     * Read the latency samples of a run, keyed by "ENGINE query-id, INDEX STATE", the cache state if it was controlled
+     * and the sequential invoice chain length if the query ran with one. Samples of the same key measured several
+     * times in the run are pooled.
+     */
+    public static Map<String, long[]> loadSamples(String path) throws IOException {
+        LinkedHashMap<String, List<Long>> pooled = new LinkedHashMap<String, List<Long>>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path),
+                StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                JSONObject record = new JSONObject(line);
+                StringBuilder key = new StringBuilder().append(record.getString("engine")).append(' ')
+                        .append(record.getString("query_id")).append(", ").append(record.getString("index_state"));
+                String cacheState = record.optString("cache_state", "as_is");
+                if (!cacheState.equals("as_is")) {
+                    key.append(", ").append(cacheState).append(" caches");
+                }
+                JSONObject dataset = record.optJSONObject("dataset");
+                if (dataset != null && dataset.optInt("sequential_invoices", 0) > 0) {
+                    key.append(", chain ").append(dataset.getInt("sequential_invoices"));
+                }
+                List<Long> samples = pooled.get(key.toString());
+                if (samples == null) {
+                    samples = new ArrayList<Long>();
+                    pooled.put(key.toString(), samples);
+                }
+                JSONArray recordSamples = record.getJSONArray("samples_us");
+                for (int i = 0; i < recordSamples.length(); i++) {
+                    samples.add(recordSamples.getLong(i));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        LinkedHashMap<String, long[]> samplesByKey = new LinkedHashMap<String, long[]>();
+        for (Map.Entry<String, List<Long>> entry : pooled.entrySet()) {
+            long[] samples = new long[entry.getValue().size()];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = entry.getValue().get(i);
+            }
+            samplesByKey.put(entry.getKey(), samples);
+        }
+        return samplesByKey;
+    }
+
+    private static double median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return (sorted.length % 2 == 1) ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2.0;
+    }
+
+    /**
+     * Get the U statistic of x, the number of pairs in which the sample of x is greater than the sample of y, ties
+     * counted as one half.
+     */
+    static double mannWhitneyU(long[] x, long[] y) {
+        double[] ranks = ranks(x, y);
+        double rankSum = 0;
+        for (int i = 0; i < x.length; i++) {
+            rankSum += ranks[i];
+        }
+        return rankSum - x.length * (x.length + 1) / 2.0;
+    }
+
+    /**
+     * Get the p-value of the hypothesis that x tends to be greater than y, from the normal approximation of U with
+     * tie and continuity correction.
+     */
+    static double pValueGreater(long[] x, long[] y, double u) {
+        double n1 = x.length;
+        double n2 = y.length;
+        double n = n1 + n2;
+        // Tie correction of the variance: sum of t^3 - t over groups of t tied samples
+        long[] all = new long[x.length + y.length];
+        System.arraycopy(x, 0, all, 0, x.length);
+        System.arraycopy(y, 0, all, x.length, y.length);
+        Arrays.sort(all);
+        double tieSum = 0;
+        int i = 0;
+        while (i < all.length) {
+            int j = i;
+            while (j + 1 < all.length && all[j + 1] == all[i]) {
+                j++;
+            }
+            double t = j - i + 1;
+            tieSum += t * t * t - t;
+            i = j + 1;
+        }
+        double variance = n1 * n2 / 12.0 * ((n + 1) - tieSum / (n * (n - 1)));
+        if (variance <= 0) {
+            return 1; // Every sample is the same
+        }
+        double z = (u - n1 * n2 / 2.0 - 0.5) / Math.sqrt(variance);
+        return 0.5 * erfc(z / Math.sqrt(2));
+    }
+
+    /**
+     * Get the ranks of the samples of x followed by those of y in the combined sample, ties getting their average
+     * rank.
+     */
+    private static double[] ranks(long[] x, long[] y) {
+        int n = x.length + y.length;
+        long[] values = new long[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = (i < x.length) ? x[i] : y[i - x.length];
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(values[a], values[b]));
+        double[] ranks = new double[n];
+        int i = 0;
+        while (i < n) {
+            int j = i;
+            while (j + 1 < n && values[order[j + 1]] == values[order[i]]) {
+                j++;
+            }
+            double rank = (i + j) / 2.0 + 1;
+            for (int k = i; k <= j; k++) {
+                ranks[order[k]] = rank;
+            }
+            i = j + 1;
+        }
+        return ranks;
+    }
+
+    /**
+     * Complementary error function with a fractional error below 1.2e-7, from Numerical Recipes.
+     */
+    private static double erfc(double x) {
+        double z = Math.abs(x);
+        double t = 1 / (1 + 0.5 * z);
+        double result = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418 +
+                t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587 +
+                t * (-0.82215223 + t * 0.17087277)))))))));
+        return (x >= 0) ? result : 2 - result;
+    }
+}
@@ -0,0 +1,338 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Writes every query measurement as one JSON line and one CSV row, so that runs can be loaded into analysis tools
+ * instead of being scraped from the console output. Every record carries the raw latency samples, their
+ * percentiles and the metadata of the run: dataset scale, key distribution, JVM, host and git revision.
+ *
+ * Records are flushed as they are written, a run that fails halfway keeps the measurements taken so far.
+ */
+public class ResultExporter {
+
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+    private static final String[] CSV_COLUMNS = {"run_id", "timestamp", "git_revision", "query_id", "engine",
+            "server_version", "index_state", "cache_state", "dataset", "key_distribution", "iterations", "warmup_iterations",
+            "consume_full_result", "row_count", "min_us", "mean_us", "stddev_us", "p50_us", "p90_us", "p95_us",
+            "p99_us", "p99_9_us", "max_us", "samples_us", "client_cpu_ns", "client_thread_cpu_ns",
+            "client_allocated_bytes", "client_thread_allocated_bytes", "client_gc_count", "client_gc_time_ms",
+            "client_peak_heap_bytes", "server_stats", "java_version", "jvm", "max_heap_bytes", "gc", "host", "os", "cpus"};
+
+    private final String runId;
+    private final File jsonFile;
+    private final File csvFile;
+    private final PrintWriter json;
+    private final PrintWriter csv;
+    private final String gitRevision;
+    private final LinkedHashMap<String, Object> dataset = new LinkedHashMap<String, Object>();
+    private CacheState cacheState = CacheState.AS_IS;
+    private final JSONObject jvm;
+    private final JSONObject host;
+
+    /**
+     * Create the result files results-RUN_ID.jsonl and results-RUN_ID.csv in the directory.
+     * @param directory directory of the result files, created if it does not exist
+     */
+    public ResultExporter(String directory) throws IOException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd-HHmmss");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        this.runId = format.format(new Date());
+        File dir = new File(directory);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create result directory: " + directory);
+        }
+        this.jsonFile = new File(dir, "results-" + runId + ".jsonl");
+        this.csvFile = new File(dir, "results-" + runId + ".csv");
+        this.json = new PrintWriter(new OutputStreamWriter(new FileOutputStream(jsonFile), StandardCharsets.UTF_8));
+        this.csv = new PrintWriter(new OutputStreamWriter(new FileOutputStream(csvFile), StandardCharsets.UTF_8));
+        csv.println(String.join(",", CSV_COLUMNS));
+        csv.flush();
+        this.gitRevision = detectGitRevision();
+        this.jvm = describeJvm();
+        this.host = describeHost();
+    }
+
+    /**
+     * Set a parameter of the dataset scale, e.g. the number of generated invoices, written with every record.
+     */
+    public void setDatasetParameter(String name, Object value) {
+        dataset.put(name, value);
+    }
+
+    /**
+     * Set the cache state the following measurements are taken in.
+     */
+    public void setCacheState(CacheState cacheState) {
+        this.cacheState = cacheState;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    /**
+     * Write the measurement of one query in one DBMS.
+     * @param queryId name of the query
+     * @param engine query language, "SQL" or "CYPHER"
+     * @param serverVersion name and version of the DBMS
+     * @param indexState phase of the benchmark, e.g. "NO INDEXES"
+     * @param keyDistribution key space the keys of a parameterized query were drawn from, null if it takes none
+     * @param warmupIterations iterations run before the measured ones
+     * @param consumeFullResult true if every row was read inside the timed section
+     * @param rowCount rows returned by the last iteration
+     * @param samples latencies of the measured iterations in microseconds
+     * @param clientResources resources the benchmark JVM used during the measured iterations, null if not measured
+     * @param serverStatistics deltas of the server counters over the measured iterations, null if not sampled
+     */
+    public synchronized void record(String queryId, String engine, String serverVersion, String indexState,
+                                    String keyDistribution, int warmupIterations, boolean consumeFullResult,
+                                    long rowCount, List<Long> samples, ClientResourceUsage clientResources,
+                                    Map<String, Long> serverStatistics) {
+        List<Long> sorted = new ArrayList<Long>(samples);
+        Collections.sort(sorted);
+        double mean = 0;
+        for (long sample : sorted) {
+            mean += sample;
+        }
+        mean = sorted.isEmpty() ? 0 : mean / sorted.size();
+        double stddev = sorted.isEmpty() ? 0 : QueryTester.calculateStandardDeviation(sorted);
+        String timestamp = isoTimestamp(new Date());
+
+        JSONObject record = new JSONObject();
+        record.put("run_id", runId);
+        record.put("timestamp", timestamp);
+        record.put("git_revision", gitRevision);
+        record.put("query_id", queryId);
+        record.put("engine", engine);
+        record.put("server_version", serverVersion);
+        record.put("index_state", indexState);
+        record.put("cache_state", cacheState.name().toLowerCase());
+        record.put("dataset", new JSONObject(dataset));
+        record.put("key_distribution", (keyDistribution == null) ? JSONObject.NULL : keyDistribution);
+        record.put("iterations", samples.size());
+        record.put("warmup_iterations", warmupIterations);
+        record.put("consume_full_result", consumeFullResult);
+        record.put("row_count", rowCount);
+        record.put("min_us", sorted.isEmpty() ? 0 : sorted.get(0));
+        record.put("mean_us", mean);
+        record.put("stddev_us", stddev);
+        JSONObject percentiles = new JSONObject();
+        for (double percentile : PERCENTILES) {
+            percentiles.put(percentileName(percentile), percentile(sorted, percentile));
+        }
+        record.put("percentiles_us", percentiles);
+        record.put("max_us", sorted.isEmpty() ? 0 : sorted.get(sorted.size() - 1));
+        record.put("samples_us", new JSONArray(samples));
+        if (clientResources != null) {
+            JSONObject client = new JSONObject();
+            client.put("cpu_ns", clientResources.getJvmCpuNanos());
+            client.put("thread_cpu_ns", clientResources.getThreadCpuNanos());
+            client.put("allocated_bytes", clientResources.getJvmAllocatedBytes());
+            client.put("thread_allocated_bytes", clientResources.getThreadAllocatedBytes());
+            client.put("gc_count", clientResources.getGcCount());
+            client.put("gc_time_ms", clientResources.getGcTimeMillis());
+            client.put("peak_heap_bytes", clientResources.getPeakHeapBytes());
+            record.put("client", client);
+        }
+        if (serverStatistics != null) {
+            record.put("server", new JSONObject(serverStatistics));
+        }
+        record.put("jvm", jvm);
+        record.put("host", host);
+        json.println(record.toString());
+        json.flush();
+
+        List<String> row = new ArrayList<String>();
+        row.add(runId);
+        row.add(timestamp);
+        row.add(gitRevision);
+        row.add(queryId);
+        row.add(engine);
+        row.add(serverVersion);
+        row.add(indexState);
+        row.add(cacheState.name().toLowerCase());
+        StringBuilder datasetColumn = new StringBuilder();
+        for (Map.Entry<String, Object> parameter : dataset.entrySet()) {
+            if (datasetColumn.length() > 0) {
+                datasetColumn.append(';');
+            }
+            datasetColumn.append(parameter.getKey()).append('=').append(parameter.getValue());
+        }
+        row.add(datasetColumn.toString());
+        row.add((keyDistribution == null) ? "" : keyDistribution);
+        row.add(Integer.toString(samples.size()));
+        row.add(Integer.toString(warmupIterations));
+        row.add(Boolean.toString(consumeFullResult));
+        row.add(Long.toString(rowCount));
+        row.add(sorted.isEmpty() ? "0" : Long.toString(sorted.get(0)));
+        row.add(String.format(Locale.ROOT, "%.1f", mean));
+        row.add(String.format(Locale.ROOT, "%.1f", stddev));
+        for (double percentile : PERCENTILES) {
+            row.add(Long.toString(percentile(sorted, percentile)));
+        }
+        row.add(sorted.isEmpty() ? "0" : Long.toString(sorted.get(sorted.size() - 1)));
+        StringBuilder samplesColumn = new StringBuilder();
+        for (long sample : samples) {
+            if (samplesColumn.length() > 0) {
+                samplesColumn.append(' ');
+            }
+            samplesColumn.append(sample);
+        }
+        row.add(samplesColumn.toString());
+        if (clientResources != null) {
+            row.add(Long.toString(clientResources.getJvmCpuNanos()));
+            row.add(Long.toString(clientResources.getThreadCpuNanos()));
+            row.add(Long.toString(clientResources.getJvmAllocatedBytes()));
+            row.add(Long.toString(clientResources.getThreadAllocatedBytes()));
+            row.add(Long.toString(clientResources.getGcCount()));
+            row.add(Long.toString(clientResources.getGcTimeMillis()));
+            row.add(Long.toString(clientResources.getPeakHeapBytes()));
+        } else {
+            for (int i = 0; i < 7; i++) {
+                row.add("");
+            }
+        }
+        StringBuilder serverColumn = new StringBuilder();
+        if (serverStatistics != null) {
+            for (Map.Entry<String, Long> counter : serverStatistics.entrySet()) {
+                if (serverColumn.length() > 0) {
+                    serverColumn.append(';');
+                }
+                serverColumn.append(counter.getKey()).append('=').append(counter.getValue());
+            }
+        }
+        row.add(serverColumn.toString());
+        row.add(jvm.getString("java_version"));
+        row.add(jvm.getString("vm_name") + " " + jvm.getString("vm_version"));
+        row.add(Long.toString(jvm.getLong("max_heap_bytes")));
+        row.add(jvm.getString("gc"));
+        row.add(host.getString("hostname"));
+        row.add(host.getString("os_name") + " " + host.getString("os_version") + " " + host.getString("os_arch"));
+        row.add(Integer.toString(host.getInt("available_processors")));
+        StringBuilder line = new StringBuilder();
+        for (String column : row) {
+            if (line.length() > 0) {
+                line.append(',');
+            }
+            line.append(csvField(column));
+        }
+        csv.println(line);
+        csv.flush();
+    }
+
+    /**
+     * Close the result files and print where they are.
+     */
+    public void close() {
+        json.close();
+        csv.close();
+        System.out.println("Results written to " + jsonFile.getPath() + " and " + csvFile.getPath());
+    }
+
+    /**
+     * Get the latency at the percentile with the nearest-rank method.
+     */
+    private static long percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.size());
+        return sorted.get(Math.max(0, Math.min(rank, sorted.size()) - 1));
+    }
+
+    private static String percentileName(double percentile) {
+        String name = (percentile == Math.floor(percentile)) ? Long.toString((long) percentile) :
+                Double.toString(percentile).replace('.', '_');
+        return "p" + name;
+    }
+
+    private static String csvField(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static String isoTimestamp(Date date) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(date);
+    }
+
+    /**
+     * Get the git revision from the GIT_REVISION environment variable, which the Makefile sets for the container,
+     * or from git in the working directory.
+     */
+    private static String detectGitRevision() {
+        String revision = System.getenv("GIT_REVISION");
+        if (revision != null && !revision.trim().isEmpty()) {
+            return revision.trim();
+        }
+        try {
+            Process process = new ProcessBuilder("git", "rev-parse", "HEAD").redirectErrorStream(true).start();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                    StandardCharsets.UTF_8));
+            String line = reader.readLine();
+            reader.close();
+            if (process.waitFor() == 0 && line != null) {
+                return line.trim();
+            }
+        } catch (Exception e) {
+            // No git in the container, the revision stays unknown
+        }
+        return "unknown";
+    }
+
+    private static JSONObject describeJvm() {
+        JSONObject jvm = new JSONObject();
+        jvm.put("java_version", System.getProperty("java.version"));
+        jvm.put("vm_name", System.getProperty("java.vm.name"));
+        jvm.put("vm_version", System.getProperty("java.vm.version"));
+        jvm.put("max_heap_bytes", Runtime.getRuntime().maxMemory());
+        List<String> collectors = new ArrayList<String>();
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collectors.add(gcBean.getName());
+        }
+        jvm.put("gc", String.join("+", collectors));
+        jvm.put("input_arguments", new JSONArray(ManagementFactory.getRuntimeMXBean().getInputArguments()));
+        return jvm;
+    }
+
+    private static JSONObject describeHost() {
+        JSONObject host = new JSONObject();
+        String hostname = "unknown";
+        try {
+            hostname = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        host.put("hostname", hostname);
+        host.put("os_name", System.getProperty("os.name"));
+        host.put("os_version", System.getProperty("os.version"));
+        host.put("os_arch", System.getProperty("os.arch"));
+        host.put("available_processors", Runtime.getRuntime().availableProcessors());
+        return host;
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * TPC style scale factor of the generated dataset. Every entity count grows linearly with the scale factor while the
+ * fan-outs (invoices, targets and works per customer, work types and items per work) and the batch size stay the
+ * same, so two scale factors differ only in the size of the data. Scale factor 1 is 1000 customers with 10 invoices
+ * each, 1000 works and 10000 items and work types; scale factor 10 is the dataset of a default run.
+ *
+ * The insertion threads are derived from the counts: one thread per 1000 rows, at most 10, and always a divisor of
+ * the count so that every thread inserts the same number of rows and the totals are exact.
+ *
+ * {@link #DEBUG} is the small dataset of debug mode. It has the customers and works of scale factor 0.02 but keeps
+ * the 20 items and 2 insertion threads debug mode always had, so debug runs stay comparable with earlier ones.
+ */
+public class ScaleFactor implements Comparable<ScaleFactor> {
+
+    // Entities at scale factor 1
+    public static final int CUSTOMERS = 1000;
+    public static final int WORKS = 1000;
+    public static final int ITEMS = 10000;
+    public static final int WORK_TYPES = 10000;
+
+    // Fan-outs, independent of the scale factor
+    public static final int INVOICE_FACTOR = 10; // Invoices per customer
+    public static final int TARGET_FACTOR = 10; // Targets per customer
+    public static final int WORK_FACTOR = 10; // Works per customer
+    public static final int WORK_TYPE_FACTOR = 10; // Work types per work
+    public static final int ITEM_FACTOR = 10; // Items per work
+    public static final int BATCH_SIZE = 10; // Statements in a SQL batch insert
+
+    private static final int ROWS_PER_THREAD = 1000;
+    private static final int MAX_THREADS = 10;
+
+    public static final ScaleFactor DEFAULT = new ScaleFactor(10);
+    public static final ScaleFactor DEBUG = new ScaleFactor(0.02, 20, 2);
+
+    private final double value;
+    private final int itemCount; // -1 if the items grow with the scale factor
+    private final int threads; // 0 if the insertion threads are derived from the counts
+
+    public ScaleFactor(double value) {
+        this(value, -1, 0);
+    }
+
+    private ScaleFactor(double value, int itemCount, int threads) {
+        this.value = value;
+        this.itemCount = itemCount;
+        this.threads = threads;
+        if (getCustomerCount() < 1 || getWorkCount() < 1) {
+            throw new IllegalArgumentException("Scale factor " + value + " generates no customers or works, " +
+                    "the smallest scale factor is " + (1.0 / Math.min(CUSTOMERS, WORKS)));
+        }
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public int getCustomerCount() {
+        return scale(CUSTOMERS);
+    }
+
+    public int getInvoiceCount() {
+        return getCustomerCount() * INVOICE_FACTOR;
+    }
+
+    public int getWorkCount() {
+        return scale(WORKS);
+    }
+
+    public int getItemCount() {
+        return (itemCount >= 0) ? itemCount : scale(ITEMS);
+    }
+
+    public int getWorkTypeCount() {
+        return scale(WORK_TYPES);
+    }
+
+    private int scale(int count) {
+        return (int) Math.round(count * value);
+    }
+
+    /**
+     * Generate the dataset of this scale factor into empty databases.
+     */
+    public void generate(DataGenerator dataGenerator) {
+        grow(dataGenerator, null);
+    }
+
+    /**
+     * Insert the rows this scale factor has more than a smaller one whose dataset was generated before, so that a
+     * sweep over ascending scale factors does not generate the data again.
+     * @param from scale factor of the data in the databases, null if they are empty
+     */
+    public void grow(DataGenerator dataGenerator, ScaleFactor from) {
+        int items = getItemCount() - ((from == null) ? 0 : from.getItemCount());
+        int workTypes = getWorkTypeCount() - ((from == null) ? 0 : from.getWorkTypeCount());
+        int works = getWorkCount() - ((from == null) ? 0 : from.getWorkCount());
+        int customers = getCustomerCount() - ((from == null) ? 0 : from.getCustomerCount());
+        if (items > 0 && workTypes > 0) {
+            int threads = insertionThreads(gcd(items, workTypes));
+            dataGenerator.insertItemsAndWorkTypes(threads, BATCH_SIZE, items / threads, workTypes / threads);
+        }
+        if (works > 0) {
+            int threads = insertionThreads(works);
+            dataGenerator.insertWorkData(threads, works / threads, BATCH_SIZE, WORK_TYPE_FACTOR, ITEM_FACTOR);
+        }
+        if (customers > 0) {
+            int threads = insertionThreads(customers);
+            dataGenerator.insertCustomerData(threads, customers / threads, BATCH_SIZE, INVOICE_FACTOR, 0,
+                    TARGET_FACTOR, WORK_FACTOR);
+        }
+    }
+
+    private int insertionThreads(int count) {
+        return (threads > 0 && count % threads == 0) ? threads : threadsFor(count);
+    }
+
+    /**
+     * @return number of threads inserting the rows, a divisor of the count
+     */
+    static int threadsFor(int count) {
+        int threads = Math.min(MAX_THREADS, Math.max(1, (count + ROWS_PER_THREAD - 1) / ROWS_PER_THREAD));
+        while (count % threads != 0) {
+            threads--;
+        }
+        return threads;
+    }
+
+    private static int gcd(int a, int b) {
+        return (b == 0) ? a : gcd(b, a % b);
+    }
+
+    /**
+     * Parse a comma separated list of distinct scale factors like "1,10,100", sorted ascending.
+     */
+    public static ScaleFactor[] parseList(String list) {
+        String[] values = list.split(",");
+        ScaleFactor[] scaleFactors = new ScaleFactor[values.length];
+        for (int i = 0; i < values.length; i++) {
+            scaleFactors[i] = new ScaleFactor(Double.parseDouble(values[i].trim()));
+        }
+        java.util.Arrays.sort(scaleFactors);
+        for (int i = 1; i < scaleFactors.length; i++) {
+            // The growth between two equal scale factors is undefined
+            if (scaleFactors[i].compareTo(scaleFactors[i - 1]) == 0) {
+                throw new IllegalArgumentException("Scale factor " + scaleFactors[i].getValue() +
+                        " is listed twice in " + list);
+            }
+        }
+        return scaleFactors;
+    }
+
+    @Override
+    public int compareTo(ScaleFactor other) {
+        return Double.compare(value, other.value);
+    }
+
+    @Override
+    public String toString() {
+        return "SF " + ((value == Math.rint(value)) ? Long.toString((long) value) : Double.toString(value)) +
+                ((this == DEBUG) ? " (debug)" : "");
+    }
+}
@@ -0,0 +1,160 @@
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Session;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how the latency of every query grows with the size of the data. The queries are run at every scale
+ * factor of the sweep, and the report shows per query, engine and index state the latency curve over the scale
+ * factors with the scaling exponent between two neighbouring ones: log(latency ratio) / log(scale factor ratio).
+ * 0 means the latency does not depend on the data size, 1 that it grows linearly with it. The first scale factor at
+ * which a query grows faster than linearly is where the scaling of its engine breaks down.
+ */
+public class ScaleSweep {
+
+    private static final long KEY_SEED = 0; // Every scale factor gets the same sequence of keys
+    private static final double SUPERLINEAR_EXPONENT = 1.2; // Exponent above which the growth counts as superlinear
+
+    /**
+     * Latencies of one query at one scale factor.
+     */
+    private static class Row {
+        final String label;
+        final BenchmarkQuery query;
+        final ScaleFactor scaleFactor;
+        final LatencyHistogram histogram; // Microseconds
+
+        Row(String label, BenchmarkQuery query, ScaleFactor scaleFactor, LatencyHistogram histogram) {
+            this.label = label;
+            this.query = query;
+            this.scaleFactor = scaleFactor;
+            this.histogram = histogram;
+        }
+    }
+
+    private final String db_url; // SQL connection URL of the DBMS, this URL contains no database name.
+    private final String[] db_settings;
+    private final HashMap<String, String> neo4j_settings;
+    private final List<Row> rows = new ArrayList<Row>();
+
+    private KeySpace keySpace = new KeySpace(); // Keys of the parameterized queries
+
+    public ScaleSweep(String db_url, String[] db_settings, HashMap<String, String> neo4j_settings) {
+        this.db_url = db_url;
+        this.db_settings = db_settings;
+        this.neo4j_settings = neo4j_settings;
+    }
+
+    /**
+     * Set the key space the keys of the parameterized queries are drawn from. Its ranges have to be set to the ids
+     * of the current scale factor before every run.
+     */
+    public void setKeySpace(KeySpace keySpace) {
+        this.keySpace = keySpace;
+    }
+
+    /**
+     * Run every query on the data of the given scale factor.
+     * @param iterations number of measured executions per query
+     * @param warmupIterations executions before the measured ones, their latencies are discarded
+     * @param label description of the database state used in reports, e.g. "NO INDEXES"
+     */
+    public void runAll(List<BenchmarkQuery> queries, ScaleFactor scaleFactor, int iterations, int warmupIterations,
+                       String label) {
+        org.neo4j.driver.Driver driver = GraphDatabase.driver(neo4j_settings.get("NEO4J_DB_URL"),
+                AuthTokens.basic(neo4j_settings.get("NEO4J_USERNAME"), neo4j_settings.get("NEO4J_PASSWORD")));
+        Connection connection = null;
+        Session session = null;
+        QueryClient client = null;
+        try {
+            Class.forName(db_settings[0]);
+            connection = DriverManager.getConnection(db_url + "warehouse", db_settings[1], db_settings[2]);
+            session = driver.session();
+            client = new QueryClient(connection, session, keySpace, new Random(KEY_SEED));
+            for (BenchmarkQuery query : queries) {
+                System.out.println("Running " + query + " at " + scaleFactor + ", " + iterations +
+                        " iterations after " + warmupIterations + " warmup iterations (" + label + ").");
+                LatencyHistogram histogram = new LatencyHistogram();
+                try {
+                    for (int i = 0; i < warmupIterations + iterations; i++) {
+                        QueryMeasurement measurement = client.execute(query);
+                        if (i >= warmupIterations) {
+                            histogram.recordNanos(measurement.getTimeToLastRowNanos());
+                        }
+                    }
+                } catch (Exception e) {
+                    // The query has no point at this scale factor, the other queries still run
+                    System.out.println("Running " + query + " at " + scaleFactor + " failed.");
+                    e.printStackTrace();
+                    continue;
+                }
+                histogram.printSummary(System.out);
+                rows.add(new Row(label, query, scaleFactor, histogram));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            if (client != null) {
+                client.close();
+            }
+            if (session != null) {
+                session.close();
+            }
+            driver.close();
+            try {
+                if (connection != null) {
+                    connection.close();
+                }
+            } catch (SQLException se) {
+                se.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Print the latency curve of every query, engine and database state over the scale factors.
+     */
+    public void printReport() {
+        LinkedHashMap<String, List<Row>> curves = new LinkedHashMap<String, List<Row>>();
+        for (Row row : rows) {
+            String key = row.query.getName() + " (" + row.label + ")";
+            if (!curves.containsKey(key)) {
+                curves.put(key, new ArrayList<Row>());
+            }
+            curves.get(key).add(row);
+        }
+        System.out.println("Latency by scale factor (ms), exponent of the growth from the previous scale factor:");
+        System.out.println(String.format("%-60s %10s %10s %10s %10s %10s", "query", "scale", "mean", "p50", "p99",
+                "exponent"));
+        for (String key : curves.keySet()) {
+            Row previous = null;
+            String breakdown = null;
+            for (Row row : curves.get(key)) {
+                String exponent = "-";
+                if (previous != null && previous.histogram.getMean() > 0 && row.histogram.getMean() > 0) {
+                    double growth = Math.log(row.histogram.getMean() / previous.histogram.getMean()) /
+                            Math.log(row.scaleFactor.getValue() / previous.scaleFactor.getValue());
+                    exponent = String.format("%.2f", growth);
+                    if (breakdown == null && growth > SUPERLINEAR_EXPONENT) {
+                        breakdown = row.scaleFactor.toString();
+                    }
+                }
+                System.out.println(String.format("%-60s %10s %10.3f %10.3f %10.3f %10s", key, row.scaleFactor,
+                        row.histogram.getMean() / 1000.0, row.histogram.getValueAtPercentile(50) / 1000.0,
+                        row.histogram.getValueAtPercentile(99) / 1000.0, exponent));
+                previous = row;
+            }
+            if (breakdown != null) {
+                System.out.println(String.format("%-60s grows faster than the data from %s on", key, breakdown));
+            }
+        }
+    }
+}
@@ -0,0 +1,383 @@
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.Values;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Samples the cumulative counters of a DBMS, so that the work the server did during a measured query or a data
+ * generation phase can be reported next to the client wall time. Take a snapshot before and after and report the
+ * {@link #delta(Map, Map)} of the two.
+ *
+ * PostgreSQL counters come from pg_stat_statements (statements of the warehouse database, extension created if
+ * missing), pg_stat_database of the warehouse database, pg_stat_bgwriter and the WAL position. pg_stat_statements
+ * has to be loaded with shared_preload_libraries, compose.yaml does that, otherwise its counters are left out.
+ * Neo4j counters come from dbms.queryJmx: page cache hits and faults and committed transactions of the kernel beans
+ * of Neo4j 3.x or of the metrics beans of Enterprise with metrics enabled, and used heap. Neo4j 4+ Community, like
+ * the image of compose.yaml, has neither; there the committed write transactions are taken from the last committed
+ * transaction id of SHOW DEFAULT DATABASE where Neo4j reports it, and a warning says which counters are missing.
+ *
+ * Counters are sampled over a connection of their own, the deltas include the few catalog reads and transactions of
+ * the sampling itself.
+ */
+public class ServerStatistics {
+
+    /**
+     * Counters that are a current level rather than a running total, their delta is the value after.
+     */
+    private static final Set<String> GAUGES = new HashSet<String>(Arrays.asList("neo4j_heap_used_bytes"));
+
+    private static final String PG_STAT_STATEMENTS_SQL = "SELECT COALESCE(SUM(calls), 0) AS calls, " +
+            "COALESCE((SUM(total_exec_time) * 1000)::bigint, 0) AS exec_time_us, " +
+            "COALESCE(SUM(shared_blks_hit), 0) AS shared_blks_hit, " +
+            "COALESCE(SUM(shared_blks_read), 0) AS shared_blks_read, " +
+            "COALESCE(SUM(temp_blks_written), 0) AS temp_blks_written, " +
+            "COALESCE(SUM(rows), 0) AS rows " +
+            "FROM pg_stat_statements " +
+            "WHERE dbid = (SELECT oid FROM pg_database WHERE datname = current_database()) " +
+            "AND query NOT LIKE '%pg\\_%'"; // Leaves out the statements of the sampling itself
+    private static final String PG_STAT_DATABASE_SQL = "SELECT blks_hit, blks_read, temp_files, temp_bytes, " +
+            "tup_returned, tup_fetched, tup_inserted " +
+            "FROM pg_stat_database WHERE datname = current_database()";
+    private static final String PG_STAT_BGWRITER_SQL = "SELECT checkpoints_timed + checkpoints_req AS checkpoints, " +
+            "buffers_checkpoint, buffers_clean, buffers_backend, buffers_alloc FROM pg_stat_bgwriter";
+    private static final String PG_WAL_SQL = "SELECT pg_wal_lsn_diff(pg_current_wal_lsn(), '0/0')::bigint AS bytes";
+
+    /**
+     * Neo4j counters: JMX bean name pattern of dbms.queryJmx, bean name fragment, attribute and counter name. Kernel
+     * beans are tried before metrics beans, a counter found in an earlier pattern is not replaced by a later one.
+     */
+    private static final String[][] NEO4J_COUNTERS = {
+            {"org.neo4j:*", "name=Page cache", "Hits", "neo4j_page_cache_hits"},
+            {"org.neo4j:*", "name=Page cache", "Faults", "neo4j_page_cache_faults"},
+            {"org.neo4j:*", "name=Transactions", "NumberOfCommittedTransactions", "neo4j_committed_transactions"},
+            {"neo4j.metrics:*", "page_cache.hits", "Count", "neo4j_page_cache_hits"},
+            {"neo4j.metrics:*", "page_cache.page_faults", "Count", "neo4j_page_cache_faults"},
+            {"neo4j.metrics:*", "transaction.committed", "Count", "neo4j_committed_transactions"}};
+
+    private static boolean warnedMissingNeo4jCounters = false;
+
+    private final String name;
+    private String[] db_settings; // Null for Neo4j
+    private Connection connection; // Sampling connection to PostgreSQL, null for Neo4j
+    private Connection measuredConnection; // Connection of the measured queries, its statistics are flushed first
+    private boolean pgStatStatements = true;
+    private org.neo4j.driver.Driver driver; // Null for PostgreSQL
+    private Session session;
+
+    private ServerStatistics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Sample the "warehouse" database of a PostgreSQL DBMS.
+     * @param db_url SQL connection URL without database name
+     * @param db_settings SQL settings array containing SQL driver name, username and password
+     * @param measuredConnection connection the measured queries run on, null if they run on connections that are
+     *                           closed before the snapshot after
+     */
+    public static ServerStatistics forSQL(String db_url, String[] db_settings, Connection measuredConnection) {
+        ServerStatistics statistics = new ServerStatistics(db_url);
+        statistics.measuredConnection = measuredConnection;
+        statistics.db_settings = db_settings;
+        try {
+            Class.forName(db_settings[0]);
+            statistics.connection = DriverManager.getConnection(db_url + "warehouse", db_settings[1],
+                    db_settings[2]);
+            if (!statistics.connection.getMetaData().getDatabaseProductName().equals("PostgreSQL")) {
+                System.out.println("Server statistics are only sampled from PostgreSQL, not from " + db_url + ".");
+                statistics.connection.close();
+                statistics.connection = null;
+                return statistics;
+            }
+            Statement stmt = statistics.connection.createStatement();
+            try {
+                stmt.execute("CREATE EXTENSION IF NOT EXISTS pg_stat_statements");
+                stmt.executeQuery("SELECT 1 FROM pg_stat_statements LIMIT 1").close();
+            } catch (SQLException e) {
+                System.out.println("pg_stat_statements is not available in " + db_url + ", statement counters are " +
+                        "left out: " + e.getMessage().trim());
+                statistics.pgStatStatements = false;
+            }
+            stmt.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return statistics;
+    }
+
+    /**
+     * Sample the Neo4j DBMS.
+     */
+    public static ServerStatistics forNeo4j(HashMap<String, String> neo4j_settings) {
+        String neo4j_db_url = neo4j_settings.get("NEO4J_DB_URL");
+        String neo4j_username = neo4j_settings.get("NEO4J_USERNAME");
+        String neo4j_password = neo4j_settings.get("NEO4J_PASSWORD");
+        ServerStatistics statistics = new ServerStatistics(neo4j_db_url);
+        statistics.driver = GraphDatabase.driver(neo4j_db_url, AuthTokens.basic(neo4j_username, neo4j_password));
+        statistics.session = statistics.driver.session();
+        return statistics;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Read the current value of every counter, counters that cannot be read are left out.
+     */
+    public LinkedHashMap<String, Long> snapshot() {
+        LinkedHashMap<String, Long> counters = new LinkedHashMap<String, Long>();
+        if (connection != null) {
+            reconnectIfClosed();
+            flushMeasuredConnection();
+            if (pgStatStatements) {
+                readSQL(PG_STAT_STATEMENTS_SQL, "pg_statements_", counters);
+            }
+            readSQL(PG_STAT_DATABASE_SQL, "pg_", counters);
+            readSQL(PG_STAT_BGWRITER_SQL, "pg_bgwriter_", counters);
+            readSQL(PG_WAL_SQL, "pg_wal_", counters);
+        } else if (session != null) {
+            readNeo4j(counters);
+        }
+        return counters;
+    }
+
+    /**
+     * Open the sampling connection again if a cache evict command restarted PostgreSQL since the last snapshot.
+     */
+    private void reconnectIfClosed() {
+        try {
+            if (!connection.isValid(5)) {
+                connection.close();
+                connection = DriverManager.getConnection(name + "warehouse", db_settings[1], db_settings[2]);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void close() {
+        try {
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        if (session != null) {
+            session.close();
+            driver.close();
+        }
+    }
+
+    /**
+     * @return change of every counter found in both snapshots, the value after for gauges
+     */
+    public static LinkedHashMap<String, Long> delta(Map<String, Long> before, Map<String, Long> after) {
+        LinkedHashMap<String, Long> delta = new LinkedHashMap<String, Long>();
+        for (Map.Entry<String, Long> counter : after.entrySet()) {
+            if (GAUGES.contains(counter.getKey())) {
+                delta.put(counter.getKey(), counter.getValue());
+            } else if (before.containsKey(counter.getKey())) {
+                delta.put(counter.getKey(), counter.getValue() - before.get(counter.getKey()));
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Format counters as "name=value" pairs separated by spaces.
+     */
+    public static String format(Map<String, Long> counters) {
+        if (counters.isEmpty()) {
+            return "none";
+        }
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(counter.getKey()).append('=').append(counter.getValue());
+        }
+        return text.toString();
+    }
+
+    /**
+     * PostgreSQL 15 flushes the statistics of a backend when it is idle, at most once a second and possibly only
+     * after 10 seconds. Force the backend of the measured queries to flush, so the snapshot includes their work.
+     */
+    private void flushMeasuredConnection() {
+        if (measuredConnection == null) {
+            return;
+        }
+        try {
+            Statement stmt = measuredConnection.createStatement();
+            stmt.executeQuery("SELECT pg_stat_force_next_flush()").close();
+            stmt.close();
+            if (!measuredConnection.getAutoCommit()) {
+                measuredConnection.commit();
+            }
+        } catch (SQLException e) {
+            System.out.println("Cannot flush the statistics of the measured connection, pg_stat_database counters " +
+                    "may lag behind: " + e.getMessage().trim());
+            try {
+                if (!measuredConnection.getAutoCommit()) {
+                    measuredConnection.rollback();
+                }
+            } catch (SQLException se) {
+                se.printStackTrace();
+            }
+            measuredConnection = null;
+        }
+    }
+
+    /**
+     * Read the single row of a statistics query, every column is stored as prefix + column name.
+     */
+    private void readSQL(String sqlQuery, String prefix, Map<String, Long> counters) {
+        try {
+            Statement stmt = connection.createStatement();
+            ResultSet resultSet = stmt.executeQuery(sqlQuery);
+            if (resultSet.next()) {
+                ResultSetMetaData meta = resultSet.getMetaData();
+                for (int column = 1; column <= meta.getColumnCount(); column++) {
+                    counters.put(prefix + meta.getColumnLabel(column), resultSet.getLong(column));
+                }
+            }
+            resultSet.close();
+            stmt.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void readNeo4j(Map<String, Long> counters) {
+        HashMap<String, Map<String, Object>> beans = new HashMap<String, Map<String, Object>>();
+        for (String[] counter : NEO4J_COUNTERS) {
+            if (!beans.containsKey(counter[0])) {
+                beans.put(counter[0], queryJmx(counter[0]));
+            }
+        }
+        for (String[] counter : NEO4J_COUNTERS) {
+            if (counters.containsKey(counter[3])) {
+                continue;
+            }
+            long sum = 0;
+            boolean found = false;
+            for (Map.Entry<String, Object> bean : beans.get(counter[0]).entrySet()) {
+                if (!bean.getKey().contains(counter[1])) {
+                    continue;
+                }
+                Object value = attributeValue(bean.getValue(), counter[2]);
+                if (value instanceof Number) {
+                    sum += ((Number) value).longValue();
+                    found = true;
+                }
+            }
+            if (found) {
+                counters.put(counter[3], sum);
+            }
+        }
+        if (!counters.containsKey("neo4j_committed_transactions")) {
+            Long lastCommittedTransaction = lastCommittedTransaction();
+            if (lastCommittedTransaction != null) {
+                counters.put("neo4j_committed_write_transactions", lastCommittedTransaction);
+            }
+        }
+        warnMissingNeo4jCounters(counters);
+        for (Object memory : queryJmx("java.lang:type=Memory").values()) {
+            Object heap = attributeValue(memory, "HeapMemoryUsage");
+            if (heap instanceof Map && ((Map<?, ?>) heap).get("used") instanceof Number) {
+                counters.put("neo4j_heap_used_bytes", ((Number) ((Map<?, ?>) heap).get("used")).longValue());
+            }
+        }
+    }
+
+    /**
+     * Every write transaction gets the next transaction id, the delta of the last committed one counts them.
+     * @return last committed transaction id of the default database, null if Neo4j does not report it
+     */
+    private Long lastCommittedTransaction() {
+        Session systemSession = driver.session(SessionConfig.forDatabase("system"));
+        try {
+            Result result = systemSession.run("SHOW DEFAULT DATABASE YIELD lastCommittedTxn");
+            if (result.hasNext()) {
+                Object value = result.next().get("lastCommittedTxn").asObject();
+                return (value instanceof Number) ? ((Number) value).longValue() : null;
+            }
+        } catch (Exception e) {
+            // Not reported by this version, warnMissingNeo4jCounters says so
+        } finally {
+            systemSession.close();
+        }
+        return null;
+    }
+
+    /**
+     * Say once which Neo4j counters are not available, dbms.queryJmx returns no beans rather than failing.
+     */
+    private static synchronized void warnMissingNeo4jCounters(Map<String, Long> counters) {
+        if (warnedMissingNeo4jCounters) {
+            return;
+        }
+        StringBuilder missing = new StringBuilder();
+        if (!counters.containsKey("neo4j_page_cache_hits")) {
+            missing.append("page cache hits and faults");
+        }
+        if (!counters.containsKey("neo4j_committed_transactions") &&
+                !counters.containsKey("neo4j_committed_write_transactions")) {
+            missing.append((missing.length() > 0) ? ", " : "").append("committed transactions");
+        }
+        if (missing.length() > 0) {
+            System.out.println("Neo4j exposes no " + missing + " counters (Community edition or metrics disabled), " +
+                    "they are left out of the server statistics. --plans reports the page cache hits and misses " +
+                    "of every query from PROFILE.");
+        }
+        warnedMissingNeo4jCounters = true;
+    }
+
+    /**
+     * @return attributes of the JMX beans matching the pattern keyed by bean name, empty if the query fails
+     */
+    private Map<String, Object> queryJmx(String pattern) {
+        HashMap<String, Object> beans = new HashMap<String, Object>();
+        try {
+            Result result = session.run("CALL dbms.queryJmx($pattern) YIELD name, attributes " +
+                    "RETURN name, attributes", Values.parameters("pattern", pattern));
+            while (result.hasNext()) {
+                Record record = result.next();
+                beans.put(record.get("name").asString(), record.get("attributes").asMap());
+            }
+        } catch (Exception e) {
+            System.out.println("Cannot query JMX beans " + pattern + " of Neo4j: " + e.getMessage());
+        }
+        return beans;
+    }
+
+    /**
+     * dbms.queryJmx returns every attribute as a map of its description and value.
+     */
+    private static Object attributeValue(Object attributes, String attribute) {
+        if (!(attributes instanceof Map)) {
+            return null;
+        }
+        Object described = ((Map<?, ?>) attributes).get(attribute);
+        return (described instanceof Map) ? ((Map<?, ?>) described).get("value") : null;
+    }
+}
@@ -0,0 +1,249 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares thread-per-request JDBC with the {@link PipelinedSqlExecutor} at the same number of concurrent queries.
+ *
+ * With JDBC, every in-flight query holds its own thread and connection. With the pipelined executor, the same
+ * number of queries are kept in flight by completion callbacks that submit the next query, on a few connections
+ * served by one thread each.
+ *
+ * Both modes send every query as text with its key written in as a literal, JDBC on a plain {@link Statement}, so
+ * that PostgreSQL parses and plans every query in both modes and the difference is only in how they are executed.
+ * A pipelined query completes only once its whole pipeline has been read, so its latency includes the execution of
+ * the other queries of its round trip; JDBC latencies do not.
+ */
+public class SqlExecutionComparison {
+
+    private final String db_url; // SQL connection URL of the DBMS, this URL contains no database name.
+    private final String[] db_settings;
+    private final List<String> rows = new ArrayList<String>();
+    private KeySpace keySpace = new KeySpace(); // Keys of the parameterized queries
+
+    public SqlExecutionComparison(String db_url, String[] db_settings) {
+        this.db_url = db_url;
+        this.db_settings = db_settings;
+    }
+
+    /**
+     * Set the key space the keys of the parameterized queries are drawn from. The pipelined executor cannot bind
+     * parameters, so both modes get the key written into the query text.
+     */
+    public void setKeySpace(KeySpace keySpace) {
+        this.keySpace = keySpace;
+    }
+
+    /**
+     * Run every SQL query with thread-per-request JDBC and with the pipelined executor.
+     * @param queries queries to run, Cypher queries are skipped
+     * @param inFlight number of concurrent queries in both modes
+     * @param connectionCount number of connections of the pipelined executor
+     * @param pipelineDepth maximum number of queries the pipelined executor sends in one round trip
+     * @param durationMillis measured duration of every run
+     * @param warmupMillis duration at the start of every run whose latencies are discarded
+     * @param label description of the database state used in reports, e.g. "NO INDEXES"
+     */
+    public void runAll(List<BenchmarkQuery> queries, int inFlight, int connectionCount, int pipelineDepth,
+                       long durationMillis, long warmupMillis, String label) {
+        for (BenchmarkQuery query : queries) {
+            if (query.getEngine() != BenchmarkQuery.Engine.SQL) {
+                continue;
+            }
+            run(query, false, inFlight, connectionCount, pipelineDepth, durationMillis, warmupMillis, label);
+            run(query, true, inFlight, connectionCount, pipelineDepth, durationMillis, warmupMillis, label);
+        }
+    }
+
+    /**
+     * Run a query back to back with the given number of concurrent queries.
+     * @param query SQL query to run
+     * @param pipelined true to use the pipelined executor, false for thread-per-request JDBC
+     * @param inFlight number of concurrent queries
+     * @param connectionCount number of connections of the pipelined executor, JDBC uses one per query in flight
+     * @param pipelineDepth maximum number of queries the pipelined executor sends in one round trip
+     * @param durationMillis measured duration of the run
+     * @param warmupMillis duration at the start of the run whose latencies are discarded
+     * @param label description of the database state used in reports, e.g. "NO INDEXES"
+     */
+    public LoadResult run(BenchmarkQuery query, boolean pipelined, int inFlight, int connectionCount,
+                          int pipelineDepth, long durationMillis, long warmupMillis, String label) {
+        String mode = pipelined ? "PIPELINED" : "JDBC";
+        int connections = pipelined ? connectionCount : inFlight;
+        LoadResult loadResult = new LoadResult(label + ", " + mode + ", " + query,
+                TimeUnit.MILLISECONDS.toNanos(durationMillis));
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        System.out.println("Running " + query + " with " + mode + ", " + inFlight + " queries in flight on " +
+                connections + " connections for " + durationMillis + " ms after " + warmupMillis + " ms warmup (" +
+                label + ").");
+        System.gc();
+        threadBean.resetPeakThreadCount();
+        HeapSampler heapSampler = new HeapSampler();
+        heapSampler.start();
+        try {
+            if (pipelined) {
+                runPipelined(query, inFlight, connectionCount, pipelineDepth, durationMillis, warmupMillis,
+                        loadResult);
+            } else {
+                runThreadPerRequest(query, inFlight, durationMillis, warmupMillis, loadResult);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        long peakHeap = heapSampler.stopSampling();
+        loadResult.print(System.out);
+
+        LatencyHistogram histogram = loadResult.getCombinedHistogram();
+        rows.add(String.format("%s, %s, %s, %d, %d, %.1f, %.3f, %.3f, %d, %d, %.1f", label, query, mode, inFlight,
+                connections, loadResult.getThroughput(), histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, loadResult.getErrorCount(),
+                threadBean.getPeakThreadCount(), peakHeap / 1048576.0));
+        return loadResult;
+    }
+
+    /**
+     * Print one row per query and mode that has been run.
+     */
+    public void printReport() {
+        System.out.println("Thread-per-request JDBC versus pipelined execution, both sending literal query text. " +
+                "Pipelined latencies include the other queries of the same round trip (up to the pipeline depth):");
+        System.out.println("state, query, mode, in flight, connections, throughput (queries/s), p50 (ms), p99 (ms), " +
+                "errors, peak JVM threads, peak heap (MB)");
+        for (String row : rows) {
+            System.out.println(row);
+        }
+        System.out.println();
+    }
+
+    private void runThreadPerRequest(BenchmarkQuery query, int threadCount, long durationMillis, long warmupMillis,
+                                     LoadResult loadResult) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch ready = new CountDownLatch(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] window = new long[2];
+        List<Future<LoadResult>> futures = new ArrayList<Future<LoadResult>>();
+        try {
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(() -> {
+                    LoadResult threadResult = new LoadResult("", 0);
+                    Connection connection = null;
+                    Statement stmt;
+                    try {
+                        Class.forName(db_settings[0]);
+                        connection = DriverManager.getConnection(db_url + "warehouse", db_settings[1],
+                                db_settings[2]);
+                        stmt = connection.createStatement();
+                    } finally {
+                        ready.countDown();
+                    }
+                    start.await();
+                    try {
+                        while (true) {
+                            long startTime = System.nanoTime();
+                            if (startTime >= window[1]) {
+                                break;
+                            }
+                            String sqlQuery = query.getTextWithKey(keySpace.next(query.getKeyParameter(),
+                                    ThreadLocalRandom.current()));
+                            try {
+                                QueryTester.executeAndConsumeSQL(stmt, sqlQuery);
+                                if (startTime >= window[0]) {
+                                    threadResult.recordLatency(query, System.nanoTime() - startTime);
+                                }
+                            } catch (SQLException e) {
+                                if (startTime >= window[0]) {
+                                    threadResult.recordError(query);
+                                }
+                                if (threadResult.getErrorCount() == 1) {
+                                    e.printStackTrace();
+                                }
+                            }
+                        }
+                    } finally {
+                        stmt.close();
+                        connection.close();
+                    }
+                    return threadResult;
+                }));
+            }
+            ready.await();
+            window[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+            window[1] = window[0] + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+            start.countDown();
+            for (Future<LoadResult> future : futures) {
+                loadResult.add(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void runPipelined(BenchmarkQuery query, int inFlight, int connectionCount, int pipelineDepth,
+                              long durationMillis, long warmupMillis, LoadResult loadResult) throws Exception {
+        PipelinedSqlExecutor executor = new PipelinedSqlExecutor(db_url + "warehouse", db_settings,
+                connectionCount, pipelineDepth);
+        executor.start();
+        long[] window = new long[2];
+        window[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+        window[1] = window[0] + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        CountDownLatch done = new CountDownLatch(inFlight);
+        try {
+            for (int i = 0; i < inFlight; i++) {
+                submitNext(executor, query, window, loadResult, done);
+            }
+            // A connection thread that failed leaves its queries unanswered, do not wait for them forever
+            if (!done.await(durationMillis + warmupMillis + 60000, TimeUnit.MILLISECONDS)) {
+                System.out.println("Pipelined queries did not complete within 60 s after the end of the run.");
+            }
+        } finally {
+            executor.close();
+        }
+    }
+
+    /**
+     * Submit the query and, once it completes, the next one, until the end of the run. Completions run on the
+     * connection threads of the executor, so no thread waits for a query. Once the executor stops running its
+     * futures fail right away, the chain ends then instead of resubmitting on the calling thread.
+     */
+    private void submitNext(PipelinedSqlExecutor executor, BenchmarkQuery query, long[] window,
+                            LoadResult loadResult, CountDownLatch done) {
+        long startTime = System.nanoTime();
+        if (startTime >= window[1]) {
+            done.countDown();
+            return;
+        }
+        String sqlQuery = query.getTextWithKey(keySpace.next(query.getKeyParameter(), ThreadLocalRandom.current()));
+        executor.submit(sqlQuery).whenComplete((rowCount, error) -> {
+            long endTime = System.nanoTime();
+            if (startTime >= window[0]) {
+                synchronized (loadResult) {
+                    if (error == null) {
+                        loadResult.recordLatency(query, endTime - startTime);
+                    } else {
+                        loadResult.recordError(query);
+                        if (loadResult.getErrorCount() == 1) {
+                            error.printStackTrace();
+                        }
+                    }
+                }
+            }
+            if (!executor.isRunning()) {
+                done.countDown();
+                return;
+            }
+            submitNext(executor, query, window, loadResult, done);
+        });
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Detects when query latencies have stabilized by tracking the coefficient of variation (standard deviation divided
+ * by mean) of the latest latencies. JIT compilation, query planning and cold caches make the first executions of a
+ * query slower and more erratic, the coefficient of variation drops once those effects have settled.
+ */
+public class SteadyStateDetector {
+
+    private final double[] window; // Ring buffer of the latest samples
+    private final double threshold;
+    private int sampleCount = 0;
+
+    /**
+     * @param windowSize number of latest samples the coefficient of variation is calculated from
+     * @param threshold coefficient of variation at or below which the samples are regarded as steady
+     */
+    public SteadyStateDetector(int windowSize, double threshold) {
+        if (windowSize < 2) {
+            throw new IllegalArgumentException("Steady-state window must contain at least 2 samples: " + windowSize);
+        }
+        this.window = new double[windowSize];
+        this.threshold = threshold;
+    }
+
+    public void addSample(double sample) {
+        window[sampleCount % window.length] = sample;
+        sampleCount++;
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Get coefficient of variation of the samples in the window, infinity until the window has been filled.
+     */
+    public double getCoefficientOfVariation() {
+        if (sampleCount < window.length) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double sum = 0;
+        for (double sample : window) {
+            sum += sample;
+        }
+        double mean = sum / window.length;
+        if (mean == 0) {
+            return 0;
+        }
+        double squaredDeviations = 0;
+        for (double sample : window) {
+            squaredDeviations += (sample - mean) * (sample - mean);
+        }
+        return Math.sqrt(squaredDeviations / window.length) / mean;
+    }
+
+    public boolean isSteady() {
+        return getCoefficientOfVariation() <= threshold;
+    }
+}
@@ -0,0 +1,47 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Kind of threads that run the data generator workers and the query clients of the load drivers.
+ *
+ * Virtual threads need a Java 21 runtime. The sources are still compiled for Java 8, so the virtual thread executor
+ * is looked up by reflection and the same JAR runs on both runtimes.
+ */
+public enum ThreadMode {
+    PLATFORM, // One operating system thread per worker from a fixed size pool
+    VIRTUAL; // One virtual thread per task, blocking JDBC and Bolt calls unmount the carrier thread
+
+    /**
+     * Create an executor that runs up to the given number of tasks concurrently.
+     * @param threadCount number of tasks that are submitted, ignored by virtual threads which are created per task
+     * @throws UnsupportedOperationException if virtual threads are requested on a runtime older than Java 21
+     */
+    public ExecutorService newExecutor(int threadCount) {
+        if (this == PLATFORM) {
+            return Executors.newFixedThreadPool(threadCount);
+        }
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21, running on Java " +
+                    System.getProperty("java.version"), e);
+        }
+    }
+
+    /**
+     * Check whether the running JVM supports this thread mode.
+     */
+    public boolean isAvailable() {
+        if (this == PLATFORM) {
+            return true;
+        }
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the client-side overhead of platform threads and virtual threads. The same open-loop load is sent once
+ * with every thread mode, so both modes face the same offered load and the databases answer equally fast; the
+ * differences in CPU time, heap and thread count are caused by the client threads.
+ *
+ * Heap usage is sampled by a {@link HeapSampler} during a run. CPU time is that of the whole benchmark process, so
+ * other work of the JVM, e.g. garbage collection, is included.
+ */
+public class ThreadModeComparison {
+
+    private final OpenLoopLoadGenerator generator;
+    private final List<String> rows = new ArrayList<String>();
+
+    public ThreadModeComparison(OpenLoopLoadGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Send the same load with every available thread mode.
+     * @param mix queries the requests are picked from
+     * @param schedule target request rate over time
+     * @param arrivalProcess distribution of the gaps between requests
+     * @param workerCount number of concurrent clients, each with its own JDBC connection and Neo4j session
+     * @param durationMillis measured duration of every run
+     * @param warmupMillis duration at the start of every run whose latencies are discarded
+     * @param label description of the database state used in reports, e.g. "INDEXES"
+     */
+    public void run(QueryMix mix, RateSchedule schedule, OpenLoopLoadGenerator.ArrivalProcess arrivalProcess,
+                    int workerCount, long durationMillis, long warmupMillis, String label) {
+        for (ThreadMode threadMode : ThreadMode.values()) {
+            if (!threadMode.isAvailable()) {
+                System.out.println("Skipping " + threadMode + " threads, they are not supported by Java " +
+                        System.getProperty("java.version") + ".");
+                continue;
+            }
+            runThreadMode(threadMode, mix, schedule, arrivalProcess, workerCount, durationMillis, warmupMillis,
+                    label);
+        }
+    }
+
+    private void runThreadMode(ThreadMode threadMode, QueryMix mix, RateSchedule schedule,
+                               OpenLoopLoadGenerator.ArrivalProcess arrivalProcess, int workerCount,
+                               long durationMillis, long warmupMillis, String label) {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        threadBean.resetPeakThreadCount();
+        long heapBefore = memoryBean.getHeapMemoryUsage().getUsed();
+        long cpuBefore = getProcessCpuTime();
+        long gcBefore = getGarbageCollectionMillis();
+        HeapSampler heapSampler = new HeapSampler();
+        heapSampler.start();
+
+        generator.setThreadMode(threadMode);
+        LoadResult result = generator.run(mix, schedule, arrivalProcess, workerCount, durationMillis, warmupMillis,
+                label + ", " + threadMode + " threads");
+
+        heapSampler.stopSampling();
+        long cpuMillis = (getProcessCpuTime() - cpuBefore) / 1000000;
+        long gcMillis = getGarbageCollectionMillis() - gcBefore;
+        generator.setThreadMode(ThreadMode.PLATFORM);
+        result.print(System.out);
+
+        LatencyHistogram combined = result.getCombinedHistogram();
+        rows.add(String.format("%s, %s, %d, %.1f, %.3f, %d, %d, %.1f, %.1f, %d, %d", label, threadMode, workerCount,
+                result.getThroughput(), combined.getValueAtPercentile(99) / 1000.0, cpuMillis,
+                (result.getCompletedCount() == 0) ? 0 : cpuMillis * 1000 / result.getCompletedCount(),
+                heapBefore / 1048576.0, heapSampler.getPeakHeap() / 1048576.0, threadBean.getPeakThreadCount(),
+                gcMillis));
+    }
+
+    /**
+     * Print one row per index state and thread mode that has been run.
+     */
+    public void printReport() {
+        System.out.println("Client overhead of platform and virtual threads:");
+        System.out.println("indexes, threads, clients, throughput (queries/s), p99 (ms), process CPU (ms), " +
+                "CPU per 1000 queries (ms), heap before (MB), peak heap (MB), peak JVM threads, GC (ms)");
+        for (String row : rows) {
+            System.out.println(row);
+        }
+        System.out.println();
+    }
+
+    private static long getProcessCpuTime() {
+        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+        if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    private static long getGarbageCollectionMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(gcBean.getCollectionTime(), 0);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,332 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark workload read from a JSON file: named query families with their SQL and Cypher variants, parameters,
+ * iteration and load settings and the index phases the families are run in.
+ *
+ * <pre>
+ * {
+ *   "name": "invoices",
+ *   "iterations": 12,
+ *   "warmup_iterations": 2,
+ *   "parameters": {"customer_id": 0},
+ *   "families": [
+ *     {"name": "work-price-short", "catalog": true},
+ *     {"name": "open-invoices", "variants": [
+ *       {"id": "open-invoices", "engine": "sql", "text": "SELECT id FROM invoice WHERE customerId=${customer_id}"},
+ *       {"id": "open-invoices", "engine": "cypher",
+ *        "text": "MATCH (c:customer {customerId: ${customer_id}})-[:SENDING]-(i:invoice) RETURN i.invoiceId"}
+ *     ]},
+ *     {"name": "customer-invoices", "variants": [
+ *       {"engine": "sql", "text": "SELECT id FROM invoice WHERE customerId=?", "key_parameter": "customerId"}
+ *     ]}
+ *   ],
+ *   "load": {"clients": [1, 8], "duration_seconds": 30, "warmup_seconds": 5, "mix": {"open-invoices": 4}},
+ *   "phases": [
+ *     {"name": "NO INDEXES", "indexes": false},
+ *     {"name": "INDEXES", "indexes": true, "families": ["open-invoices"], "load": true}
+ *   ]
+ * }
+ * </pre>
+ *
+ * A family with "catalog": true takes its variants from {@link QueryCatalog#standardQueries()}. Parameters are
+ * substituted for ${name} placeholders in the query texts. A variant with a "key_parameter" binds a key drawn from
+ * the key space of the run on every execution, see {@link BenchmarkQuery}. A phase runs the given families, or all
+ * of them, with the iteration settings; with "load": true it also runs the closed-loop load test with the load
+ * settings.
+ */
+public class Workload {
+
+    /**
+     * One phase of the workload, the index state it needs and what it runs.
+     */
+    public static class Phase {
+        private final String name;
+        private final boolean indexes;
+        private final List<String> families; // Empty for all families
+        private final boolean iterations; // Run the single query measurements
+        private final boolean load; // Run the closed-loop load test
+
+        Phase(String name, boolean indexes, List<String> families, boolean iterations, boolean load) {
+            this.name = name;
+            this.indexes = indexes;
+            this.families = families;
+            this.iterations = iterations;
+            this.load = load;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean hasIndexes() {
+            return indexes;
+        }
+
+        public List<String> getFamilies() {
+            return families;
+        }
+
+        public boolean runsIterations() {
+            return iterations;
+        }
+
+        public boolean runsLoad() {
+            return load;
+        }
+    }
+
+    private final String name;
+    private final int iterations;
+    private final int warmupIterations; // -1 if the workload does not set it
+    private final Map<String, Object> parameters;
+    private final LinkedHashMap<String, List<BenchmarkQuery>> families;
+    private final int[] loadClientCounts;
+    private final long loadDurationSeconds;
+    private final long loadWarmupSeconds;
+    private final LinkedHashMap<String, Integer> loadMix; // Family weights, empty for every family with weight 1
+    private final List<Phase> phases;
+
+    private Workload(String name, int iterations, int warmupIterations, Map<String, Object> parameters,
+                     LinkedHashMap<String, List<BenchmarkQuery>> families, int[] loadClientCounts,
+                     long loadDurationSeconds, long loadWarmupSeconds, LinkedHashMap<String, Integer> loadMix,
+                     List<Phase> phases) {
+        this.name = name;
+        this.iterations = iterations;
+        this.warmupIterations = warmupIterations;
+        this.parameters = parameters;
+        this.families = families;
+        this.loadClientCounts = loadClientCounts;
+        this.loadDurationSeconds = loadDurationSeconds;
+        this.loadWarmupSeconds = loadWarmupSeconds;
+        this.loadMix = loadMix;
+        this.phases = phases;
+    }
+
+    /**
+     * Read a workload from a file, or from a resource on the classpath if no such file exists, e.g.
+     * "default-workload.json".
+     */
+    public static Workload load(String path) throws IOException {
+        File file = new File(path);
+        InputStream in = file.isFile() ? new FileInputStream(file) :
+                Workload.class.getResourceAsStream("/" + path);
+        if (in == null) {
+            throw new IOException("Workload file not found: " + path);
+        }
+        try {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                content.write(buffer, 0, length);
+            }
+            return parse(new String(content.toByteArray(), StandardCharsets.UTF_8));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Parse a workload definition.
+     * @throws IllegalArgumentException if a family, engine or phase is not defined correctly
+     */
+    public static Workload parse(String json) {
+        JSONObject definition = new JSONObject(json);
+
+        Map<String, Object> parameters = new LinkedHashMap<String, Object>();
+        JSONObject parameterDefinitions = definition.optJSONObject("parameters");
+        if (parameterDefinitions != null) {
+            for (String parameter : parameterDefinitions.keySet()) {
+                parameters.put(parameter, parameterDefinitions.get(parameter));
+            }
+        }
+
+        LinkedHashMap<String, List<BenchmarkQuery>> families = new LinkedHashMap<String, List<BenchmarkQuery>>();
+        JSONArray familyDefinitions = definition.getJSONArray("families");
+        for (int i = 0; i < familyDefinitions.length(); i++) {
+            JSONObject familyDefinition = familyDefinitions.getJSONObject(i);
+            String family = familyDefinition.getString("name");
+            List<BenchmarkQuery> variants = new ArrayList<BenchmarkQuery>();
+            if (familyDefinition.optBoolean("catalog", false)) {
+                for (BenchmarkQuery query : QueryCatalog.standardQueries()) {
+                    if (query.getFamily().equals(family)) {
+                        variants.add(query);
+                    }
+                }
+            }
+            JSONArray variantDefinitions = familyDefinition.optJSONArray("variants");
+            if (variantDefinitions != null) {
+                for (int j = 0; j < variantDefinitions.length(); j++) {
+                    JSONObject variant = variantDefinitions.getJSONObject(j);
+                    BenchmarkQuery.Engine engine = BenchmarkQuery.Engine.valueOf(
+                            variant.getString("engine").toUpperCase());
+                    String text = substituteParameters(variant.getString("text"), parameters);
+                    variants.add(new BenchmarkQuery(variant.optString("id", family), family, engine, text,
+                            variant.optString("key_parameter", null)));
+                }
+            }
+            if (variants.isEmpty()) {
+                throw new IllegalArgumentException("Query family has no variants: " + family);
+            }
+            families.put(family, variants);
+        }
+
+        int[] loadClientCounts = new int[0];
+        long loadDurationSeconds = 30;
+        long loadWarmupSeconds = 5;
+        LinkedHashMap<String, Integer> loadMix = new LinkedHashMap<String, Integer>();
+        JSONObject loadDefinition = definition.optJSONObject("load");
+        if (loadDefinition != null) {
+            JSONArray clients = loadDefinition.getJSONArray("clients");
+            loadClientCounts = new int[clients.length()];
+            for (int i = 0; i < clients.length(); i++) {
+                loadClientCounts[i] = clients.getInt(i);
+            }
+            loadDurationSeconds = loadDefinition.optLong("duration_seconds", loadDurationSeconds);
+            loadWarmupSeconds = loadDefinition.optLong("warmup_seconds", loadWarmupSeconds);
+            JSONObject mix = loadDefinition.optJSONObject("mix");
+            if (mix != null) {
+                for (String family : mix.keySet()) {
+                    if (!families.containsKey(family)) {
+                        throw new IllegalArgumentException("Load mix uses an unknown query family: " + family);
+                    }
+                    loadMix.put(family, mix.getInt(family));
+                }
+            }
+        }
+
+        List<Phase> phases = new ArrayList<Phase>();
+        JSONArray phaseDefinitions = definition.getJSONArray("phases");
+        for (int i = 0; i < phaseDefinitions.length(); i++) {
+            JSONObject phaseDefinition = phaseDefinitions.getJSONObject(i);
+            List<String> phaseFamilies = new ArrayList<String>();
+            JSONArray familyNames = phaseDefinition.optJSONArray("families");
+            if (familyNames != null) {
+                for (int j = 0; j < familyNames.length(); j++) {
+                    String family = familyNames.getString(j);
+                    if (!families.containsKey(family)) {
+                        throw new IllegalArgumentException("Phase " + phaseDefinition.getString("name") +
+                                " uses an unknown query family: " + family);
+                    }
+                    phaseFamilies.add(family);
+                }
+            }
+            phases.add(new Phase(phaseDefinition.getString("name"), phaseDefinition.optBoolean("indexes", false),
+                    phaseFamilies, phaseDefinition.optBoolean("iterations", true),
+                    phaseDefinition.optBoolean("load", false)));
+        }
+
+        return new Workload(definition.optString("name", "workload"), definition.optInt("iterations", 12),
+                definition.optInt("warmup_iterations", -1), parameters, families, loadClientCounts,
+                loadDurationSeconds, loadWarmupSeconds, loadMix, phases);
+    }
+
+    /**
+     * Replace every ${name} placeholder with the value of the parameter.
+     * @throws IllegalArgumentException if the text uses a parameter that is not defined
+     */
+    static String substituteParameters(String text, Map<String, Object> parameters) {
+        StringBuilder substituted = new StringBuilder();
+        int position = 0;
+        while (true) {
+            int start = text.indexOf("${", position);
+            if (start < 0) {
+                break;
+            }
+            int end = text.indexOf('}', start);
+            if (end < 0) {
+                break;
+            }
+            String parameter = text.substring(start + 2, end);
+            if (!parameters.containsKey(parameter)) {
+                throw new IllegalArgumentException("Undefined workload parameter: " + parameter);
+            }
+            substituted.append(text, position, start).append(parameters.get(parameter));
+            position = end + 1;
+        }
+        return substituted.append(text.substring(position)).toString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, Object> getParameters() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getWarmupIterations() {
+        return warmupIterations;
+    }
+
+    /**
+     * Get the variants of every family, keyed by family name in the order of the definition.
+     */
+    public Map<String, List<BenchmarkQuery>> getFamilies() {
+        return Collections.unmodifiableMap(families);
+    }
+
+    /**
+     * Get the variants of the families run in the phase.
+     */
+    public List<BenchmarkQuery> getQueries(Phase phase) {
+        List<BenchmarkQuery> queries = new ArrayList<BenchmarkQuery>();
+        for (Map.Entry<String, List<BenchmarkQuery>> family : families.entrySet()) {
+            if (phase.getFamilies().isEmpty() || phase.getFamilies().contains(family.getKey())) {
+                queries.addAll(family.getValue());
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * Get the load mix of the phase, the families of the load settings with their weights if they are given,
+     * otherwise every family of the phase with weight 1.
+     */
+    public QueryMix getLoadMix(Phase phase) {
+        if (loadMix.isEmpty()) {
+            return QueryMix.uniform(getQueries(phase));
+        }
+        QueryMix mix = new QueryMix();
+        for (Map.Entry<String, Integer> family : loadMix.entrySet()) {
+            for (BenchmarkQuery query : families.get(family.getKey())) {
+                mix.add(query, family.getValue());
+            }
+        }
+        return mix;
+    }
+
+    public int[] getLoadClientCounts() {
+        return loadClientCounts;
+    }
+
+    public long getLoadDurationSeconds() {
+        return loadDurationSeconds;
+    }
+
+    public long getLoadWarmupSeconds() {
+        return loadWarmupSeconds;
+    }
+
+    public List<Phase> getPhases() {
+        return phases;
+    }
+}
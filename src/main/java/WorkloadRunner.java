@@ -0,0 +1,93 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Runs the phases of a {@link Workload} against the generated dataset. Indexes are created or deleted before a
+ * phase whenever its index state differs from the current one, and deleted again at the end.
+ */
+public class WorkloadRunner {
+
+    private final QueryTester queryTester;
+    private final DataGenerator dataGenerator;
+    private final ClosedLoopLoadDriver loadDriver;
+
+    public WorkloadRunner(QueryTester queryTester, DataGenerator dataGenerator, ClosedLoopLoadDriver loadDriver) {
+        this.queryTester = queryTester;
+        this.dataGenerator = dataGenerator;
+        this.loadDriver = loadDriver;
+    }
+
+    /**
+     * Run every phase of the workload in order.
+     * @param iterations number of measured iterations per query, overrides the workload if positive
+     */
+    public void run(Workload workload, int iterations) {
+        int queryIterations = (iterations > 0) ? iterations : workload.getIterations();
+        if (workload.getWarmupIterations() >= 0) {
+            queryTester.setWarmupIterations(workload.getWarmupIterations());
+        }
+        boolean indexes = false;
+        String previousPhase = null;
+
+        System.out.println("Running workload " + workload.getName() + " with " + workload.getPhases().size() +
+                " phases.");
+        for (Workload.Phase phase : workload.getPhases()) {
+            if (phase.hasIndexes() && !indexes) {
+                System.out.println();
+                System.out.println("CREATING INDEXES");
+                System.out.println();
+                dataGenerator.createIndexes();
+                indexes = true;
+            } else if (!phase.hasIndexes() && indexes) {
+                System.out.println();
+                System.out.println("DELETING INDEXES");
+                System.out.println();
+                dataGenerator.deleteIndexes();
+                indexes = false;
+            }
+            System.out.println(phase.getName());
+            queryTester.setPhase(phase.getName());
+
+            if (phase.runsIterations()) {
+                for (BenchmarkQuery query : workload.getQueries(phase)) {
+                    runIterations(query, queryIterations);
+                }
+            }
+            if (phase.runsLoad() && workload.getLoadClientCounts().length > 0) {
+                loadDriver.runConcurrencyLevels(workload.getLoadMix(phase), workload.getLoadClientCounts(),
+                        workload.getLoadDurationSeconds() * 1000, workload.getLoadWarmupSeconds() * 1000,
+                        phase.getName());
+            }
+
+            if (previousPhase != null && !queryTester.getPlans().isEmpty()) {
+                queryTester.printPlanDiffs(previousPhase, phase.getName());
+            }
+            previousPhase = phase.getName();
+        }
+        if (indexes) {
+            System.out.println();
+            System.out.println("DELETING INDEXES");
+            System.out.println();
+            dataGenerator.deleteIndexes();
+        }
+        queryTester.printStabilizationReport();
+        queryTester.printClientResourceReport();
+        queryTester.printServerStatisticsReport();
+        queryTester.printCacheStateReport();
+    }
+
+    private void runIterations(BenchmarkQuery query, int iterations) {
+        System.out.println("Query " + query.getFamily() + ", " + query.getName());
+        if (query.getEngine() == BenchmarkQuery.Engine.SQL) {
+            HashMap<String, ArrayList<Long>> resultLists = queryTester.measureQueryTimeSQL(query, iterations);
+            for (String databaseVersion : resultLists.keySet()) {
+                System.out.println("Results for " + databaseVersion);
+                queryTester.showResults(resultLists.get(databaseVersion), true);
+            }
+        } else {
+            List<Long> results = queryTester.measureQueryTimeCypher(query, iterations);
+            queryTester.showResults(results, true);
+        }
+    }
+}